@@ -0,0 +1,112 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates synthetic flat files for the benchmarks.
+ * <p>
+ * It can also be run on its own to write a file:
+ * <pre>
+ * DatFileGenerator &lt;file&gt; [lines] [salesmanRatio] [customerRatio] [itemsPerSale] [cardinality]
+ * </pre>
+ *
+ * @author Anderson Araujo.
+ */
+public final class DatFileGenerator {
+
+    private final int lines;
+    private final double salesmanRatio;
+    private final double customerRatio;
+    private final int itemsPerSale;
+    private final int cardinality;
+    private final long seed;
+
+    /**
+     * @param lines         How many lines the file has.
+     * @param salesmanRatio The share of salesman lines ({@code 001}), from 0 to 1.
+     * @param customerRatio The share of customer lines ({@code 002}), from 0 to 1. The remaining lines are sales.
+     * @param itemsPerSale  How many items each sale has.
+     * @param cardinality   How many distinct CPFs, CNPJs, salesman names and ItemIDs there are.
+     * @param seed          The seed of the random values, so the same file can be generated again.
+     */
+    public DatFileGenerator(int lines, double salesmanRatio, double customerRatio, int itemsPerSale,
+                            int cardinality, long seed) {
+        if (salesmanRatio + customerRatio > 1) {
+            throw new IllegalArgumentException("Salesman and customer ratios must sum up to 1 or less.");
+        }
+        this.lines = lines;
+        this.salesmanRatio = salesmanRatio;
+        this.customerRatio = customerRatio;
+        this.itemsPerSale = itemsPerSale;
+        this.cardinality = cardinality;
+        this.seed = seed;
+    }
+
+    /**
+     * @return The file contents.
+     */
+    public byte[] generate() {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(lines * (20 + itemsPerSale * 12));
+
+        for (int line = 0; line < lines; line++) {
+            double kind = random.nextDouble();
+            int key = random.nextInt(cardinality);
+
+            if (kind < salesmanRatio) {
+                builder.append("001ç").append(1000000000000L + key).append("çSalesman").append(key)
+                        .append('ç').append(1000 + random.nextInt(100000)).append(".00");
+            } else if (kind < salesmanRatio + customerRatio) {
+                builder.append("002ç").append(2000000000000000L + key).append("çCustomer").append(key)
+                        .append("çRural");
+            } else {
+                builder.append("003ç").append(line).append("ç[");
+                for (int item = 0; item < itemsPerSale; item++) {
+                    if (item > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(random.nextInt(cardinality)).append('-').append(1 + random.nextInt(50))
+                            .append('-').append(random.nextInt(1000)).append('.').append(random.nextInt(10))
+                            .append(random.nextInt(10));
+                }
+                builder.append("]çSalesman").append(key);
+            }
+            builder.append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the file.
+     *
+     * @param file Where the file is written.
+     * @return The file.
+     * @throws IOException If the file can't be written.
+     */
+    public Path write(Path file) throws IOException {
+        return Files.write(file, generate());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: DatFileGenerator <file> [lines] [salesmanRatio] [customerRatio] "
+                    + "[itemsPerSale] [cardinality]");
+            System.exit(1);
+        }
+
+        DatFileGenerator generator = new DatFileGenerator(
+                args.length > 1 ? Integer.parseInt(args[1]) : 1000000,
+                args.length > 2 ? Double.parseDouble(args[2]) : 0.1,
+                args.length > 3 ? Double.parseDouble(args[3]) : 0.1,
+                args.length > 4 ? Integer.parseInt(args[4]) : 3,
+                args.length > 5 ? Integer.parseInt(args[5]) : 10000,
+                42);
+        generator.write(Paths.get(args[0]));
+    }
+
+}
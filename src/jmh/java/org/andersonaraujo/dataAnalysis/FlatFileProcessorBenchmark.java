@@ -0,0 +1,179 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks of the parser, the aggregation and the output of {@link FlatFileProcessor}.
+ * <p>
+ * Besides the operations per second, the {@link Counters} report the lines and bytes parsed per second. Run it with
+ * {@code mvn -P benchmark verify}, which also reports the allocation rate with the GC profiler.
+ *
+ * @author Anderson Araujo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatFileProcessorBenchmark {
+
+    @Param({"100000"})
+    private int lines;
+
+    @Param({"0.1"})
+    private double salesmanRatio;
+
+    @Param({"0.1"})
+    private double customerRatio;
+
+    @Param({"3", "20"})
+    private int itemsPerSale;
+
+    @Param({"1000"})
+    private int cardinality;
+
+    private byte[] data;
+
+    private String[] textLines;
+
+    private ByteBuffer salesLine;
+
+    private Path tempDirectory;
+
+    private String directory;
+
+    private String fileName;
+
+    private FlatFileProcessor processedFile;
+
+    private SalesmanTotals salesmanTotals;
+
+    private Path columnarFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = new DatFileGenerator(lines, salesmanRatio, customerRatio, itemsPerSale, cardinality, 42).generate();
+        textLines = new String(data, StandardCharsets.UTF_8).split("\n");
+
+        DatFileGenerator salesOnly = new DatFileGenerator(1, 0, 0, itemsPerSale, cardinality, 42);
+        salesLine = ByteBuffer.wrap(salesOnly.generate());
+
+        tempDirectory = Files.createTempDirectory("benchmark");
+        directory = tempDirectory.toString() + File.separator;
+        fileName = "benchmark" + Main.INPUT_FILE_EXTENSION;
+        Files.write(tempDirectory.resolve(fileName), data);
+
+        processedFile = new FlatFileProcessor(fileName, directory, directory);
+        processedFile.processFile();
+
+        SalesSummary summary = new SalesSummary();
+        new DatFileParser(summary).parse(ByteBuffer.wrap(data), 0, true);
+        salesmanTotals = summary.getSalesmanTotals();
+
+        ColumnarFile.Builder columnar = new ColumnarFile.Builder();
+        new DatFileParser(columnar).parse(ByteBuffer.wrap(data), 0, true);
+        columnarFile = tempDirectory.resolve("benchmark" + ColumnarFile.FILE_EXTENSION);
+        columnar.write(columnarFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(tempDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(tempDirectory);
+    }
+
+    /**
+     * Lines and bytes handled per second, reported next to the benchmark score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long lines;
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+            bytes = 0;
+        }
+    }
+
+    @Benchmark
+    public void processLine(Counters counters) {
+        FlatFileProcessor processor = new FlatFileProcessor(fileName, directory, directory);
+        for (String line : textLines) {
+            processor.processLine(line);
+        }
+        counters.lines += textLines.length;
+        counters.bytes += data.length;
+    }
+
+    @Benchmark
+    public void parseItems(Counters counters, Blackhole blackhole) {
+        salesLine.rewind();
+        new DatFileParser(new DatRecordHandler() {
+            @Override
+            public void onSalesman(String cpf) {
+            }
+
+            @Override
+            public void onCustomer(String cnpj) {
+            }
+
+            @Override
+            public void onSale(SaleRecord sale) {
+                blackhole.consume(sale.getValue().getUnits());
+            }
+        }).parse(salesLine, 0, true);
+        counters.lines++;
+        counters.bytes += salesLine.limit();
+    }
+
+    @Benchmark
+    public String worstSalesman() {
+        return salesmanTotals.getWorst();
+    }
+
+    @Benchmark
+    public String generateOutput() {
+        return processedFile.generateOutput();
+    }
+
+    @Benchmark
+    public Boolean processFile(Counters counters) {
+        Boolean result = new FlatFileProcessor(fileName, directory, directory).processFile();
+        counters.lines += textLines.length;
+        counters.bytes += data.length;
+        return result;
+    }
+
+    /**
+     * Computes the records {@code 001} to {@code 004} of the same file from its columnar file, to compare with
+     * {@link #processFile(Counters)}.
+     */
+    @Benchmark
+    public String readColumnar(Counters counters) throws IOException {
+        String output = ColumnarFile.read(columnarFile, DistinctCountMode.EXACT).generateOutput();
+        counters.lines += textLines.length;
+        counters.bytes += data.length;
+        return output;
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * Grows or shrinks the workers of an {@link IngestionQueue}, within bounds, to process the most files per second.
+ * <p>
+ * Each period, the CPU time of the files, with their helper threads, over the wall time the workers spent on them
+ * gives how many workers keep the cores busy: a file that waits on the disk half of the time lets two workers share a
+ * core, and a file parsed in chunks on two cores needs half a worker per core. The concurrency moves half way to that
+ * amount, and only grows while files are waiting. A change followed by a lower throughput is undone, and the
+ * concurrency is then held for a few periods, as the throughput of a single period is noisy.
+ * <p>
+ * Each change is logged with the numbers it was made from. Instances are used by a single thread.
+ *
+ * @author Anderson Araujo.
+ */
+final class AdaptiveConcurrency {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    /**
+     * How much lower the throughput must be after a change for it to be undone.
+     */
+    private static final double TOLERANCE = 0.1;
+
+    /**
+     * The CPU share below which the workers are considered waiting on I/O only, so the ideal amount stays bounded.
+     */
+    private static final double MIN_CPU_RATIO = 0.05;
+
+    /**
+     * Periods the concurrency is held after a change is undone.
+     */
+    private static final int HOLD_PERIODS = 6;
+
+    private final String name;
+
+    private final IngestionQueue queue;
+
+    private final int minWorkers;
+
+    private final int maxWorkers;
+
+    private final int cores;
+
+    private double lastThroughput;
+
+    private int lastChange;
+
+    private int holdPeriods;
+
+    /**
+     * @param name       Identifies the queue in the logs.
+     * @param queue      The queue, which must measure its files, see {@link IngestionQueue#isMeasured()}.
+     * @param minWorkers The least amount of workers.
+     * @param maxWorkers The most amount of workers.
+     * @param cores      How many cores the workers share.
+     */
+    AdaptiveConcurrency(String name, IngestionQueue queue, int minWorkers, int maxWorkers, int cores) {
+        if (minWorkers < 1 || maxWorkers < minWorkers) {
+            throw new IllegalArgumentException("Adaptive workers must be at least one, and the minimum can't be above "
+                    + "the maximum.");
+        }
+        this.name = name;
+        this.queue = queue;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.cores = cores;
+        queue.setConcurrency(clamp(queue.getConcurrency()));
+    }
+
+    /**
+     * Samples the files processed since the previous call and changes the concurrency of the queue if needed.
+     *
+     * @return The concurrency of the queue.
+     */
+    int adapt() {
+        IngestionQueue.Sample sample = queue.sample();
+        int current = queue.getConcurrency();
+        if (sample.getFiles() == 0) {
+            // Idle, nothing to compare the next period with
+            lastChange = 0;
+            return current;
+        }
+
+        double throughput = sample.getThroughput();
+        double cpuRatio = sample.getCpuRatio();
+        int waiting = queue.getQueueDepth();
+        int target;
+        String reason;
+        if (lastChange != 0 && throughput < lastThroughput * (1 - TOLERANCE)) {
+            target = current - lastChange;
+            reason = String.format(Locale.ROOT, "the previous change lowered the throughput from %.1f files/s",
+                    lastThroughput);
+            holdPeriods = HOLD_PERIODS;
+        } else if (holdPeriods > 0) {
+            holdPeriods--;
+            target = current;
+            reason = "held after an undone change";
+        } else {
+            int ideal = clamp((int) Math.ceil(cores / Math.max(cpuRatio, MIN_CPU_RATIO)));
+            target = ideal > current && waiting == 0 ? current : current + halfWay(ideal - current);
+            reason = String.format(Locale.ROOT, "%d workers keep %d cores busy, %d files waiting", ideal, cores,
+                    waiting);
+        }
+        target = clamp(target);
+
+        lastChange = holdPeriods == HOLD_PERIODS ? 0 : target - current;
+        lastThroughput = throughput;
+        if (target != current) {
+            queue.setConcurrency(target);
+            Metrics.INSTANCE.workersChanged();
+            logger.info(String.format(Locale.ROOT, "Workers of '%s' changed from %d to %d at %.1f files/s and %.0f%% "
+                    + "CPU: %s.", name, current, target, throughput, cpuRatio * 100, reason));
+        } else {
+            logger.debug(String.format(Locale.ROOT, "Workers of '%s' kept at %d at %.1f files/s and %.0f%% CPU: %s.",
+                    name, current, throughput, cpuRatio * 100, reason));
+        }
+        return target;
+    }
+
+    private int clamp(int workers) {
+        return Math.max(minWorkers, Math.min(maxWorkers, workers));
+    }
+
+    private static int halfWay(int distance) {
+        return distance == 0 ? 0 : distance / 2 + Integer.signum(distance) * (Math.abs(distance) % 2);
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * Computes a part of the report from the records of a flat file.
+ * <p>
+ * Every analyzer is fed by the same parse of the file. Its numbers are kept in a {@link AnalyzerState}, one per file
+ * or per chunk of a file split to be parsed in parallel, and the states of the chunks are merged in file order before
+ * the output is written. Analyzers themselves hold no numbers, so a single instance serves every file.
+ * <p>
+ * Besides the default analyzers, which write the records {@code 001} to {@code 004}, analyzers are found with
+ * {@link java.util.ServiceLoader}: a jar in the classpath with a {@code
+ * META-INF/services/org.andersonaraujo.dataAnalysis.Analyzer} file listing its implementations adds their records to
+ * the end of every output. Implementations must have a public constructor without arguments.
+ *
+ * @param <S> The type of the state.
+ * @author Anderson Araujo.
+ */
+public interface Analyzer<S extends AnalyzerState<S>> {
+
+    /**
+     * @return A new, empty state for a file or a chunk of a file.
+     */
+    S newState();
+
+    /**
+     * Appends the records of this analyzer to the output of a file.
+     *
+     * @param state  The state of the whole file.
+     * @param output The output, where each record is a line ending with {@code \n}.
+     */
+    void appendOutput(S state, StringBuilder output);
+
+}
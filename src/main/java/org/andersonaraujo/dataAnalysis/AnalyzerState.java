@@ -0,0 +1,33 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * The numbers an {@link Analyzer} computes from a flat file, or from a chunk of it.
+ * <p>
+ * The records are the flyweights of {@link DatRecordHandler}, so a state must copy what it keeps from them. A state is
+ * only used by one thread at a time.
+ *
+ * @param <S> The type of the state itself.
+ * @author Anderson Araujo.
+ */
+public interface AnalyzerState<S extends AnalyzerState<S>> extends DatRecordHandler {
+
+    @Override
+    default void onSalesman(String cpf) {
+    }
+
+    @Override
+    default void onCustomer(String cnpj) {
+    }
+
+    @Override
+    default void onSale(SaleRecord sale) {
+    }
+
+    /**
+     * Merges the state of the next chunk of the file into this one.
+     *
+     * @param next The state of the chunk that comes after the one of this state.
+     */
+    void merge(S next);
+
+}
@@ -0,0 +1,54 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the {@link Analyzer}s besides the default ones.
+ *
+ * @author Anderson Araujo.
+ */
+final class Analyzers {
+
+    private static final Logger logger = LoggerFactory.getLogger(Analyzers.class);
+
+    private Analyzers() {
+    }
+
+    /**
+     * @return The analyzers found in the classpath, looked up once.
+     */
+    static List<Analyzer<?>> plugins() {
+        return Plugins.ANALYZERS;
+    }
+
+    /**
+     * Looks up the analyzers listed in the {@code META-INF/services/org.andersonaraujo.dataAnalysis.Analyzer} files.
+     *
+     * @param classLoader Where the files and the analyzers are loaded from.
+     * @return The analyzers, in the order they are listed.
+     * @throws java.util.ServiceConfigurationError If an analyzer can't be created.
+     */
+    static List<Analyzer<?>> load(ClassLoader classLoader) {
+        List<Analyzer<?>> analyzers = new ArrayList<>();
+        for (Analyzer<?> analyzer : ServiceLoader.load(Analyzer.class, classLoader)) {
+            logger.info("Analyzer '{}' found.", analyzer.getClass().getName());
+            analyzers.add(analyzer);
+        }
+        return Collections.unmodifiableList(analyzers);
+    }
+
+    /**
+     * Holds the analyzers of the classpath, so they are looked up on first use.
+     */
+    private static final class Plugins {
+
+        private static final List<Analyzer<?>> ANALYZERS = load(Analyzers.class.getClassLoader());
+    }
+
+}
@@ -0,0 +1,222 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes a set of files once, instead of watching the input directory.
+ * <p>
+ * The files are processed by one worker per core, each one written to its own output file, and optionally merged into
+ * a combined report. {@link #run()} returns once every file is processed and the workers are stopped.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -jar dataAnalysis.jar --batch &lt;directory|glob|file&gt;... [--output &lt;directory&gt;] [--report &lt;file&gt;]
+ * </pre>
+ *
+ * @author Anderson Araujo.
+ */
+final class BatchProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchProcessor.class);
+
+    static final String BATCH_OPTION = "--batch";
+
+    static final String OUTPUT_OPTION = "--output";
+
+    static final String REPORT_OPTION = "--report";
+
+    static final int EXIT_SUCCESS = 0;
+
+    static final int EXIT_FAILURES = 1;
+
+    static final int EXIT_USAGE = 2;
+
+    static final String USAGE = "Usage: " + BATCH_OPTION + " <directory|glob|file>... [" + OUTPUT_OPTION
+            + " <directory>] [" + REPORT_OPTION + " <file>]";
+
+    private final List<Path> files;
+
+    private final Path outputDirectory;
+
+    private final Path reportFile;
+
+    private final int threads;
+
+    /**
+     * @param files           The files to be processed.
+     * @param outputDirectory Where the output files are written, or null to write them next to each file.
+     * @param reportFile      Where the combined report of all the files is written, or null.
+     * @param threads         How many files are processed at the same time.
+     */
+    BatchProcessor(List<Path> files, Path outputDirectory, Path reportFile, int threads) {
+        this.files = files;
+        this.outputDirectory = outputDirectory;
+        this.reportFile = reportFile;
+        this.threads = threads;
+    }
+
+    /**
+     * Creates a batch from the command line arguments.
+     *
+     * @param args The arguments, starting with {@value #BATCH_OPTION}.
+     * @return The batch.
+     * @throws IllegalArgumentException If the arguments are invalid.
+     * @throws IOException              If a directory can't be listed.
+     */
+    static BatchProcessor fromArguments(String[] args) throws IOException {
+        Set<Path> files = new LinkedHashSet<>();
+        Path outputDirectory = null;
+        Path reportFile = null;
+
+        for (int i = 1; i < args.length; i++) {
+            if (OUTPUT_OPTION.equals(args[i]) || REPORT_OPTION.equals(args[i])) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Option '" + args[i] + "' needs a value.");
+                }
+                Path value = Paths.get(args[++i]);
+                if (OUTPUT_OPTION.equals(args[i - 1])) {
+                    outputDirectory = value;
+                } else {
+                    reportFile = value;
+                }
+            } else {
+                files.addAll(resolve(args[i]));
+            }
+        }
+
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No input files to process.");
+        }
+        return new BatchProcessor(new ArrayList<>(files), outputDirectory, reportFile,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param pattern A directory, whose {@code .dat} and {@code .dat.gz} files are returned, a glob like
+     *                {@code data/2016-*.dat} or {@code out/*.col}, whose directory part can't have wildcards, or a
+     *                file.
+     * @return The files, sorted by name.
+     * @throws IOException If the directory can't be listed.
+     */
+    static List<Path> resolve(String pattern) throws IOException {
+        int separator = Math.max(pattern.lastIndexOf('/'), pattern.lastIndexOf(File.separatorChar));
+        String name = pattern.substring(separator + 1);
+
+        if (!name.matches(".*[*?\\[{].*")) {
+            Path path = Paths.get(pattern);
+            if (Files.isDirectory(path)) {
+                return list(path, Main.INPUT_FILE_GLOB);
+            }
+            if (Files.isRegularFile(path)) {
+                return Collections.singletonList(path);
+            }
+            throw new IllegalArgumentException("File '" + pattern + "' doesn't exist.");
+        }
+        return list(Paths.get(separator < 0 ? "." : pattern.substring(0, separator + 1)), name);
+    }
+
+    /**
+     * Lists the input files of a directory that match the glob, leaving out the output files.
+     */
+    private static List<Path> list(Path directory, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                if (Files.isRegularFile(file) && (Main.isInputFile(fileName) || ColumnarFile.isColumnar(fileName))
+                        && !fileName.endsWith(Main.OUTPUT_FILE_EXTENSION)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Processes the files and writes the combined report, if requested.
+     *
+     * @return {@link #EXIT_SUCCESS} if every file was processed, or {@link #EXIT_FAILURES} otherwise.
+     * @throws IOException          If the output directory can't be created.
+     * @throws InterruptedException If interrupted while waiting for the files.
+     */
+    int run() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        logger.info("Processing {} files with {} workers.", files.size(), threads);
+
+        String output = null;
+        if (outputDirectory != null) {
+            output = Files.createDirectories(outputDirectory).toAbsolutePath().toString() + File.separator;
+        }
+
+        // Only the combined report is written, the snapshot isn't
+        GlobalSummary report = reportFile == null ? null : new GlobalSummary(reportFile, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int failures = 0;
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                String inputDirectory = file.toAbsolutePath().getParent().toString() + File.separator;
+                results.add(executor.submit(new FlatFileProcessor(file.getFileName().toString(), inputDirectory,
+                        output == null ? inputDirectory : output, report)));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                if (!processed(results.get(i), files.get(i))) {
+                    failures++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        logger.info("{} files processed in {} ms, {} failed.", files.size() - failures,
+                System.currentTimeMillis() - start, failures);
+
+        boolean reportWritten = report == null || writeReport(report);
+        return failures == 0 && reportWritten ? EXIT_SUCCESS : EXIT_FAILURES;
+    }
+
+    private static boolean processed(Future<Boolean> result, Path file) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            logger.error("Error while processing the file '" + file + "'.", e.getCause());
+            return false;
+        }
+    }
+
+    private boolean writeReport(GlobalSummary report) {
+        try {
+            OutputWriter.writeAtomically(reportFile,
+                    ReportFormat.configured().encode(report.generateOutput()).getBytes(StandardCharsets.UTF_8));
+            logger.info("Combined report written to '{}'.", reportFile);
+            return true;
+        } catch (IOException e) {
+            logger.error("Error while writing the combined report '{}': {}", reportFile, e.getMessage());
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,480 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A flat file converted to columns of fixed width values, so it can be analysed again without being parsed.
+ * <p>
+ * Each kind of record is kept as a set of columns: the CPFs and CNPJs, the sale IDs, the sale values, the salesman of
+ * each sale and the ItemIDs, quantities and revenues of the items. Documents and sale IDs of up to 17 digits are
+ * packed into a {@code long} as in {@link DocumentSet}, and the others are kept in a table of strings; salesman names
+ * are kept once in a dictionary and each sale holds the index of its salesman; money values are {@link Money} units,
+ * at the scale written in the header. The columns of {@code long}s come first, followed by the columns of
+ * {@code int}s and the bytes of the strings, so {@link #read(Path, DistinctCountMode)} maps the file and reads the
+ * columns in place.
+ * <p>
+ * A {@link Builder} receives the records while the text file is parsed.
+ *
+ * @author Anderson Araujo.
+ */
+final class ColumnarFile {
+
+    static final String FILE_EXTENSION = ".col";
+
+    private static final int MAGIC = 0x4441434C;
+    private static final int VERSION = 1;
+
+    /**
+     * Magic, version, scale and the 6 column lengths.
+     */
+    private static final int HEADER_SIZE = 9 * Integer.BYTES;
+
+    private ColumnarFile() {
+    }
+
+    /**
+     * @return Whether the file name has the columnar file extension.
+     */
+    static boolean isColumnar(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Maps a columnar file and computes the numbers of the records {@code 001} to {@code 004} from its columns.
+     *
+     * @param file          The file.
+     * @param distinctCount How the distinct CNPJs and CPFs are counted.
+     * @return The numbers of the file.
+     * @throws IOException If the file can't be read or is not a columnar file.
+     */
+    static Summary read(Path file, DistinctCountMode distinctCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Columnar file '" + file + "' is bigger than 2 GB.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("File '" + file + "' is not a columnar file.");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Columnar file '" + file + "' has the unknown version " + buffer.getInt(4)
+                        + ".");
+            }
+            return new Summary(buffer, distinctCount);
+        }
+    }
+
+    /**
+     * The numbers of the records {@code 001} to {@code 004}, computed from the columns of a file.
+     */
+    static final class Summary {
+
+        private final DistinctCounter clientsCnpjs;
+
+        private final DistinctCounter salesmanCpfs;
+
+        private final SalesmanTotals salesmanTotals = new SalesmanTotals();
+
+        private final Money mostExpensiveSaleValue = new Money();
+
+        private String mostExpensiveSaleId;
+
+        private Summary(MappedByteBuffer buffer, DistinctCountMode distinctCount) {
+            int scale = buffer.getInt(8);
+            int salesmen = buffer.getInt(12);
+            int customers = buffer.getInt(16);
+            int sales = buffer.getInt(20);
+            int items = buffer.getInt(24);
+            int dictionarySize = buffer.getInt(28);
+            int stringCount = buffer.getInt(32);
+
+            int salesmanDocuments = HEADER_SIZE;
+            int customerDocuments = salesmanDocuments + salesmen * Long.BYTES;
+            int saleIds = customerDocuments + customers * Long.BYTES;
+            int saleValues = saleIds + sales * Long.BYTES;
+            int saleSalesmen = saleValues + sales * Long.BYTES + 3 * items * Long.BYTES + sales * Integer.BYTES;
+            int dictionaryOffsets = saleSalesmen + sales * Integer.BYTES;
+            int stringOffsets = dictionaryOffsets + (dictionarySize + 1) * Integer.BYTES;
+            int dictionaryBytes = stringOffsets + (stringCount + 1) * Integer.BYTES;
+            int stringBytes = dictionaryBytes + buffer.getInt(dictionaryOffsets + dictionarySize * Integer.BYTES);
+            Strings dictionary = new Strings(buffer, dictionaryOffsets, dictionaryBytes);
+            Strings strings = new Strings(buffer, stringOffsets, stringBytes);
+
+            salesmanCpfs = count(buffer, salesmanDocuments, salesmen, strings, distinctCount);
+            clientsCnpjs = count(buffer, customerDocuments, customers, strings, distinctCount);
+
+            // The first of the most expensive sales, as the parser keeps it
+            int mostExpensiveSale = -1;
+            long highestValue = 0;
+            long[] totals = new long[dictionarySize];
+            Money[] exactTotals = null;
+            for (int sale = 0; sale < sales; sale++) {
+                long value = buffer.getLong(saleValues + sale * Long.BYTES);
+                if (value > highestValue) {
+                    highestValue = value;
+                    mostExpensiveSale = sale;
+                }
+
+                int salesman = buffer.getInt(saleSalesmen + sale * Integer.BYTES);
+                long total = totals[salesman] + value;
+                if (((totals[salesman] ^ total) & (value ^ total)) < 0) {
+                    // Overflow, the totals go on as Money
+                    if (exactTotals == null) {
+                        exactTotals = new Money[dictionarySize];
+                    }
+                    if (exactTotals[salesman] == null) {
+                        exactTotals[salesman] = new Money();
+                    }
+                    exactTotals[salesman].add(totals[salesman], scale);
+                    total = value;
+                }
+                totals[salesman] = total;
+            }
+
+            for (int salesman = 0; salesman < dictionarySize; salesman++) {
+                Money total = exactTotals == null || exactTotals[salesman] == null ? new Money()
+                        : exactTotals[salesman];
+                total.add(totals[salesman], scale);
+                salesmanTotals.add(dictionary.get(salesman), total);
+            }
+
+            if (mostExpensiveSale >= 0) {
+                mostExpensiveSaleId = value(buffer.getLong(saleIds + mostExpensiveSale * Long.BYTES), strings);
+                mostExpensiveSaleValue.add(highestValue, scale);
+            }
+        }
+
+        private static DistinctCounter count(MappedByteBuffer buffer, int column, int length, Strings strings,
+                                             DistinctCountMode distinctCount) {
+            DistinctCounter counter = distinctCount.create();
+            DocumentSet documents = counter instanceof DocumentSet ? (DocumentSet) counter : null;
+            for (int i = 0; i < length; i++) {
+                long value = buffer.getLong(column + i * Long.BYTES);
+                if (documents != null && value >= 0) {
+                    documents.addPacked(value);
+                } else {
+                    counter.add(value(value, strings));
+                }
+            }
+            return counter;
+        }
+
+        DistinctCounter getClientsCnpjs() {
+            return clientsCnpjs;
+        }
+
+        DistinctCounter getSalesmanCpfs() {
+            return salesmanCpfs;
+        }
+
+        SalesmanTotals getSalesmanTotals() {
+            return salesmanTotals;
+        }
+
+        String getMostExpensiveSaleId() {
+            return mostExpensiveSaleId;
+        }
+
+        /**
+         * @return The value of the most expensive sale. It must not be changed.
+         */
+        Money getMostExpensiveSaleValue() {
+            return mostExpensiveSaleValue;
+        }
+
+        /**
+         * @return The records {@code 001} to {@code 004}.
+         */
+        String generateOutput() {
+            return FlatFileProcessor.generateOutput(clientsCnpjs.size(), salesmanCpfs.size(), mostExpensiveSaleId,
+                    salesmanTotals.getWorst());
+        }
+    }
+
+    /**
+     * @return The document or sale ID, packed or at the negated index of the table of strings.
+     */
+    private static String value(long value, Strings strings) {
+        return value >= 0 ? DocumentSet.unpack(value) : strings.get((int) ~value);
+    }
+
+    /**
+     * A table of UTF-8 strings in a mapped file: their end offsets, followed by their bytes.
+     */
+    private static final class Strings {
+
+        private final MappedByteBuffer buffer;
+
+        private final int offsets;
+
+        private final int bytes;
+
+        private Strings(MappedByteBuffer buffer, int offsets, int bytes) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+            this.bytes = bytes;
+        }
+
+        private String get(int index) {
+            int start = buffer.getInt(offsets + index * Integer.BYTES);
+            int end = buffer.getInt(offsets + (index + 1) * Integer.BYTES);
+            return DatFileParser.decode(buffer, bytes + start, bytes + end);
+        }
+    }
+
+    /**
+     * Receives the records of a flat file, or of a chunk of it, and writes them as a columnar file.
+     * <p>
+     * The files the columns can't hold, like the ones with a money value that doesn't fit in a {@code long} of
+     * {@link Money} units, are not converted.
+     */
+    static final class Builder implements AnalyzerState<Builder> {
+
+        private final LongColumn salesmanDocuments = new LongColumn();
+        private final LongColumn customerDocuments = new LongColumn();
+
+        private final LongColumn saleIds = new LongColumn();
+        private final LongColumn saleValues = new LongColumn();
+        private final IntColumn saleSalesmen = new IntColumn();
+
+        /**
+         * The index after the last item of each sale.
+         */
+        private final IntColumn saleItemEnds = new IntColumn();
+
+        private final LongColumn itemIds = new LongColumn();
+        private final LongColumn itemQuantities = new LongColumn();
+        private final LongColumn itemRevenues = new LongColumn();
+
+        private final SalesmanDictionary dictionary = new SalesmanDictionary();
+
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * Why the file can't be converted, or null.
+         */
+        private String unsupported;
+
+        @Override
+        public void onSalesman(String cpf) {
+            salesmanDocuments.add(pack(cpf));
+        }
+
+        @Override
+        public void onCustomer(String cnpj) {
+            customerDocuments.add(pack(cnpj));
+        }
+
+        @Override
+        public void onSale(SaleRecord sale) {
+            if (unsupported != null) {
+                return;
+            }
+            if (!sale.getValue().fitsInLong()) {
+                unsupported = "sale value " + sale.getValue() + " has too many decimal places or digits";
+                return;
+            }
+
+            for (int i = 0; i < sale.getItemCount(); i++) {
+                SaleItem item = sale.getItem(i);
+                if (!item.getQuantity().fitsInLong() || !item.getRevenue().fitsInLong()) {
+                    unsupported = "an item of sale " + sale.getSaleId() + " has too many decimal places or digits";
+                    return;
+                }
+                try {
+                    itemIds.add(item.getItemId());
+                } catch (IllegalArgumentException e) {
+                    unsupported = e.getMessage();
+                    return;
+                }
+                itemQuantities.add(item.getQuantity().getUnits());
+                itemRevenues.add(item.getRevenue().getUnits());
+            }
+
+            saleIds.add(pack(sale.getSaleId()));
+            saleValues.add(sale.getValue().getUnits());
+            saleSalesmen.add(sale.salesmanId(dictionary));
+            saleItemEnds.add(itemIds.size);
+        }
+
+        @Override
+        public void merge(Builder next) {
+            if (unsupported == null) {
+                unsupported = next.unsupported;
+            }
+            if (unsupported != null) {
+                return;
+            }
+
+            appendDocuments(salesmanDocuments, next.salesmanDocuments, next);
+            appendDocuments(customerDocuments, next.customerDocuments, next);
+            appendDocuments(saleIds, next.saleIds, next);
+            saleValues.addAll(next.saleValues);
+            for (int i = 0; i < next.saleSalesmen.size; i++) {
+                saleSalesmen.add(dictionary.id(next.dictionary, next.saleSalesmen.values[i]));
+                saleItemEnds.add(itemIds.size + next.saleItemEnds.values[i]);
+            }
+            itemIds.addAll(next.itemIds);
+            itemQuantities.addAll(next.itemQuantities);
+            itemRevenues.addAll(next.itemRevenues);
+        }
+
+        private void appendDocuments(LongColumn column, LongColumn next, Builder nextBuilder) {
+            for (int i = 0; i < next.size; i++) {
+                long value = next.values[i];
+                column.add(value >= 0 ? value : pack(nextBuilder.strings.get((int) ~value)));
+            }
+        }
+
+        private long pack(String value) {
+            long packed = DocumentSet.pack(value);
+            if (packed != 0) {
+                return packed;
+            }
+            strings.add(value);
+            return ~(long) (strings.size() - 1);
+        }
+
+        /**
+         * @return Why the records can't be written as a columnar file, or null if they can.
+         */
+        String getUnsupported() {
+            return unsupported;
+        }
+
+        /**
+         * Writes the columns to a temporary file and moves it over the previous one.
+         *
+         * @throws IOException If the file can't be written.
+         * @throws IllegalStateException If the records can't be written as a columnar file.
+         */
+        void write(Path file) throws IOException {
+            if (unsupported != null) {
+                throw new IllegalStateException("File can't be converted: " + unsupported + ".");
+            }
+            byte[][] dictionaryBytes = new byte[dictionary.size()][];
+            for (int salesman = 0; salesman < dictionaryBytes.length; salesman++) {
+                dictionaryBytes[salesman] = dictionary.bytes(salesman);
+            }
+            byte[][] stringBytes = encode(strings);
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp), 64 * 1024))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(Money.SCALE);
+                output.writeInt(salesmanDocuments.size);
+                output.writeInt(customerDocuments.size);
+                output.writeInt(saleIds.size);
+                output.writeInt(itemIds.size);
+                output.writeInt(dictionary.size());
+                output.writeInt(strings.size());
+
+                salesmanDocuments.write(output);
+                customerDocuments.write(output);
+                saleIds.write(output);
+                saleValues.write(output);
+                itemIds.write(output);
+                itemQuantities.write(output);
+                itemRevenues.write(output);
+                saleItemEnds.write(output);
+                saleSalesmen.write(output);
+                writeOffsets(output, dictionaryBytes);
+                writeOffsets(output, stringBytes);
+                writeBytes(output, dictionaryBytes);
+                writeBytes(output, stringBytes);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static byte[][] encode(List<String> values) {
+            byte[][] bytes = new byte[values.size()][];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+            return bytes;
+        }
+
+        private static void writeOffsets(DataOutputStream output, byte[][] values) throws IOException {
+            int offset = 0;
+            output.writeInt(offset);
+            for (byte[] value : values) {
+                offset += value.length;
+                output.writeInt(offset);
+            }
+        }
+
+        private static void writeBytes(DataOutputStream output, byte[][] values) throws IOException {
+            for (byte[] value : values) {
+                output.write(value);
+            }
+        }
+    }
+
+    /**
+     * A growing column of {@code long}s.
+     */
+    private static final class LongColumn {
+
+        private long[] values = new long[64];
+
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addAll(LongColumn other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            for (int i = 0; i < size; i++) {
+                output.writeLong(values[i]);
+            }
+        }
+    }
+
+    /**
+     * A growing column of {@code int}s.
+     */
+    private static final class IntColumn {
+
+        private int[] values = new int[64];
+
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            for (int i = 0; i < size; i++) {
+                output.writeInt(values[i]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,366 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Parses gzip compressed flat files ({@code .dat.gz}) without writing them to disk decompressed.
+ * <p>
+ * The file is decompressed on its own thread into two buffers that are handed back and forth with the parser, so one
+ * buffer is filled while the other one is parsed. Files in the BGZF format (the block compressed gzip written by
+ * {@code bgzip}, where each block has its compressed size in the header) are also inflated block by block on the
+ * {@link ForkJoinPool#commonPool()}, so decompression runs in parallel. Any other gzip file is a single stream, and
+ * is inflated on the one thread whatever its size.
+ * <p>
+ * A line split between two buffers is copied to a separate buffer to be parsed, so only one line per buffer is
+ * copied.
+ *
+ * @author Anderson Araujo.
+ */
+final class CompressedInput {
+
+    static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8B1F;
+    private static final int FLAG_EXTRA = 4;
+    private static final int BGZF_HEADER_SIZE = 18;
+    private static final int BGZF_TRAILER_SIZE = 8;
+
+    /**
+     * How many BGZF blocks are inflated ahead of the parser, per core.
+     */
+    private static final int BLOCKS_AHEAD_PER_CORE = 4;
+
+    private final DatFileParser parser;
+
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(2);
+
+    /**
+     * The filled buffers, followed by {@link #END} or {@link #FAILED}.
+     */
+    private final BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(3);
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final ByteBuffer FAILED = ByteBuffer.allocate(0);
+
+    private volatile IOException failure;
+
+    /**
+     * Holds a line that continues in the next buffer.
+     */
+    private ByteBuffer carry;
+
+    /**
+     * Position in the decompressed file of the next byte to be parsed.
+     */
+    private long offset;
+
+    private CompressedInput(DatFileParser parser, int bufferSize) {
+        this.parser = parser;
+        this.carry = ByteBuffer.allocate(Math.min(bufferSize, 64 * 1024));
+        free.add(ByteBuffer.allocate(bufferSize));
+        free.add(ByteBuffer.allocate(bufferSize));
+    }
+
+    /**
+     * @return Whether the file name has the compressed input extension.
+     */
+    static boolean isCompressed(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(Main.COMPRESSED_INPUT_FILE_EXTENSION);
+    }
+
+    /**
+     * Parses a gzip compressed file.
+     *
+     * @param file   The file.
+     * @param parser The parser the decompressed bytes are handed to.
+     * @throws IOException If the file can't be read or is not a valid gzip file.
+     */
+    static void parse(Path file, DatFileParser parser) throws IOException {
+        parse(file, parser, DEFAULT_BUFFER_SIZE);
+    }
+
+    static void parse(Path file, DatFileParser parser, int bufferSize) throws IOException {
+        new CompressedInput(parser, bufferSize).parse(file);
+    }
+
+    private void parse(Path file) throws IOException {
+        boolean blocks = isBgzf(file);
+        Thread inflater = new Thread(CpuTime.charged(() -> inflate(file, blocks)), "inflate-" + file.getFileName());
+        inflater.setDaemon(true);
+        inflater.start();
+
+        try {
+            while (true) {
+                ByteBuffer buffer = filled.take();
+                if (buffer == END) {
+                    break;
+                }
+                if (buffer == FAILED) {
+                    throw failure;
+                }
+                consume(buffer);
+                buffer.clear();
+                free.put(buffer);
+            }
+
+            carry.flip();
+            parser.parse(carry, offset, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing '" + file + "'.");
+        } finally {
+            inflater.interrupt();
+        }
+    }
+
+    /**
+     * Parses the complete lines of a filled buffer, the first one joined with the line carried from the previous
+     * buffer, and carries the incomplete line at its end.
+     */
+    private void consume(ByteBuffer buffer) {
+        if (carry.position() > 0) {
+            int lineBreak = buffer.position();
+            while (lineBreak < buffer.limit() && buffer.get(lineBreak) != DatFileParser.LINE_FEED
+                    && buffer.get(lineBreak) != DatFileParser.CARRIAGE_RETURN) {
+                lineBreak++;
+            }
+            int take = Math.min(lineBreak + 1, buffer.limit()) - buffer.position();
+            append(buffer, take);
+            if (lineBreak == buffer.limit()) {
+                return;
+            }
+
+            carry.flip();
+            offset += parser.parse(carry, offset, false);
+            carry.compact();
+        }
+
+        int consumed = parser.parse(buffer, offset, false);
+        offset += consumed;
+        buffer.position(buffer.position() + consumed);
+        append(buffer, buffer.remaining());
+    }
+
+    private void append(ByteBuffer buffer, int length) {
+        if (carry.remaining() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(carry.capacity() * 2, carry.position() + length));
+            carry.flip();
+            larger.put(carry);
+            carry = larger;
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(slice.position() + length);
+        carry.put(slice);
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Runs on the inflater thread, filling the free buffers until the end of the file.
+     */
+    private void inflate(Path file, boolean blocks) {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            if (blocks) {
+                inflateBlocks(new DataInputStream(input));
+            } else {
+                inflateStream(new GZIPInputStream(input, 64 * 1024));
+            }
+        } catch (InterruptedException | InterruptedIOException e) {
+            // The parser stopped
+        } catch (IOException e) {
+            failure = e;
+            filled.offer(FAILED);
+        }
+    }
+
+    private void inflateStream(InputStream input) throws IOException, InterruptedException {
+        ByteBuffer buffer = free.take();
+        int read;
+        while ((read = input.read(buffer.array(), buffer.position(), buffer.remaining())) >= 0) {
+            buffer.position(buffer.position() + read);
+            if (!buffer.hasRemaining()) {
+                buffer = handOff(buffer);
+            }
+        }
+        finish(buffer);
+    }
+
+    /**
+     * Reads the compressed blocks in order and inflates them in parallel, a few blocks ahead of the one being copied
+     * to the buffers.
+     */
+    private void inflateBlocks(DataInputStream input) throws IOException, InterruptedException {
+        int ahead = Math.max(ForkJoinPool.getCommonPoolParallelism(), 1) * BLOCKS_AHEAD_PER_CORE;
+        Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>(ahead);
+        ByteBuffer buffer = free.take();
+        try {
+            byte[] block;
+            while ((block = readBlock(input)) != null) {
+                byte[] compressed = block;
+                pending.add(ForkJoinPool.commonPool().submit(CpuTime.charged(() -> inflateBlock(compressed))));
+                if (pending.size() >= ahead) {
+                    buffer = copy(join(pending.poll()), buffer);
+                }
+            }
+            while (!pending.isEmpty()) {
+                buffer = copy(join(pending.poll()), buffer);
+            }
+        } finally {
+            pending.forEach(task -> task.cancel(false));
+        }
+        finish(buffer);
+    }
+
+    private ByteBuffer copy(byte[] data, ByteBuffer buffer) throws InterruptedException {
+        int position = 0;
+        while (position < data.length) {
+            int length = Math.min(buffer.remaining(), data.length - position);
+            buffer.put(data, position, length);
+            position += length;
+            if (!buffer.hasRemaining()) {
+                buffer = handOff(buffer);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Hands a full buffer to the parser and takes the other one, once the parser is done with it.
+     */
+    private ByteBuffer handOff(ByteBuffer buffer) throws InterruptedException {
+        buffer.flip();
+        filled.put(buffer);
+        return free.take();
+    }
+
+    /**
+     * Hands the last buffer to the parser, followed by the end of the file.
+     */
+    private void finish(ByteBuffer buffer) throws InterruptedException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+            filled.put(buffer);
+        }
+        filled.put(END);
+    }
+
+    private static byte[] join(ForkJoinTask<byte[]> task) throws IOException, InterruptedException {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @return The whole next BGZF block, or null at the end of the file.
+     */
+    private static byte[] readBlock(DataInputStream input) throws IOException {
+        byte[] header = new byte[BGZF_HEADER_SIZE];
+        int read = input.read(header);
+        if (read <= 0) {
+            return null;
+        }
+        if (read < header.length) {
+            input.readFully(header, read, header.length - read);
+        }
+        if (!isBgzfHeader(header)) {
+            throw new IOException("Invalid BGZF block header.");
+        }
+
+        int blockSize = (header[16] & 0xFF | (header[17] & 0xFF) << 8) + 1;
+        byte[] block = new byte[blockSize];
+        System.arraycopy(header, 0, block, 0, header.length);
+        input.readFully(block, header.length, blockSize - header.length);
+        return block;
+    }
+
+    /**
+     * Inflates a BGZF block and checks its CRC.
+     */
+    private static byte[] inflateBlock(byte[] block) throws IOException {
+        int trailer = block.length - BGZF_TRAILER_SIZE;
+        int size = littleEndianInt(block, trailer + 4);
+        byte[] data = new byte[size];
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(block, BGZF_HEADER_SIZE, trailer - BGZF_HEADER_SIZE);
+            int inflated = 0;
+            while (inflated < size && !inflater.finished()) {
+                int count = inflater.inflate(data, inflated, size - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != size) {
+                throw new IOException("Corrupt BGZF block.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BGZF block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != littleEndianInt(block, trailer)) {
+            throw new IOException("BGZF block CRC mismatch.");
+        }
+        return data;
+    }
+
+    /**
+     * @return Whether the file starts with a BGZF block header.
+     */
+    static boolean isBgzf(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            byte[] header = new byte[BGZF_HEADER_SIZE];
+            input.readFully(header);
+            return isBgzfHeader(header);
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A gzip header with the only extra field being {@code BC}, which holds the block size.
+     */
+    private static boolean isBgzfHeader(byte[] header) {
+        return (header[0] & 0xFF | (header[1] & 0xFF) << 8) == GZIP_MAGIC
+                && header[2] == 8
+                && (header[3] & FLAG_EXTRA) != 0
+                && header[10] == 6 && header[11] == 0
+                && header[12] == 'B' && header[13] == 'C'
+                && header[14] == 2 && header[15] == 0;
+    }
+
+    private static int littleEndianInt(byte[] bytes, int index) {
+        return bytes[index] & 0xFF | (bytes[index + 1] & 0xFF) << 8 | (bytes[index + 2] & 0xFF) << 16
+                | (bytes[index + 3] & 0xFF) << 24;
+    }
+
+}
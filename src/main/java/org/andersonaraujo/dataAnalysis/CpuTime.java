@@ -0,0 +1,83 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the CPU time of a task on the threads it runs on: the thread that runs it, and the helper threads it hands
+ * work to through {@link #charged(Callable)}, such as the chunks of a big file or the decompression of a compressed
+ * one.
+ *
+ * @author Anderson Araujo.
+ */
+final class CpuTime {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Where the CPU time of the task running on the thread is added, or null if it isn't measured.
+     */
+    private static final ThreadLocal<LongAdder> ACCOUNT = new ThreadLocal<>();
+
+    private CpuTime() {
+    }
+
+    /**
+     * @return Whether the JVM measures the CPU time of a thread.
+     */
+    static boolean isSupported() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Runs a task on the current thread, adding its CPU time, and the one of the work it charged to helper threads,
+     * to an account.
+     *
+     * @param account Where the CPU time is added, in nanoseconds.
+     * @param task    The task.
+     * @return The result of the task.
+     * @throws Exception The exception of the task.
+     */
+    static <T> T measure(LongAdder account, Callable<T> task) throws Exception {
+        LongAdder previous = ACCOUNT.get();
+        ACCOUNT.set(account);
+        long start = THREADS.getCurrentThreadCpuTime();
+        try {
+            return task.call();
+        } finally {
+            account.add(THREADS.getCurrentThreadCpuTime() - start);
+            ACCOUNT.set(previous);
+        }
+    }
+
+    /**
+     * @return The work, charging its CPU time to the task measured on the current thread, if any, wherever it runs.
+     */
+    static <T> Callable<T> charged(Callable<T> work) {
+        LongAdder account = ACCOUNT.get();
+        return account == null ? work : () -> measure(account, work);
+    }
+
+    /**
+     * @return The work, charging its CPU time to the task measured on the current thread, if any, wherever it runs.
+     */
+    static Runnable charged(Runnable work) {
+        LongAdder account = ACCOUNT.get();
+        if (account == null) {
+            return work;
+        }
+        return () -> {
+            LongAdder previous = ACCOUNT.get();
+            ACCOUNT.set(account);
+            long start = THREADS.getCurrentThreadCpuTime();
+            try {
+                work.run();
+            } finally {
+                account.add(THREADS.getCurrentThreadCpuTime() - start);
+                ACCOUNT.set(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,511 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Scans a flat file as raw bytes and reports its records to a {@link DatRecordHandler}.
+ * <p>
+ * The file is memory-mapped in windows and the {@code ç} delimiters (UTF-8 {@code 0xC3 0xA7}) and the item
+ * separators ({@code [}, {@code ,}, {@code -} and {@code ]}) are found in place, so no {@link String} is created per
+ * line. Only the values handed to the handler are decoded.
+ * <p>
+ * The rules are the same ones the previous {@code StringTokenizer}/{@code String#split} implementation had:
+ * <ul>
+ * <li>Lines end with {@code \n}, {@code \r} or {@code \r\n};</li>
+ * <li>Consecutive delimiters are treated as one, and a line without any token is invalid;</li>
+ * <li>Lines of an unknown kind are ignored;</li>
+ * <li>Brackets are ignored inside the item list, and trailing empty items are dropped;</li>
+ * <li>The quantity and the price are the second and third {@code -} separated fields of an item. When the price is
+ * empty but a later field is not, the item is skipped.</li>
+ * </ul>
+ * Any other malformed line raises an {@link IllegalArgumentException}, unless the parser is given a
+ * {@link RejectLog.Chunk}: the line is then reported to it and skipped.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+final class DatFileParser {
+
+    static final byte DELIMITER_LEAD = (byte) 0xC3;
+    static final byte DELIMITER_TRAIL = (byte) 0xA7;
+
+    static final byte LINE_FEED = '\n';
+    static final byte CARRIAGE_RETURN = '\r';
+
+    private static final byte ITEMS_OPEN = '[';
+    private static final byte ITEMS_CLOSE = ']';
+    private static final byte ITEM_SEPARATOR = ',';
+    private static final byte ITEM_FIELD_SEPARATOR = '-';
+
+    /**
+     * Maximum amount of digits that always fit in a {@code long}.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    /**
+     * Default size of each memory-mapped window.
+     */
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final DatRecordHandler handler;
+
+    private final int windowSize;
+
+    /**
+     * Where the malformed lines are reported, or null to fail on them.
+     */
+    private final RejectLog.Chunk rejects;
+
+    /**
+     * How many lines were parsed.
+     */
+    private long lineCount;
+
+    private final SaleRecord sale = new SaleRecord();
+
+    private final Money saleValue = new Money();
+
+    /**
+     * The items of the current sale. The instances are reused from one sale to the next.
+     */
+    private SaleItem[] items = new SaleItem[16];
+    private int itemCount;
+
+    /**
+     * Start and end of the ItemID, ItemQuantity and ItemPrice fields of the current item.
+     */
+    private final int[] fieldBounds = new int[6];
+
+    // Result of parseDecimal
+    private long decimalUnscaled;
+    private int decimalFraction;
+
+    /**
+     * Set when a window ends with {@code \r}, so a {@code \n} at the start of the next one is not read as an
+     * empty line.
+     */
+    private boolean skipLineFeed;
+
+    // Token cursor over the current line
+    private ByteBuffer buffer;
+    private int cursor;
+    private int lineEnd;
+    private long lineOffset;
+    private int tokenStart;
+    private int tokenEnd;
+
+    DatFileParser(DatRecordHandler handler) {
+        this(handler, DEFAULT_WINDOW_SIZE);
+    }
+
+    DatFileParser(DatRecordHandler handler, int windowSize) {
+        this(handler, windowSize, null);
+    }
+
+    /**
+     * @param rejects Where the malformed lines are reported and skipped, or null to fail on them.
+     */
+    DatFileParser(DatRecordHandler handler, RejectLog.Chunk rejects) {
+        this(handler, DEFAULT_WINDOW_SIZE, rejects);
+    }
+
+    DatFileParser(DatRecordHandler handler, int windowSize, RejectLog.Chunk rejects) {
+        this.handler = handler;
+        this.windowSize = windowSize;
+        this.rejects = rejects;
+    }
+
+    /**
+     * @return How many lines were parsed, including the rejected ones.
+     */
+    long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Parses the lines between {@code start} and {@code end} of the file.
+     *
+     * @param channel The file.
+     * @param start   Position of the first byte. It must be the start of a line.
+     * @param end     Position after the last byte. It must be the end of a line or of the file.
+     * @throws IOException If the file can't be read or a line doesn't fit in a window.
+     */
+    void parse(FileChannel channel, long start, long end) throws IOException {
+        skipLineFeed = false;
+        long position = start;
+        while (position < end) {
+            long length = Math.min(windowSize, end - position);
+            boolean last = position + length == end;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            int consumed = parse(window, position, last);
+            if (consumed == 0) {
+                throw new IOException("Line at position " + position + " is longer than " + windowSize + " bytes.");
+            }
+            position += consumed;
+        }
+    }
+
+    /**
+     * Parses the complete lines between the position and the limit of the buffer.
+     *
+     * @param window The bytes to be parsed.
+     * @param offset Position in the file of the first byte of the buffer.
+     * @param last   Whether the buffer holds the end of the input, so the last line doesn't need a line break.
+     * @return The amount of bytes consumed. The remaining bytes belong to a line that continues after the buffer.
+     */
+    int parse(ByteBuffer window, long offset, boolean last) {
+        int start = window.position();
+        int limit = window.limit();
+        int index = start;
+
+        if (skipLineFeed && index < limit) {
+            if (window.get(index) == LINE_FEED) {
+                index++;
+            }
+            skipLineFeed = false;
+        }
+
+        int lineStart = index;
+        while (index < limit) {
+            byte current = window.get(index);
+            if (current != LINE_FEED && current != CARRIAGE_RETURN) {
+                index++;
+                continue;
+            }
+
+            parseLine(window, lineStart, index, offset + lineStart - start);
+            index++;
+            if (current == CARRIAGE_RETURN) {
+                if (index == limit) {
+                    skipLineFeed = true;
+                } else if (window.get(index) == LINE_FEED) {
+                    index++;
+                }
+            }
+            lineStart = index;
+        }
+
+        if (last && lineStart < limit) {
+            parseLine(window, lineStart, limit, offset + lineStart - start);
+            lineStart = limit;
+        }
+        return lineStart - start;
+    }
+
+    private void parseLine(ByteBuffer window, int start, int end, long offset) {
+        this.buffer = window;
+        this.cursor = start;
+        this.lineEnd = end;
+        this.lineOffset = offset;
+        lineCount++;
+
+        if (rejects == null) {
+            parseRecord();
+            return;
+        }
+        // The handler is only called once the line is read, so a rejected line leaves nothing behind
+        try {
+            parseRecord();
+        } catch (NumberFormatException e) {
+            rejects.reject(lineCount, invalidLine("invalid number").getMessage(), window, start, end);
+        } catch (IllegalArgumentException e) {
+            rejects.reject(lineCount, e.getMessage(), window, start, end);
+        }
+    }
+
+    private void parseRecord() {
+        requireToken();
+        if (!isKind('0', '0')) {
+            return;
+        }
+
+        switch (buffer.get(tokenStart + 2)) {
+            case '1':
+                requireToken();
+                handler.onSalesman(decode(buffer, tokenStart, tokenEnd));
+                break;
+
+            case '2':
+                requireToken();
+                handler.onCustomer(decode(buffer, tokenStart, tokenEnd));
+                break;
+
+            case '3':
+                parseSalesLine();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void parseSalesLine() {
+        requireToken();
+        int saleIdStart = tokenStart;
+        int saleIdEnd = tokenEnd;
+
+        requireToken();
+        int itemsStart = tokenStart;
+        int itemsEnd = tokenEnd;
+
+        requireToken();
+        sumItems(itemsStart, itemsEnd);
+
+        sale.set(buffer, saleIdStart, saleIdEnd, tokenStart, tokenEnd, saleValue, items, itemCount, lineOffset);
+        handler.onSale(sale);
+    }
+
+    /**
+     * Reads the item list {@code [ItemID-ItemQuantity-ItemPrice,...]} into {@link #items} and sums the items into
+     * {@link #saleValue}.
+     */
+    private void sumItems(int start, int end) {
+        saleValue.clear();
+        itemCount = 0;
+        boolean hasSeparator = false;
+        boolean pendingEmptyItem = false;
+
+        int itemStart = start;
+        for (int index = start; index <= end; index++) {
+            if (index < end && buffer.get(index) != ITEM_SEPARATOR) {
+                continue;
+            }
+
+            // Empty items are only allowed at the end of the list
+            if (hasContent(itemStart, index)) {
+                if (pendingEmptyItem) {
+                    throw invalidLine("empty item");
+                }
+                addItem(itemStart, index);
+            } else {
+                pendingEmptyItem = true;
+            }
+
+            if (index < end) {
+                hasSeparator = true;
+            }
+            itemStart = index + 1;
+        }
+
+        if (!hasSeparator && pendingEmptyItem) {
+            throw invalidLine("empty item list");
+        }
+    }
+
+    /**
+     * Reads the item and adds its quantity times its price to the sale value. Items with no price but with further
+     * fields are skipped.
+     */
+    private void addItem(int start, int end) {
+        int field = 0;
+        int[] bounds = fieldBounds;
+        Arrays.fill(bounds, -1);
+        boolean hasLaterField = false;
+
+        for (int index = start; index < end; index++) {
+            byte current = buffer.get(index);
+            if (current == ITEMS_OPEN || current == ITEMS_CLOSE) {
+                continue;
+            }
+
+            if (current == ITEM_FIELD_SEPARATOR) {
+                field++;
+            } else if (field <= 2) {
+                if (bounds[field * 2] < 0) {
+                    bounds[field * 2] = index;
+                }
+                bounds[field * 2 + 1] = index + 1;
+            } else {
+                hasLaterField = true;
+            }
+        }
+
+        int priceStart = bounds[4];
+        int priceEnd = bounds[5];
+        if (priceStart < 0) {
+            if (!hasLaterField) {
+                throw invalidLine("item without price");
+            }
+            return;
+        }
+
+        int quantityStart = bounds[2];
+        int quantityEnd = bounds[3];
+        if (quantityStart < 0) {
+            throw invalidLine("item without quantity");
+        }
+
+        SaleItem item = nextItem();
+        item.set(buffer, bounds[0], bounds[1]);
+        Money quantity = item.getQuantity();
+        Money revenue = item.getRevenue();
+
+        if (parseDecimal(quantityStart, quantityEnd)) {
+            long quantityUnscaled = decimalUnscaled;
+            int quantityFraction = decimalFraction;
+            quantity.add(quantityUnscaled, quantityFraction);
+
+            if (parseDecimal(priceStart, priceEnd)) {
+                revenue.addProduct(decimalUnscaled, decimalFraction, quantityUnscaled, quantityFraction);
+            } else {
+                revenue.add(toBigDecimal(priceStart, priceEnd)
+                        .multiply(BigDecimal.valueOf(quantityUnscaled, quantityFraction)));
+            }
+        } else {
+            BigDecimal quantityValue = toBigDecimal(quantityStart, quantityEnd);
+            quantity.add(quantityValue);
+            revenue.add(toBigDecimal(priceStart, priceEnd).multiply(quantityValue));
+        }
+
+        saleValue.add(revenue);
+    }
+
+    /**
+     * @return A cleared item of the current sale, reusing the ones of the previous sales.
+     */
+    private SaleItem nextItem() {
+        if (itemCount == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+        }
+        SaleItem item = items[itemCount];
+        if (item == null) {
+            item = new SaleItem();
+            items[itemCount] = item;
+        }
+        itemCount++;
+        item.getQuantity().clear();
+        item.getRevenue().clear();
+        return item;
+    }
+
+    /**
+     * Parses a plain decimal number straight from the bytes into {@link #decimalUnscaled} and
+     * {@link #decimalFraction}.
+     *
+     * @return False if the number is not a plain decimal that fits in a {@code long}, so it must be left to
+     * {@link BigDecimal}.
+     */
+    private boolean parseDecimal(int start, int end) {
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+
+        for (int index = start; index < end; index++) {
+            byte current = buffer.get(index);
+            if (current == ITEMS_OPEN || current == ITEMS_CLOSE) {
+                continue;
+            }
+
+            if (current >= '0' && current <= '9' && digits < MAX_LONG_DIGITS) {
+                unscaled = unscaled * 10 + (current - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (current == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return false;
+            }
+        }
+
+        decimalUnscaled = unscaled;
+        decimalFraction = Math.max(scale, 0);
+        return digits > 0;
+    }
+
+    private BigDecimal toBigDecimal(int start, int end) {
+        return new BigDecimal(decodeWithoutBrackets(start, end));
+    }
+
+    private boolean hasContent(int start, int end) {
+        for (int index = start; index < end; index++) {
+            byte current = buffer.get(index);
+            if (current != ITEMS_OPEN && current != ITEMS_CLOSE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String decodeWithoutBrackets(int start, int end) {
+        StringBuilder builder = new StringBuilder(decode(buffer, start, end));
+        for (int index = builder.length() - 1; index >= 0; index--) {
+            char current = builder.charAt(index);
+            if (current == ITEMS_OPEN || current == ITEMS_CLOSE) {
+                builder.deleteCharAt(index);
+            }
+        }
+        return builder.toString();
+    }
+
+    private boolean isKind(char first, char second) {
+        return tokenEnd - tokenStart == 3
+                && buffer.get(tokenStart) == first
+                && buffer.get(tokenStart + 1) == second;
+    }
+
+    private void requireToken() {
+        if (!nextToken()) {
+            throw invalidLine("missing field");
+        }
+    }
+
+    /**
+     * Moves the cursor to the next token of the line, skipping consecutive delimiters.
+     *
+     * @return False if the line has no more tokens.
+     */
+    private boolean nextToken() {
+        int index = cursor;
+        while (isDelimiter(index)) {
+            index += 2;
+        }
+        if (index >= lineEnd) {
+            cursor = lineEnd;
+            return false;
+        }
+
+        tokenStart = index;
+        while (index < lineEnd && !isDelimiter(index)) {
+            index++;
+        }
+        tokenEnd = index;
+        cursor = index;
+        return true;
+    }
+
+    private boolean isDelimiter(int index) {
+        return index + 1 < lineEnd
+                && buffer.get(index) == DELIMITER_LEAD
+                && buffer.get(index + 1) == DELIMITER_TRAIL;
+    }
+
+    private IllegalArgumentException invalidLine(String reason) {
+        return new IllegalArgumentException("Invalid line at position " + lineOffset + ": " + reason + ".");
+    }
+
+    /**
+     * Decodes part of a buffer as UTF-8.
+     */
+    static String decode(ByteBuffer buffer, int start, int end) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes = new byte[end - start];
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = buffer.get(start + index);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
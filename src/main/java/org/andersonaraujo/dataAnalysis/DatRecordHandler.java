@@ -0,0 +1,34 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * Receives the records found by {@link DatFileParser} while it scans a flat file.
+ * <p>
+ * The parser only creates objects for the values a handler asks for, so implementations should keep the
+ * callbacks cheap and must not hold a reference to the {@link SaleRecord} after the call returns.
+ *
+ * @author Anderson Araujo.
+ */
+public interface DatRecordHandler {
+
+    /**
+     * Called for every salesman line ({@code 001}).
+     *
+     * @param cpf The salesman's CPF.
+     */
+    void onSalesman(String cpf);
+
+    /**
+     * Called for every customer line ({@code 002}).
+     *
+     * @param cnpj The customer's CNPJ.
+     */
+    void onCustomer(String cnpj);
+
+    /**
+     * Called for every sales line ({@code 003}).
+     *
+     * @param sale The sale. The instance is reused by the parser for the next sales line.
+     */
+    void onSale(SaleRecord sale);
+
+}
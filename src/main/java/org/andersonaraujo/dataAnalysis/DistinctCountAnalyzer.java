@@ -0,0 +1,87 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * Counts the distinct clients ({@code 001}) by their CNPJs, or the distinct salesmen ({@code 002}) by their CPFs.
+ * <p>
+ * As the requirement is not clear whether the records will be sorted or can be repeated, the distinct documents are
+ * counted rather than the lines.
+ *
+ * @author Anderson Araujo.
+ */
+final class DistinctCountAnalyzer implements Analyzer<DistinctCountAnalyzer.State> {
+
+    private final boolean clients;
+
+    private final DistinctCountMode mode;
+
+    private DistinctCountAnalyzer(boolean clients, DistinctCountMode mode) {
+        this.clients = clients;
+        this.mode = mode;
+    }
+
+    /**
+     * @return The analyzer of the amount of clients.
+     */
+    static DistinctCountAnalyzer clients(DistinctCountMode mode) {
+        return new DistinctCountAnalyzer(true, mode);
+    }
+
+    /**
+     * @return The analyzer of the amount of salesmen.
+     */
+    static DistinctCountAnalyzer salesmen(DistinctCountMode mode) {
+        return new DistinctCountAnalyzer(false, mode);
+    }
+
+    @Override
+    public State newState() {
+        return new State(clients, mode.create());
+    }
+
+    @Override
+    public void appendOutput(State state, StringBuilder output) {
+        if (clients) {
+            FlatFileProcessor.appendLine(output, FlatFileProcessor.OUTPUT_TYPE_AMOUNT_CLIENT,
+                    FlatFileProcessor.OUTPUT_AMOUNT_CLIENTS, state.counter.size());
+        } else {
+            FlatFileProcessor.appendLine(output, FlatFileProcessor.OUTPUT_TYPE_AMOUNT_SALESMAN,
+                    FlatFileProcessor.OUTPUT_AMOUNT_SALESMAN, state.counter.size());
+        }
+    }
+
+    static final class State implements AnalyzerState<State> {
+
+        private final boolean clients;
+
+        private final DistinctCounter counter;
+
+        private State(boolean clients, DistinctCounter counter) {
+            this.clients = clients;
+            this.counter = counter;
+        }
+
+        @Override
+        public void onSalesman(String cpf) {
+            if (!clients) {
+                counter.add(cpf);
+            }
+        }
+
+        @Override
+        public void onCustomer(String cnpj) {
+            if (clients) {
+                counter.add(cnpj);
+            }
+        }
+
+        @Override
+        public void merge(State next) {
+            counter.merge(next.counter);
+        }
+
+        DistinctCounter getCounter() {
+            return counter;
+        }
+    }
+
+}
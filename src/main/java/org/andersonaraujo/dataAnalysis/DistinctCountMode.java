@@ -0,0 +1,91 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * How the distinct CPFs and CNPJs are counted.
+ *
+ * @author Anderson Araujo.
+ */
+enum DistinctCountMode {
+
+    /**
+     * Exact counts, keeping every document as a packed {@code long}. See {@link DocumentSet}.
+     */
+    EXACT {
+        @Override
+        DistinctCounter create() {
+            return new DocumentSet();
+        }
+    },
+
+    /**
+     * Estimated counts with a fixed amount of memory. See {@link HyperLogLog}.
+     */
+    APPROXIMATE {
+        @Override
+        DistinctCounter create() {
+            return new HyperLogLog(
+                    Settings.getInt(Settings.HYPER_LOG_LOG_PRECISION, Settings.DEFAULT_HYPER_LOG_LOG_PRECISION));
+        }
+    };
+
+    abstract DistinctCounter create();
+
+    /**
+     * @return The mode of the {@link Settings}.
+     */
+    static DistinctCountMode configured() {
+        return of(Settings.getString(Settings.DISTINCT_COUNT, Settings.DEFAULT_DISTINCT_COUNT));
+    }
+
+    /**
+     * @param name The mode name, case insensitive.
+     * @return The mode.
+     * @throws IllegalArgumentException If there is no mode with the name.
+     */
+    static DistinctCountMode of(String name) {
+        for (DistinctCountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown distinct count mode '" + name + "'.");
+    }
+
+    /**
+     * Writes a counter along with its mode.
+     */
+    static void write(DataOutputStream output, DistinctCounter counter) throws IOException {
+        output.writeUTF(counter.getMode().name());
+        counter.write(output);
+    }
+
+    /**
+     * Adds a counter written by {@link #write(DataOutputStream, DistinctCounter)} into another one. Exact counts can
+     * be added to approximate ones, so the mode can be changed from exact to approximate between runs.
+     *
+     * @throws IOException If the counter can't be read, or it is approximate and the target is exact.
+     */
+    static void read(DataInputStream input, DistinctCounter target) throws IOException {
+        DistinctCountMode mode;
+        try {
+            mode = of(input.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        if (mode == target.getMode()) {
+            target.read(input);
+        } else if (mode == EXACT) {
+            DocumentSet documents = new DocumentSet();
+            documents.read(input);
+            documents.forEach(target::add);
+        } else {
+            throw new IOException("Approximate counts can't be turned into exact counts.");
+        }
+    }
+
+}
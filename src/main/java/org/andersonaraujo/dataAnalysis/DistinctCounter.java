@@ -0,0 +1,40 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Counts the distinct CPFs or CNPJs of a file.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+interface DistinctCounter {
+
+    void add(String value);
+
+    /**
+     * Adds all the values of another counter of the same mode into this one.
+     */
+    void merge(DistinctCounter other);
+
+    /**
+     * @return How many distinct values were added. In the approximate mode this is an estimate.
+     */
+    int size();
+
+    DistinctCountMode getMode();
+
+    /**
+     * Writes the state of the counter, to be added back with {@link #read(DataInputStream)}.
+     */
+    void write(DataOutputStream output) throws IOException;
+
+    /**
+     * Adds the state written by {@link #write(DataOutputStream)} of a counter of the same mode.
+     */
+    void read(DataInputStream input) throws IOException;
+
+}
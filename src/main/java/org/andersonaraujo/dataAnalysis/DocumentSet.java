@@ -0,0 +1,197 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An exact set of CPFs or CNPJs.
+ * <p>
+ * Documents of up to {@value #MAX_PACKED_DIGITS} digits are packed in a {@code long}, with the number of digits in the
+ * high bits so leading zeros are kept, and stored in an open-addressing table of {@code long}s. That takes 16 bytes
+ * per document at most, against around a hundred for a {@link String} in a {@link HashSet}. Any other value, like a
+ * formatted document, is kept aside as a {@link String}.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+final class DocumentSet implements DistinctCounter {
+
+    private static final long EMPTY = 0;
+
+    private static final int MAX_PACKED_DIGITS = 17;
+
+    /**
+     * 17 digits take 57 bits, and the number of digits goes above them.
+     */
+    private static final int LENGTH_SHIFT = 57;
+
+    private static final long NUMBER_MASK = (1L << LENGTH_SHIFT) - 1;
+
+    private long[] keys = new long[16];
+
+    private int size;
+
+    /**
+     * The values that can't be packed. Only allocated when needed.
+     */
+    private Set<String> others;
+
+    @Override
+    public void add(String value) {
+        long key = pack(value);
+        if (key != EMPTY) {
+            addKey(key);
+            return;
+        }
+        if (others == null) {
+            others = new HashSet<>();
+        }
+        others.add(value);
+    }
+
+    /**
+     * Adds a document already packed by {@link #pack(String)}.
+     */
+    void addPacked(long key) {
+        addKey(key);
+    }
+
+    @Override
+    public void merge(DistinctCounter other) {
+        DocumentSet documents = (DocumentSet) other;
+        for (long key : documents.keys) {
+            if (key != EMPTY) {
+                addKey(key);
+            }
+        }
+        if (documents.others != null) {
+            documents.others.forEach(this::add);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size + (others == null ? 0 : others.size());
+    }
+
+    @Override
+    public DistinctCountMode getMode() {
+        return DistinctCountMode.EXACT;
+    }
+
+    /**
+     * Calls the action for each document.
+     */
+    void forEach(Consumer<String> action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(unpack(key));
+            }
+        }
+        if (others != null) {
+            others.forEach(action);
+        }
+    }
+
+    @Override
+    public void write(DataOutputStream output) throws IOException {
+        output.writeInt(size);
+        for (long key : keys) {
+            if (key != EMPTY) {
+                output.writeLong(key);
+            }
+        }
+
+        output.writeInt(others == null ? 0 : others.size());
+        if (others != null) {
+            for (String value : others) {
+                output.writeUTF(value);
+            }
+        }
+    }
+
+    @Override
+    public void read(DataInputStream input) throws IOException {
+        int amount = input.readInt();
+        for (int i = 0; i < amount; i++) {
+            addKey(input.readLong());
+        }
+        amount = input.readInt();
+        for (int i = 0; i < amount; i++) {
+            add(input.readUTF());
+        }
+    }
+
+    /**
+     * @return The packed document, or {@link #EMPTY} if the value is not made of 1 to {@value #MAX_PACKED_DIGITS}
+     * digits.
+     */
+    static long pack(String value) {
+        int length = value.length();
+        if (length == 0 || length > MAX_PACKED_DIGITS) {
+            return EMPTY;
+        }
+
+        long number = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return (long) length << LENGTH_SHIFT | number;
+    }
+
+    static String unpack(long key) {
+        int length = (int) (key >>> LENGTH_SHIFT);
+        String digits = Long.toString(key & NUMBER_MASK);
+        StringBuilder value = new StringBuilder(length);
+        for (int i = digits.length(); i < length; i++) {
+            value.append('0');
+        }
+        return value.append(digits).toString();
+    }
+
+    private void addKey(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return;
+            }
+            if (current == EMPTY) {
+                if (size + 1 > keys.length / 2) {
+                    grow();
+                    addKey(key);
+                    return;
+                }
+                keys[slot] = key;
+                size++;
+                return;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        size = 0;
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                addKey(key);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The threads the files are processed on.
+ * <p>
+ * Whatever the strategy, no more files than the concurrency limit are processed at the same time, so the open files
+ * stay bounded.
+ *
+ * @author Anderson Araujo.
+ */
+enum ExecutorStrategy {
+
+    /**
+     * A fixed pool of {@code poolSize} threads.
+     */
+    FIXED {
+        @Override
+        int concurrency(int poolSize, int limit) {
+            return Math.min(poolSize, limit);
+        }
+
+        @Override
+        ExecutorService newExecutor(int concurrency) {
+            return Executors.newFixedThreadPool(concurrency);
+        }
+    },
+
+    /**
+     * A pool of one thread per core, for when parsing is the bottleneck.
+     */
+    CPU {
+        @Override
+        int concurrency(int poolSize, int limit) {
+            return Math.min(Runtime.getRuntime().availableProcessors(), limit);
+        }
+
+        @Override
+        ExecutorService newExecutor(int concurrency) {
+            return Executors.newFixedThreadPool(concurrency);
+        }
+    },
+
+    /**
+     * Starts with a thread per core, then grows or shrinks the workers within bounds from the CPU time of the files
+     * and the queue depth. See {@link AdaptiveConcurrency}.
+     */
+    ADAPTIVE {
+        @Override
+        int concurrency(int poolSize, int limit) {
+            return Math.min(Runtime.getRuntime().availableProcessors(), limit);
+        }
+
+        @Override
+        ExecutorService newExecutor(int concurrency) {
+            // Threads are only started while the queue lets files run, and the idle ones stop after a minute
+            return Executors.newCachedThreadPool();
+        }
+    },
+
+    /**
+     * A virtual thread per file, for when reading the files is the bottleneck, like on network storage. Up to the
+     * concurrency limit files are processed at the same time.
+     * <p>
+     * Virtual threads need Java 21. On older versions a new platform thread is used per file, which are reused while
+     * the files keep coming.
+     */
+    VIRTUAL {
+        @Override
+        int concurrency(int poolSize, int limit) {
+            return limit;
+        }
+
+        @Override
+        ExecutorService newExecutor(int concurrency) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Virtual threads need Java 21, platform threads will be used instead.");
+                return Executors.newCachedThreadPool();
+            }
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorStrategy.class);
+
+    /**
+     * @param poolSize The configured pool size.
+     * @param limit    The configured concurrency limit.
+     * @return How many files are processed at the same time.
+     */
+    abstract int concurrency(int poolSize, int limit);
+
+    /**
+     * @param concurrency How many files are processed at the same time.
+     * @return The executor the files are processed on.
+     */
+    abstract ExecutorService newExecutor(int concurrency);
+
+    /**
+     * @param name The strategy name, case insensitive.
+     * @return The strategy.
+     * @throws IllegalArgumentException If there is no strategy with the name.
+     */
+    static ExecutorStrategy of(String name) {
+        for (ExecutorStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name.trim())) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown executor strategy '" + name + "'.");
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a flat file in chunks that start and end on line breaks, so each chunk can be parsed on its own.
+ *
+ * @author Anderson Araujo.
+ */
+final class FileChunks {
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private FileChunks() {
+    }
+
+    /**
+     * Computes the chunk boundaries of a file.
+     *
+     * @param channel   The file.
+     * @param chunkSize The approximated size of each chunk.
+     * @return The positions where each chunk starts, followed by the size of the file. A chunk {@code i} goes from
+     * {@code boundaries[i]} to {@code boundaries[i + 1]}.
+     * @throws IOException If the file can't be read.
+     */
+    static long[] split(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long previous = 0;
+        while (size - previous > chunkSize) {
+            long boundary = nextLineStart(channel, previous + chunkSize, size, buffer);
+            if (boundary >= size) {
+                break;
+            }
+            boundaries.add(boundary);
+            previous = boundary;
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return The position after the first line break found from {@code position}, or {@code size} if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer buffer)
+            throws IOException {
+        boolean afterCarriageReturn = false;
+        long current = position;
+
+        while (current < size) {
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++) {
+                byte value = buffer.get(i);
+                if (afterCarriageReturn) {
+                    // A \r\n line break belongs to the chunk of its line
+                    return value == DatFileParser.LINE_FEED ? current + i + 1 : current + i;
+                }
+                if (value == DatFileParser.LINE_FEED) {
+                    return current + i + 1;
+                }
+                if (value == DatFileParser.CARRIAGE_RETURN) {
+                    afterCarriageReturn = true;
+                }
+            }
+            current += read;
+        }
+        return size;
+    }
+
+}
@@ -5,12 +5,24 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.*;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A {@link Callable} class to process a flat file asynchronously.
@@ -31,18 +43,22 @@ public class FlatFileProcessor implements Callable<Boolean> {
 
     private static final String LINE_BREAK = "\n";
 
-    private static final String INPUT_TYPE_SALESMAN = "001";
-    private static final String INPUT_TYPE_CUSTOMER = "002";
-    private static final String INPUT_TYPE_SALES = "003";
-
-    private static final String OUTPUT_TYPE_AMOUNT_CLIENT = "001";
-    private static final String OUTPUT_TYPE_AMOUNT_SALESMAN = "002";
-    private static final String OUTPUT_TYPE_EXPENSIVE_SALE = "003";
-    private static final String OUTPUT_TYPE_WORST_SALESMAN = "004";
-    private static final String OUTPUT_AMOUNT_CLIENTS = "AmountClients";
-    private static final String OUTPUT_AMOUNT_SALESMAN = "AmountSalesman";
-    private static final String OUTPUT_MOST_EXPENSIVE_SALE = "MostExpensiveSale";
-    private static final String OUTPUT_WORST_SALESMAN = "WorstSalesman";
+    static final String OUTPUT_TYPE_AMOUNT_CLIENT = "001";
+    static final String OUTPUT_TYPE_AMOUNT_SALESMAN = "002";
+    static final String OUTPUT_TYPE_EXPENSIVE_SALE = "003";
+    static final String OUTPUT_TYPE_WORST_SALESMAN = "004";
+    static final String OUTPUT_AMOUNT_CLIENTS = "AmountClients";
+    static final String OUTPUT_AMOUNT_SALESMAN = "AmountSalesman";
+    static final String OUTPUT_MOST_EXPENSIVE_SALE = "MostExpensiveSale";
+    static final String OUTPUT_WORST_SALESMAN = "WorstSalesman";
+    private static final String OUTPUT_TYPE_ITEM_SALES = "005";
+    private static final String OUTPUT_ITEM_SALES = "ItemSales";
+    private static final String OUTPUT_TYPE_WORST_SALESMEN = "006";
+    private static final String OUTPUT_TYPE_BEST_SALESMEN = "007";
+    private static final String OUTPUT_WORST_SALESMEN = "WorstSalesmen";
+    private static final String OUTPUT_BEST_SALESMEN = "BestSalesmen";
+    private static final String OUTPUT_TYPE_REJECTED_LINES = "008";
+    private static final String OUTPUT_REJECTED_LINES = "RejectedLines";
 
     /**
      * The name to the file.
@@ -60,44 +76,145 @@ public class FlatFileProcessor implements Callable<Boolean> {
     private final String outputDirectory;
 
     /**
-     * Holds the Client's CNPJs.
-     * As the requirement is not clear whether the client records will be sorted or can be repeated,
-     * this Set will hold all unique CNPJs and be used to define the amount of clients.
+     * Files bigger than this amount of bytes are split in chunks and parsed in parallel.
      */
-    private final Set<String> clientsCnpjs = new HashSet<>();
+    private final long splitThreshold;
 
     /**
-     * Holds the Salesman's CPFs.
-     * <p>
-     * As the requirement is not clear whether the salesman records will be sorted or can be repeated,
-     * this Set will hold all unique CPFs and be used to define the amount of salesman.
+     * Whether the per-item records are part of the output.
      */
-    private final Set<String> salesmanCpfs = new HashSet<>();
+    private final boolean itemReport;
 
     /**
-     * Holds the Salesman's name as key and the sum of sales.
-     * <p>
-     * As the requirement is not clear whether the sales records will be sorted,
-     * this map will be used to hold all Salesman's information to define the worst salesman
-     * (the one that the sum of sales is lower).
+     * How many salesmen are listed in the worst and best salesmen records. Zero leaves them out.
+     */
+    private final int salesmanRanking = Settings.getInt(Settings.SALESMAN_RANKING, 0);
+
+    /**
+     * Whether the file is also written as a columnar file, next to its output.
+     */
+    private final boolean columnarOutput = Settings.getBoolean(Settings.COLUMNAR_OUTPUT);
+
+    /**
+     * Whether malformed lines are skipped and written to a {@code .rejects} file, instead of failing the file.
+     */
+    private final boolean lenientParsing = Settings.getBoolean(Settings.LENIENT_PARSING);
+
+    /**
+     * The format the output is written in.
+     */
+    private final ReportFormat reportFormat = ReportFormat.configured();
+
+    /**
+     * Receives the lines skipped by a lenient parse, or null.
+     */
+    private RejectLog rejectLog;
+
+    /**
+     * Receives the records to be written as a columnar file, or null.
+     */
+    private ColumnarFile.Builder columnar;
+
+    /**
+     * Holds the numbers computed from the file.
+     */
+    private SalesSummary summary;
+
+    /**
+     * Where the numbers of the file are merged after it is processed, or null.
      */
-    private final Map<String, BigDecimal> salesmanSales = new HashMap<>();
+    private final GlobalSummary globalSummary;
 
     /**
-     * Holds the value of the most expensive sale.
+     * The outputs of the files already processed, or null.
      */
-    private BigDecimal mostExpensiveSaleValue = BigDecimal.ZERO;
+    private final ResultCache resultCache;
 
     /**
-     * Holds the ID of the most expensive sale.
+     * Writes the output on its own thread, or null to write it on the worker thread.
      */
-    private String mostExpensiveSaleId;
+    private final OutputWriter outputWriter;
+
+    /**
+     * Serves the report of the file once written, or null.
+     */
+    private final ReportServer reportServer;
+
+    /**
+     * Completed once the output is published under its final name.
+     */
+    private volatile CompletableFuture<Void> published = CompletableFuture.completedFuture(null);
+
+    private final Metrics metrics = Metrics.INSTANCE;
+
+    /**
+     * Nanoseconds spent merging the summaries of the chunks, told apart from the parse time.
+     */
+    private long aggregateNanos;
 
 
     public FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory) {
+        this(fileName, inputDirectory, outputDirectory, null);
+    }
+
+    /**
+     * @param globalSummary Where the numbers of the file are merged after it is processed.
+     */
+    public FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory,
+                             GlobalSummary globalSummary) {
+        this(fileName, inputDirectory, outputDirectory, globalSummary, null);
+    }
+
+    /**
+     * @param globalSummary Where the numbers of the file are merged after it is processed.
+     * @param resultCache   Where the output of a file with the same content is looked up before the file is parsed.
+     */
+    FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory, GlobalSummary globalSummary,
+                      ResultCache resultCache) {
+        this(fileName, inputDirectory, outputDirectory, globalSummary, resultCache, null);
+    }
+
+    /**
+     * @param globalSummary Where the numbers of the file are merged after it is processed.
+     * @param resultCache   Where the output of a file with the same content is looked up before the file is parsed.
+     * @param outputWriter  Writes the output on its own thread.
+     */
+    FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory, GlobalSummary globalSummary,
+                      ResultCache resultCache, OutputWriter outputWriter) {
+        this(fileName, inputDirectory, outputDirectory, globalSummary, resultCache, outputWriter, null);
+    }
+
+    /**
+     * @param globalSummary Where the numbers of the file are merged after it is processed.
+     * @param resultCache   Where the output of a file with the same content is looked up before the file is parsed.
+     * @param outputWriter  Writes the output on its own thread.
+     * @param reportServer  Serves the report of the file.
+     */
+    FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory, GlobalSummary globalSummary,
+                      ResultCache resultCache, OutputWriter outputWriter, ReportServer reportServer) {
+        this(fileName, inputDirectory, outputDirectory,
+                Settings.getLong(Settings.SPLIT_THRESHOLD, Settings.DEFAULT_SPLIT_THRESHOLD),
+                Settings.getBoolean(Settings.ITEM_REPORT), globalSummary, resultCache, outputWriter, reportServer);
+    }
+
+    FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory, long splitThreshold,
+                      boolean itemReport, GlobalSummary globalSummary) {
+        this(fileName, inputDirectory, outputDirectory, splitThreshold, itemReport, globalSummary, null, null, null);
+    }
+
+    FlatFileProcessor(String fileName, String inputDirectory, String outputDirectory, long splitThreshold,
+                      boolean itemReport, GlobalSummary globalSummary, ResultCache resultCache,
+                      OutputWriter outputWriter, ReportServer reportServer) {
         this.fileName = fileName;
         this.inputDirectory = inputDirectory;
         this.outputDirectory = outputDirectory;
+        this.splitThreshold = splitThreshold;
+        this.itemReport = itemReport;
+        this.summary = new SalesSummary(itemReport);
+        this.globalSummary = globalSummary;
+        this.resultCache = resultCache;
+        this.outputWriter = outputWriter;
+        this.reportServer = reportServer;
         logger.debug("New thread execution created for file '{}'.", fileName);
     }
 
@@ -109,65 +226,342 @@ public class FlatFileProcessor implements Callable<Boolean> {
     /**
      * Process the file (read input and write output).
      *
-     * @return True if the file has been processed correctly. False otherwise.
+     * @return True if the file has been processed correctly and its output is published. False otherwise.
      */
     Boolean processFile() {
         if (!isValid()) {
+            metrics.fileFailed(false);
             return Boolean.FALSE;
         }
         logger.debug("Starting to process file '{}'.", fileName);
 
-        // Reads the file line by line
-        try (Stream<String> stream = Files.lines(Paths.get(fullPathToInputFile()))) {
-            stream
-                    .forEach(this::processLine);
+        if (ColumnarFile.isColumnar(fileName)) {
+            return processColumnarFile();
+        }
+
+        ResultCache.Key key = null;
+        if (resultCache != null) {
+            try {
+                key = resultCache.key(Paths.get(fullPathToInputFile()));
+                String output = resultCache.get(key);
+                if (output != null) {
+                    return writeCachedOutput(key, output);
+                }
+                metrics.cacheMiss();
+            } catch (IOException e) {
+                logger.warn("File '{}' could not be looked up in the result cache: {}", fileName, e.getMessage());
+            }
+        }
+
+        // Scans the file straight from its bytes
+        try (FileChannel channel = FileChannel.open(Paths.get(fullPathToInputFile()), StandardOpenOption.READ)) {
+            long start = System.nanoTime();
+            if (columnarOutput) {
+                columnar = new ColumnarFile.Builder();
+            }
+            if (lenientParsing) {
+                rejectLog = new RejectLog(rejectFile(), Settings.getLong(Settings.MAX_REJECTS,
+                        Settings.DEFAULT_MAX_REJECTS));
+            }
+            if (CompressedInput.isCompressed(fileName)) {
+                CompressedInput.parse(Paths.get(fullPathToInputFile()),
+                        new DatFileParser(handler(summary, columnar), rejects(0)));
+            } else if (channel.size() > splitThreshold) {
+                summary = parseInChunks(channel);
+            } else {
+                new DatFileParser(handler(summary, columnar), rejects(0)).parse(channel, 0, channel.size());
+            }
+            long parsed = System.nanoTime();
 
-            writeOutput();
+            String output = generateOutput();
+            writeOutput(output);
+            if (columnar != null) {
+                writeColumnarFile();
+            }
+
+            // The rejected lines would not be written again for a file with the same content
+            ResultCache.Key cacheKey = rejectLog == null || rejectLog.getCount() == 0 ? key : null;
+            SalesSummary processed = summary;
+            afterPublished(() -> {
+                if (cacheKey != null) {
+                    resultCache.put(cacheKey, output);
+                }
+                if (globalSummary != null) {
+                    globalSummary.merge(processed, Paths.get(fullPathToInputFile()));
+                }
+            });
+            awaitPublished();
+            long written = System.nanoTime();
+
+            metrics.record(Metrics.Stage.PARSE, parsed - start - aggregateNanos);
+            metrics.record(Metrics.Stage.WRITE, written - parsed);
+            metrics.record(Metrics.Stage.AGGREGATE, aggregateNanos + System.nanoTime() - written);
+            metrics.fileProcessed(channel.size());
 
             logger.debug("Finished to process file '{}'.", fileName);
             return Boolean.TRUE;
 
         } catch (Exception e) {
+            metrics.fileFailed(e instanceof IllegalArgumentException);
             logger.error("Error occurred while processing the file '{}': {}", fileName, e.getMessage());
             return Boolean.FALSE;
+        } finally {
+            closeRejectLog();
         }
     }
 
-    void processLine(String line) {
-        StringTokenizer stringTokenizer = new StringTokenizer(line, DELIMITER);
-        String kind = stringTokenizer.nextToken();
+    /**
+     * @return Where the parser of a chunk of the file reports the malformed lines, or null to fail on them.
+     */
+    private RejectLog.Chunk rejects(int chunk) {
+        return rejectLog == null ? null : rejectLog.chunk(chunk);
+    }
+
+    /**
+     * @return The {@code .rejects} file of the input, in the error directory next to the output directory.
+     */
+    private Path rejectFile() {
+        return Paths.get(outputDirectory).toAbsolutePath().resolveSibling(RejectLog.DIRECTORY_NAME)
+                .resolve(fileName + RejectLog.FILE_EXTENSION);
+    }
+
+    /**
+     * Waits for the rejected lines to be written, even when the file failed.
+     */
+    private void closeRejectLog() {
+        if (rejectLog == null) {
+            return;
+        }
+        try {
+            rejectLog.close();
+        } catch (IOException e) {
+            logger.warn("The rejected lines of file '{}' could not be written: {}", fileName, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (rejectLog.getCount() > 0) {
+            metrics.linesRejected(rejectLog.getCount());
+            logger.warn("{} lines of file '{}' were rejected.", rejectLog.getCount(), fileName);
+        }
+    }
 
-        switch (kind) {
-            case INPUT_TYPE_SALESMAN:
-                processSalesmanLine(stringTokenizer);
-                break;
+    /**
+     * Computes the output of a columnar file from its columns, instead of parsing a flat file.
+     *
+     * @return True if the file has been processed correctly. False otherwise.
+     */
+    private Boolean processColumnarFile() {
+        try {
+            long start = System.nanoTime();
+            ColumnarFile.Summary columnarSummary = ColumnarFile.read(Paths.get(fullPathToInputFile()),
+                    DistinctCountMode.configured());
+            long parsed = System.nanoTime();
+
+            writeOutput(columnarSummary.generateOutput());
+            if (globalSummary != null) {
+                afterPublished(() -> globalSummary.merge(columnarSummary, Paths.get(fullPathToInputFile())));
+            }
+            awaitPublished();
+            long written = System.nanoTime();
 
-            case INPUT_TYPE_CUSTOMER:
-                processCustomerLine(stringTokenizer);
-                break;
+            metrics.record(Metrics.Stage.PARSE, parsed - start);
+            metrics.record(Metrics.Stage.WRITE, written - parsed);
+            metrics.record(Metrics.Stage.AGGREGATE, System.nanoTime() - written);
+            metrics.fileProcessed(Files.size(Paths.get(fullPathToInputFile())));
+            return Boolean.TRUE;
 
-            case INPUT_TYPE_SALES:
-                processSalesLine(stringTokenizer);
-                break;
+        } catch (IOException e) {
+            metrics.fileFailed(false);
+            logger.error("Error occurred while processing the file '{}': {}", fileName, e.getMessage());
+            return Boolean.FALSE;
+        }
+    }
 
-            default:
-                break;
+    /**
+     * Writes the columnar file next to the output. A file that can't be converted is still processed.
+     */
+    private void writeColumnarFile() {
+        if (columnar.getUnsupported() != null) {
+            logger.warn("File '{}' can't be converted to a columnar file: {}.", fileName, columnar.getUnsupported());
+            return;
+        }
+        try {
+            columnar.write(Paths.get(outputDirectory + baseName() + ColumnarFile.FILE_EXTENSION));
+        } catch (IOException e) {
+            logger.warn("Error while writing the columnar file of '{}': {}", fileName, e.getMessage());
         }
     }
 
+    /**
+     * @return The handler of the records, which also hands them to the columnar file if there is one.
+     */
+    private static DatRecordHandler handler(SalesSummary summary, ColumnarFile.Builder columnar) {
+        return columnar == null ? summary : new Tee(summary, columnar);
+    }
+
+    /**
+     * Writes the output of a file with the same content, which was already merged into the global summary.
+     *
+     * @return True if the output has been written. False otherwise.
+     */
+    private Boolean writeCachedOutput(ResultCache.Key key, String output) {
+        try {
+            long start = System.nanoTime();
+            writeOutput(output);
+            if (globalSummary != null) {
+                afterPublished(() -> globalSummary.completed(Paths.get(fullPathToInputFile())));
+            }
+            awaitPublished();
+            metrics.record(Metrics.Stage.WRITE, System.nanoTime() - start);
+            metrics.cacheHit();
+            metrics.fileProcessed(key.getSize());
+
+            logger.debug("File '{}' has the same content of a file already processed.", fileName);
+            return Boolean.TRUE;
+        } catch (IOException e) {
+            metrics.fileFailed(false);
+            logger.error("Error occurred while processing the file '{}': {}", fileName, e.getMessage());
+            return Boolean.FALSE;
+        }
+    }
+
+    /**
+     * Process a single line of a flat file.
+     *
+     * @param line The line, without the line break.
+     */
+    void processLine(String line) {
+        new DatFileParser(summary).parse(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)), 0, true);
+    }
+
+    /**
+     * Parses the chunks of the file in parallel, each one into its own summary, and merges them in file order.
+     */
+    private SalesSummary parseInChunks(FileChannel channel) throws IOException {
+        long[] boundaries = FileChunks.split(channel, splitThreshold);
+        logger.debug("Splitting file '{}' in {} chunks.", fileName, boundaries.length - 1);
+
+        List<ForkJoinTask<SalesSummary>> chunks = new ArrayList<>(boundaries.length - 1);
+        List<ColumnarFile.Builder> columnarChunks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            long start = boundaries[i];
+            long end = boundaries[i + 1];
+            ColumnarFile.Builder columnarChunk = columnar == null ? null : new ColumnarFile.Builder();
+            columnarChunks.add(columnarChunk);
+            RejectLog.Chunk rejects = rejects(i);
+            chunks.add(ForkJoinPool.commonPool().submit(CpuTime.charged(() -> parseChunk(channel, start, end,
+                    columnarChunk, rejects))));
+        }
+
+        SalesSummary merged = new SalesSummary(itemReport);
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                SalesSummary chunkSummary = chunks.get(i).join();
+                long start = System.nanoTime();
+                merged.merge(chunkSummary);
+                if (columnar != null) {
+                    columnar.merge(columnarChunks.get(i));
+                }
+                aggregateNanos += System.nanoTime() - start;
+            }
+        } finally {
+            chunks.forEach(chunk -> chunk.cancel(false));
+        }
+        return merged;
+    }
+
+    private SalesSummary parseChunk(FileChannel channel, long start, long end, ColumnarFile.Builder columnarChunk,
+                                    RejectLog.Chunk rejects) {
+        SalesSummary chunkSummary = new SalesSummary(itemReport);
+        try {
+            DatFileParser parser = new DatFileParser(handler(chunkSummary, columnarChunk), rejects);
+            parser.parse(channel, start, end);
+            if (rejects != null) {
+                rejects.done(parser.getLineCount());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunkSummary;
+    }
+
     /**
      * Writes the output to the output file.
      * <p>
      * The output file will be save at the same location as the input file.
-     * The only difference will be the extension, instead of .dat, it will be .done.dot.
+     * The only difference will be the extension, instead of .dat (or .dat.gz), it will be .done.dot.
+     * <p>
+     * The output is written to a temporary file that is then renamed, so the output file is never seen half written.
+     * With an {@link OutputWriter} that happens on the writer thread, after this method returns, see
+     * {@link #awaitPublished()}. The output is written in the configured {@link ReportFormat}, and handed to the
+     * {@link ReportServer}, if any, once written.
      *
+     * @param output The text output.
      * @throws IOException
      */
-    private void writeOutput() throws IOException {
-        String outputFileName = fileName.substring(0, fileName.lastIndexOf(Main.INPUT_FILE_EXTENSION))
-                + Main.OUTPUT_FILE_EXTENSION;
-        String output = generateOutput();
-        Files.write(Paths.get(outputDirectory + outputFileName), output.getBytes());
+    private void writeOutput(String output) throws IOException {
+        Path outputFile = Paths.get(outputDirectory + baseName() + reportFormat.getExtension());
+        String encoded = reportFormat.encode(output);
+        if (outputWriter == null) {
+            OutputWriter.writeAtomically(outputFile, encoded.getBytes(StandardCharsets.UTF_8));
+        } else {
+            try {
+                published = outputWriter.write(outputFile, encoded);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while queuing the output of '" + fileName + "'.");
+            }
+        }
+
+        if (reportServer != null) {
+            afterPublished(() -> reportServer.publish(fileName, output));
+        }
+    }
+
+    /**
+     * Keeps the results of the file once its output is published, which is on the writer thread with an
+     * {@link OutputWriter}. Nothing is kept of a file whose output can't be published.
+     *
+     * @param commit Keeps the results.
+     */
+    private void afterPublished(Runnable commit) {
+        published = published.thenRun(commit);
+    }
+
+    /**
+     * Waits until the output is published and the results are kept, so the file is only reported processed, to the
+     * metrics and to the caller, once its output is on disk. The writer thread publishes the outputs of the workers
+     * waiting at the same time in a single batch.
+     *
+     * @throws IOException If the output could not be published.
+     */
+    private void awaitPublished() throws IOException {
+        try {
+            published.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the output of '" + fileName + "'.");
+        } catch (ExecutionException e) {
+            throw new IOException("Output was not published: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * @return Completed once the output of a processed file is published, which is before {@link #processFile()}
+     * returns.
+     */
+    CompletableFuture<Void> getPublished() {
+        return published;
+    }
+
+    /**
+     * @return The file name without the extension ({@code .dat}, {@code .dat.gz} or {@code .col}).
+     */
+    private String baseName() {
+        if (ColumnarFile.isColumnar(fileName)) {
+            return fileName.substring(0, fileName.length() - ColumnarFile.FILE_EXTENSION.length());
+        }
+        return fileName.substring(0, fileName.lastIndexOf(Main.INPUT_FILE_EXTENSION));
     }
 
     /**
@@ -176,98 +570,107 @@ public class FlatFileProcessor implements Callable<Boolean> {
      * @return The text output.
      */
     String generateOutput() {
-        return OUTPUT_TYPE_AMOUNT_CLIENT
-                + DELIMITER
-                + OUTPUT_AMOUNT_CLIENTS
-                + DELIMITER
-                + clientsCnpjs.size()
-                + LINE_BREAK
-
-                + OUTPUT_TYPE_AMOUNT_SALESMAN
-                + DELIMITER
-                + OUTPUT_AMOUNT_SALESMAN
-                + DELIMITER
-                + salesmanCpfs.size()
-                + LINE_BREAK
-
-                + OUTPUT_TYPE_EXPENSIVE_SALE
-                + DELIMITER
-                + OUTPUT_MOST_EXPENSIVE_SALE
-                + DELIMITER
-                + mostExpensiveSaleId
-                + LINE_BREAK
-
-                + OUTPUT_TYPE_WORST_SALESMAN
-                + DELIMITER
-                + OUTPUT_WORST_SALESMAN
-                + DELIMITER
-                + getWorstSalesman()
-                + LINE_BREAK;
-    }
-
-    private void processSalesmanLine(StringTokenizer lineTokens) {
-        this.salesmanCpfs.add(lineTokens.nextToken());
-    }
-
-    private void processCustomerLine(StringTokenizer lineTokens) {
-        this.clientsCnpjs.add(lineTokens.nextToken());
-    }
-
-    private void processSalesLine(StringTokenizer lineTokens) {
-        String salesId = lineTokens.nextToken();
-        String items = lineTokens.nextToken();
-        String salesman = lineTokens.nextToken();
-
-        BigDecimal salesValue = sumItems(items);
-        if (salesValue.compareTo(mostExpensiveSaleValue) == 1) {
-            mostExpensiveSaleId = salesId;
-            mostExpensiveSaleValue = salesValue;
+        StringBuilder output = new StringBuilder();
+        summary.appendSummaryOutput(output);
+
+        if (itemReport) {
+            output.append(generateItemOutput());
+        }
+        if (salesmanRanking > 0) {
+            SalesmanTotals salesmanTotals = summary.getSalesmanTotals();
+            output.append(generateRankingOutput(OUTPUT_TYPE_WORST_SALESMEN, OUTPUT_WORST_SALESMEN,
+                    salesmanTotals.getBottom(salesmanRanking)));
+            output.append(generateRankingOutput(OUTPUT_TYPE_BEST_SALESMEN, OUTPUT_BEST_SALESMEN,
+                    salesmanTotals.getTop(salesmanRanking)));
         }
 
-        BigDecimal currentSalesmanSum = this.salesmanSales.get(salesman);
-        if (currentSalesmanSum == null) {
-            currentSalesmanSum = salesValue;
-        } else {
-            currentSalesmanSum = currentSalesmanSum.add(salesValue);
+        if (rejectLog != null) {
+            appendLine(output, OUTPUT_TYPE_REJECTED_LINES, OUTPUT_REJECTED_LINES, rejectLog.getCount());
         }
-        salesmanSales.put(salesman, currentSalesmanSum);
-    }
 
-    private BigDecimal sumItems(String items) {
-        String[] itemsArray = items.replace("[", "").replace("]", "").split(",");
-        BigDecimal sum = BigDecimal.ZERO;
+        summary.appendAnalyzerOutput(output);
+        return output.toString();
+    }
 
-        for (String itemString : itemsArray) {
-            String[] itemArray = itemString.split("-");
-            if (!itemArray[2].isEmpty()) {
-                sum = sum.add(new BigDecimal(itemArray[2]));
-            }
-        }
+    /**
+     * Generates the four summary lines ({@code 001} to {@code 004}).
+     *
+     * @return The text output.
+     */
+    static String generateOutput(int amountOfClients, int amountOfSalesman, String mostExpensiveSaleId,
+                                 String worstSalesman) {
+        StringBuilder output = new StringBuilder();
+        appendLine(output, OUTPUT_TYPE_AMOUNT_CLIENT, OUTPUT_AMOUNT_CLIENTS, amountOfClients);
+        appendLine(output, OUTPUT_TYPE_AMOUNT_SALESMAN, OUTPUT_AMOUNT_SALESMAN, amountOfSalesman);
+        appendLine(output, OUTPUT_TYPE_EXPENSIVE_SALE, OUTPUT_MOST_EXPENSIVE_SALE, mostExpensiveSaleId);
+        appendLine(output, OUTPUT_TYPE_WORST_SALESMAN, OUTPUT_WORST_SALESMAN, worstSalesman);
+        return output.toString();
+    }
 
-        return sum;
+    /**
+     * Appends an output line with a single value, like {@code 001çAmountClientsç2}.
+     */
+    static void appendLine(StringBuilder output, String type, String name, Object value) {
+        output.append(type)
+                .append(DELIMITER)
+                .append(name)
+                .append(DELIMITER)
+                .append(value)
+                .append(LINE_BREAK);
     }
 
-    private String getWorstSalesman() {
-        Comparator<Map.Entry<String, BigDecimal>> byValue = (entry1, entry2) -> entry1.getValue().compareTo(
-                entry2.getValue());
-        Optional<Map.Entry<String, BigDecimal>> worst = salesmanSales
-                .entrySet()
-                .stream()
-                .sorted(byValue)
-                .findFirst();
+    /**
+     * Generates one line per ItemID, sorted by ItemID, with its units sold and revenue.
+     *
+     * @return The text output.
+     */
+    private String generateItemOutput() {
+        ItemTotals itemTotals = summary.getItemTotals();
+        StringBuilder output = new StringBuilder();
+        for (long itemId : itemTotals.itemIds()) {
+            output.append(OUTPUT_TYPE_ITEM_SALES)
+                    .append(DELIMITER)
+                    .append(OUTPUT_ITEM_SALES)
+                    .append(DELIMITER)
+                    .append(itemId)
+                    .append(DELIMITER)
+                    .append(itemTotals.getUnits(itemId).stripTrailingZeros().toPlainString())
+                    .append(DELIMITER)
+                    .append(itemTotals.getRevenue(itemId).toPlainString())
+                    .append(LINE_BREAK);
+        }
+        return output.toString();
+    }
 
-        if (worst.isPresent()) {
-            return worst.get().getKey();
-        } else {
-            return null;
+    /**
+     * Generates one line per ranked salesman, with its position, name and sum of sales.
+     *
+     * @return The text output.
+     */
+    private String generateRankingOutput(String type, String name, List<Map.Entry<String, BigDecimal>> ranking) {
+        StringBuilder output = new StringBuilder();
+        int position = 1;
+        for (Map.Entry<String, BigDecimal> salesman : ranking) {
+            output.append(type)
+                    .append(DELIMITER)
+                    .append(name)
+                    .append(DELIMITER)
+                    .append(position++)
+                    .append(DELIMITER)
+                    .append(salesman.getKey())
+                    .append(DELIMITER)
+                    .append(salesman.getValue().toPlainString())
+                    .append(LINE_BREAK);
         }
+        return output.toString();
     }
 
     /**
      * Perform the following validations:
      * <ul>
      * <li>The file exists;</li>
-     * <li>The file has the correct extension {@link FlatFileProcessor#VALID_EXTENSION}.</li>
+     * <li>The file has the correct extension {@link FlatFileProcessor#VALID_EXTENSION}, it is compressed with
+     * gzip ({@code .dat.gz}) or it is a columnar file ({@code .col}).</li>
      * </ul>
      *
      * @return True if the file is valid. False otherwise.
@@ -283,7 +686,8 @@ public class FlatFileProcessor implements Callable<Boolean> {
 
         // Verifies the file has the correct extension
         String extension = file.getName().substring(file.getName().lastIndexOf(".") + 1);
-        if (!VALID_EXTENSION.equalsIgnoreCase(extension)) {
+        if (!VALID_EXTENSION.equalsIgnoreCase(extension) && !CompressedInput.isCompressed(fileName)
+                && !ColumnarFile.isColumnar(fileName)) {
             logger.error("File '{}' has an invalid extension. It will be ignored.", fileName);
             return false;
         }
@@ -295,4 +699,37 @@ public class FlatFileProcessor implements Callable<Boolean> {
         return inputDirectory + fileName;
     }
 
+    /**
+     * Hands each record to the summary and to the columnar file.
+     */
+    private static final class Tee implements DatRecordHandler {
+
+        private final SalesSummary summary;
+
+        private final ColumnarFile.Builder columnar;
+
+        private Tee(SalesSummary summary, ColumnarFile.Builder columnar) {
+            this.summary = summary;
+            this.columnar = columnar;
+        }
+
+        @Override
+        public void onSalesman(String cpf) {
+            summary.onSalesman(cpf);
+            columnar.onSalesman(cpf);
+        }
+
+        @Override
+        public void onCustomer(String cnpj) {
+            summary.onCustomer(cnpj);
+            columnar.onCustomer(cnpj);
+        }
+
+        @Override
+        public void onSale(SaleRecord sale) {
+            summary.onSale(sale);
+            columnar.onSale(sale);
+        }
+    }
+
 }
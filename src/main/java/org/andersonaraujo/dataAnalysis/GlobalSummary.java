@@ -0,0 +1,429 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The numbers of every file processed since the application first started.
+ * <p>
+ * Each processed file is merged in as soon as it finishes. The merge is safe to run from many threads at once: the
+ * sums per salesman are a {@link ConcurrentHashMap}, which only locks the bin of the key being updated, the most
+ * expensive sale is replaced with a compare-and-set loop, and each distinct counter is merged under its own lock.
+ * {@link #flush()} writes the running report ({@code global.done.dat}) and a binary snapshot of the state, which
+ * {@link #load(Path, Path)} reads back on the next start instead of processing the archived files again.
+ * <p>
+ * With a {@link ProcessedJournal}, the input files merged are only appended to it once a snapshot with their numbers
+ * is written, and the snapshot lists the ones not appended yet. So after a crash every file of the journal is in the
+ * numbers restored, and every file in the numbers is either in the journal or appended to it on start.
+ *
+ * @author Anderson Araujo.
+ */
+class GlobalSummary {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalSummary.class);
+
+    /**
+     * The name of the running report, without the extension of its {@link ReportFormat}.
+     */
+    static final String OUTPUT_BASE_NAME = "global";
+
+    static final String SNAPSHOT_FILE_NAME = "global.snapshot";
+
+    private static final int SNAPSHOT_MAGIC = 0x44415331;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final DistinctCounter clientsCnpjs;
+
+    private final DistinctCounter salesmanCpfs;
+
+    private final ConcurrentHashMap<String, BigDecimal> salesmanSales = new ConcurrentHashMap<>();
+
+    private final AtomicReference<Sale> mostExpensiveSale = new AtomicReference<>(Sale.NONE);
+
+    /**
+     * Counts the merges, so flushes can be skipped when nothing changed.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private long flushedVersion;
+
+    /**
+     * Held to merge, by many threads at once, and held alone to copy the state to be flushed, so a snapshot never has
+     * half of a merge.
+     */
+    private final ReadWriteLock mergeLock = new ReentrantReadWriteLock();
+
+    /**
+     * The absolute paths of the input files merged and not appended to the journal yet.
+     */
+    private final Set<String> unjournaledFiles = ConcurrentHashMap.newKeySet();
+
+    private volatile ProcessedJournal journal;
+
+    private final Path outputFile;
+
+    private final Path snapshotFile;
+
+    private final ReportFormat reportFormat = ReportFormat.configured();
+
+    /**
+     * @param outputFile   Where the running report is written.
+     * @param snapshotFile Where the snapshot is written.
+     */
+    GlobalSummary(Path outputFile, Path snapshotFile) {
+        this(outputFile, snapshotFile, DistinctCountMode.configured());
+    }
+
+    /**
+     * @param outputFile    Where the running report is written.
+     * @param snapshotFile  Where the snapshot is written.
+     * @param distinctCount How the distinct CNPJs and CPFs are counted. It must be the mode of the merged summaries.
+     */
+    GlobalSummary(Path outputFile, Path snapshotFile, DistinctCountMode distinctCount) {
+        this.outputFile = outputFile;
+        this.snapshotFile = snapshotFile;
+        this.clientsCnpjs = distinctCount.create();
+        this.salesmanCpfs = distinctCount.create();
+    }
+
+    /**
+     * Creates a global summary, restoring the state from the snapshot if there is one.
+     *
+     * @param outputFile   Where the running report is written.
+     * @param snapshotFile Where the snapshot is read from and written to.
+     * @return The global summary.
+     * @throws IOException If the snapshot exists but can't be read.
+     */
+    static GlobalSummary load(Path outputFile, Path snapshotFile) throws IOException {
+        return load(outputFile, snapshotFile, DistinctCountMode.configured());
+    }
+
+    /**
+     * Creates a global summary, restoring the state from the snapshot if there is one.
+     *
+     * @param outputFile    Where the running report is written.
+     * @param snapshotFile  Where the snapshot is read from and written to.
+     * @param distinctCount How the distinct CNPJs and CPFs are counted.
+     * @return The global summary.
+     * @throws IOException If the snapshot exists but can't be read.
+     */
+    static GlobalSummary load(Path outputFile, Path snapshotFile, DistinctCountMode distinctCount)
+            throws IOException {
+        GlobalSummary globalSummary = new GlobalSummary(outputFile, snapshotFile, distinctCount);
+        if (Files.exists(snapshotFile)) {
+            long start = System.currentTimeMillis();
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(snapshotFile)))) {
+                globalSummary.read(input);
+            }
+            logger.info("Global summary restored from '{}' in {} ms.", snapshotFile,
+                    System.currentTimeMillis() - start);
+        }
+        return globalSummary;
+    }
+
+    /**
+     * Appends the processed files to the journal from now on, starting with the ones of the snapshot that weren't.
+     *
+     * @param journal The journal of the processed files.
+     * @throws IOException If the journal can't be written.
+     */
+    void journalTo(ProcessedJournal journal) throws IOException {
+        this.journal = journal;
+        journal(new ArrayList<>(unjournaledFiles));
+    }
+
+    /**
+     * Merges the summary of a processed file.
+     */
+    void merge(SalesSummary summary) {
+        merge(summary, null);
+    }
+
+    /**
+     * Merges the summary of a processed file.
+     *
+     * @param inputFile The file, to be appended to the journal, or null.
+     */
+    void merge(SalesSummary summary, Path inputFile) {
+        merge(summary.getClientsCnpjs(), summary.getSalesmanCpfs(), summary.getSalesmanTotals(),
+                summary.getMostExpensiveSaleId(), summary.getMostExpensiveSaleValue(), inputFile);
+    }
+
+    /**
+     * Merges the summary of a columnar file.
+     *
+     * @param inputFile The file, to be appended to the journal, or null.
+     */
+    void merge(ColumnarFile.Summary summary, Path inputFile) {
+        merge(summary.getClientsCnpjs(), summary.getSalesmanCpfs(), summary.getSalesmanTotals(),
+                summary.getMostExpensiveSaleId(), summary.getMostExpensiveSaleValue(), inputFile);
+    }
+
+    /**
+     * Takes a processed file whose numbers were already merged, like one with the same content as another file, to be
+     * appended to the journal.
+     */
+    void completed(Path inputFile) {
+        mergeLock.readLock().lock();
+        try {
+            addUnjournaled(inputFile);
+            version.incrementAndGet();
+        } finally {
+            mergeLock.readLock().unlock();
+        }
+    }
+
+    private void merge(DistinctCounter clients, DistinctCounter salesmen, SalesmanTotals salesmanTotals,
+                       String mostExpensiveSaleId, Money mostExpensiveSaleValue, Path inputFile) {
+        mergeLock.readLock().lock();
+        try {
+            synchronized (clientsCnpjs) {
+                clientsCnpjs.merge(clients);
+            }
+            synchronized (salesmanCpfs) {
+                salesmanCpfs.merge(salesmen);
+            }
+            salesmanTotals.forEach(
+                    (salesman, total) -> salesmanSales.merge(salesman, total.toBigDecimal(), BigDecimal::add));
+
+            if (mostExpensiveSaleId != null) {
+                offerMostExpensiveSale(new Sale(mostExpensiveSaleId, mostExpensiveSaleValue.toBigDecimal()));
+            }
+            addUnjournaled(inputFile);
+            version.incrementAndGet();
+        } finally {
+            mergeLock.readLock().unlock();
+        }
+    }
+
+    private void addUnjournaled(Path inputFile) {
+        if (inputFile != null && journal != null) {
+            unjournaledFiles.add(inputFile.toAbsolutePath().toString());
+        }
+    }
+
+    private void offerMostExpensiveSale(Sale sale) {
+        Sale current = mostExpensiveSale.get();
+        while (sale.value.compareTo(current.value) > 0) {
+            if (mostExpensiveSale.compareAndSet(current, sale)) {
+                return;
+            }
+            current = mostExpensiveSale.get();
+        }
+    }
+
+    int getAmountOfClients() {
+        synchronized (clientsCnpjs) {
+            return clientsCnpjs.size();
+        }
+    }
+
+    int getAmountOfSalesman() {
+        synchronized (salesmanCpfs) {
+            return salesmanCpfs.size();
+        }
+    }
+
+    String getMostExpensiveSaleId() {
+        return mostExpensiveSale.get().id;
+    }
+
+    /**
+     * @return The salesman with the lowest sum of sales ever, or null if there are no sales.
+     */
+    String getWorstSalesman() {
+        Map.Entry<String, BigDecimal> worst = null;
+        for (Map.Entry<String, BigDecimal> entry : salesmanSales.entrySet()) {
+            if (worst == null || entry.getValue().compareTo(worst.getValue()) < 0) {
+                worst = entry;
+            }
+        }
+        return worst == null ? null : worst.getKey();
+    }
+
+    /**
+     * @return The text of the running report, in the same format of the output of each file.
+     */
+    String generateOutput() {
+        return FlatFileProcessor.generateOutput(getAmountOfClients(), getAmountOfSalesman(),
+                getMostExpensiveSaleId(), getWorstSalesman());
+    }
+
+    /**
+     * Writes the running report and the snapshot, if anything was merged since the last flush, then appends the
+     * files of the snapshot to the journal.
+     * <p>
+     * The state is copied while no merge runs, and both files are written to a temporary file first and then moved
+     * over the previous one.
+     *
+     * @throws IOException If the files can't be written.
+     */
+    synchronized void flush() throws IOException {
+        long current;
+        String report;
+        List<String> files;
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        mergeLock.writeLock().lock();
+        try {
+            current = version.get();
+            if (current == flushedVersion) {
+                return;
+            }
+            report = generateOutput();
+            files = new ArrayList<>(unjournaledFiles);
+            try (DataOutputStream output = new DataOutputStream(snapshot)) {
+                write(output, files);
+            }
+        } finally {
+            mergeLock.writeLock().unlock();
+        }
+
+        Path outputTemp = outputFile.resolveSibling(outputFile.getFileName() + ".tmp");
+        Files.write(outputTemp, reportFormat.encode(report).getBytes(StandardCharsets.UTF_8));
+        Files.move(outputTemp, outputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Path snapshotTemp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(snapshotTemp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // The journal must not get ahead of the snapshot on disk
+            channel.force(false);
+        }
+        Files.move(snapshotTemp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        flushedVersion = current;
+        journal(files);
+        logger.debug("Global summary flushed to '{}'.", snapshotFile);
+    }
+
+    private void journal(List<String> files) throws IOException {
+        if (journal == null || files.isEmpty()) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>(files.size());
+        for (String file : files) {
+            paths.add(Paths.get(file));
+        }
+        journal.completed(paths);
+        unjournaledFiles.removeAll(files);
+    }
+
+    private void write(DataOutputStream output, List<String> files) throws IOException {
+        output.writeInt(SNAPSHOT_MAGIC);
+        output.writeInt(SNAPSHOT_VERSION);
+
+        writeCounter(output, clientsCnpjs);
+        writeCounter(output, salesmanCpfs);
+
+        Sale sale = mostExpensiveSale.get();
+        output.writeBoolean(sale.id != null);
+        if (sale.id != null) {
+            output.writeUTF(sale.id);
+            writeDecimal(output, sale.value);
+        }
+
+        Map<String, BigDecimal> totals = new HashMap<>(salesmanSales);
+        output.writeInt(totals.size());
+        for (Map.Entry<String, BigDecimal> entry : totals.entrySet()) {
+            output.writeUTF(entry.getKey());
+            writeDecimal(output, entry.getValue());
+        }
+
+        output.writeInt(files.size());
+        for (String file : files) {
+            output.writeUTF(file);
+        }
+    }
+
+    private void read(DataInputStream input) throws IOException {
+        if (input.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("File '" + snapshotFile + "' is not a global summary snapshot.");
+        }
+
+        int snapshotVersion = input.readInt();
+        if (snapshotVersion != SNAPSHOT_VERSION) {
+            throw new IOException("Global summary snapshot '" + snapshotFile + "' has the unknown version "
+                    + snapshotVersion + ".");
+        }
+        DistinctCountMode.read(input, clientsCnpjs);
+        DistinctCountMode.read(input, salesmanCpfs);
+
+        if (input.readBoolean()) {
+            mostExpensiveSale.set(new Sale(input.readUTF(), readDecimal(input)));
+        }
+
+        int amount = input.readInt();
+        for (int i = 0; i < amount; i++) {
+            salesmanSales.put(input.readUTF(), readDecimal(input));
+        }
+
+        amount = input.readInt();
+        for (int i = 0; i < amount; i++) {
+            unjournaledFiles.add(input.readUTF());
+        }
+        flushedVersion = version.get();
+    }
+
+    private static void writeCounter(DataOutputStream output, DistinctCounter counter) throws IOException {
+        synchronized (counter) {
+            DistinctCountMode.write(output, counter);
+        }
+    }
+
+    private static void writeDecimal(DataOutputStream output, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        output.writeInt(value.scale());
+        output.writeShort(unscaled.length);
+        output.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream input) throws IOException {
+        int scale = input.readInt();
+        byte[] unscaled = new byte[input.readUnsignedShort()];
+        input.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * An immutable sale ID and value, so the most expensive sale can be replaced atomically.
+     */
+    private static final class Sale {
+
+        private static final Sale NONE = new Sale(null, BigDecimal.ZERO);
+
+        private final String id;
+        private final BigDecimal value;
+
+        private Sale(String id, BigDecimal value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * An estimate of the distinct CPFs or CNPJs, with the HyperLogLog algorithm.
+ * <p>
+ * It takes {@code 2^precision} bytes no matter how many documents there are, 4 KB with the default precision of 12,
+ * and the estimate has a standard error of {@code 1.04 / sqrt(2^precision)}, 1.6% with the default precision. Small
+ * counts are estimated with linear counting, which is nearly exact up to a few thousand documents.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+final class HyperLogLog implements DistinctCounter {
+
+    static final int MIN_PRECISION = 4;
+
+    static final int MAX_PRECISION = 18;
+
+    private final int precision;
+
+    /**
+     * For each bucket, the highest position of the first set bit seen in the hashes that fall in it.
+     */
+    private final byte[] registers;
+
+    /**
+     * @param precision How many bits of the hash select the bucket, from {@value #MIN_PRECISION} to
+     *                  {@value #MAX_PRECISION}.
+     */
+    HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between " + MIN_PRECISION + " and "
+                    + MAX_PRECISION + ".");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    @Override
+    public void add(String value) {
+        long hash = hash(value);
+        int bucket = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[bucket]) {
+            registers[bucket] = (byte) rank;
+        }
+    }
+
+    @Override
+    public void merge(DistinctCounter other) {
+        HyperLogLog estimate = (HyperLogLog) other;
+        if (estimate.precision != precision) {
+            throw new IllegalArgumentException("Can't merge HyperLogLogs of different precisions.");
+        }
+        merge(estimate.registers);
+    }
+
+    private void merge(byte[] otherRegisters) {
+        for (int i = 0; i < registers.length; i++) {
+            if (otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int buckets = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / buckets);
+        double estimate = alpha * buckets * buckets / sum;
+        if (estimate <= 2.5 * buckets && zeros > 0) {
+            estimate = buckets * Math.log((double) buckets / zeros);
+        }
+        return (int) Math.min(Math.round(estimate), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public DistinctCountMode getMode() {
+        return DistinctCountMode.APPROXIMATE;
+    }
+
+    /**
+     * @return The standard error of the estimates with the precision.
+     */
+    static double standardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    @Override
+    public void write(DataOutputStream output) throws IOException {
+        output.writeByte(precision);
+        output.write(registers);
+    }
+
+    @Override
+    public void read(DataInputStream input) throws IOException {
+        int otherPrecision = input.readUnsignedByte();
+        if (otherPrecision != precision) {
+            throw new IOException("Expected a HyperLogLog of precision " + precision + ", but it is "
+                    + otherPrecision + ".");
+        }
+        byte[] otherRegisters = new byte[registers.length];
+        input.readFully(otherRegisters);
+        merge(otherRegisters);
+    }
+
+    /**
+     * A 64 bits FNV-1a hash of the characters, mixed with the MurmurHash3 finalizer so every bit depends on every
+     * character.
+     */
+    static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
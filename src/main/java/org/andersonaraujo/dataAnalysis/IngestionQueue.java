@@ -0,0 +1,432 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded queue of files waiting to be processed, drained into the executor of an {@link ExecutorStrategy}.
+ * <p>
+ * A dispatcher thread hands the queued files to the executor in the order of the {@link SchedulingPolicy}, and only
+ * while fewer than {@code concurrency} files are being processed, so the limit holds even for executors that start a
+ * thread per file. At most {@code concurrency + queueDepth} files are accepted at a time. Once the queue is full,
+ * {@link #submit(Path)} blocks until a worker finishes a file, so a burst of files doesn't fill the heap with queued
+ * tasks.
+ * <p>
+ * A file that is already queued or being processed is not accepted again, and no file is accepted once the queue is
+ * shut down.
+ * <p>
+ * With the {@link ExecutorStrategy#ADAPTIVE} strategy, the CPU and wall time of each file are measured and the
+ * concurrency can be changed while running, see {@link AdaptiveConcurrency}. The CPU time of a file includes the one
+ * of its helper threads, see {@link CpuTime}: the chunks of a big file parsed on the common fork-join pool, and a
+ * compressed file decompressed on a thread of its own.
+ *
+ * @author Anderson Araujo.
+ */
+class IngestionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionQueue.class);
+
+    private final ExecutorService executor;
+
+    private final PriorityBlockingQueue<Task> queue;
+
+    /**
+     * One permit per file that can be queued or processed at the same time.
+     */
+    private final Permits capacity;
+
+    /**
+     * One permit per file that can be processed at the same time.
+     */
+    private final Permits running;
+
+    private volatile int concurrency;
+
+    /**
+     * How many files are being processed, without the permit the dispatcher holds while waiting for a file.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Whether the CPU and wall time of the files are measured.
+     */
+    private final boolean measured;
+
+    // The files processed and their CPU and wall time since the last sample
+    private final LongAdder sampledFiles = new LongAdder();
+    private final LongAdder sampledCpuNanos = new LongAdder();
+    private final LongAdder sampledWallNanos = new LongAdder();
+    private long sampledAt = System.nanoTime();
+
+    private final Thread dispatcher;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Names of the files queued or being processed.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Function<String, Callable<Boolean>> processorFactory;
+
+    /**
+     * Creates a queue drained by a fixed pool of workers.
+     *
+     * @param poolSize         How many files are processed at the same time.
+     * @param queueDepth       How many files can wait to be processed.
+     * @param policy           The order in which the waiting files are processed.
+     * @param processorFactory Creates the processor of a file, given its name.
+     */
+    IngestionQueue(int poolSize, int queueDepth, SchedulingPolicy policy,
+                   Function<String, Callable<Boolean>> processorFactory) {
+        this(ExecutorStrategy.FIXED, poolSize, queueDepth, policy, processorFactory);
+    }
+
+    /**
+     * @param strategy         The threads the files are processed on.
+     * @param concurrency      How many files are processed at the same time.
+     * @param queueDepth       How many files can wait to be processed.
+     * @param policy           The order in which the waiting files are processed.
+     * @param processorFactory Creates the processor of a file, given its name.
+     */
+    IngestionQueue(ExecutorStrategy strategy, int concurrency, int queueDepth, SchedulingPolicy policy,
+                   Function<String, Callable<Boolean>> processorFactory) {
+        if (concurrency < 1 || queueDepth < 0) {
+            throw new IllegalArgumentException("Pool size must be positive and queue depth can't be negative.");
+        }
+
+        this.queue = new PriorityBlockingQueue<>(Math.max(queueDepth, 1), policy.getOrder());
+        this.executor = strategy.newExecutor(concurrency);
+        this.concurrency = concurrency;
+        this.capacity = new Permits(concurrency + queueDepth);
+        this.running = new Permits(concurrency);
+        this.measured = strategy == ExecutorStrategy.ADAPTIVE && CpuTime.isSupported();
+        this.processorFactory = processorFactory;
+
+        this.dispatcher = new Thread(this::dispatch, "ingestion-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queues a file to be processed, waiting while the queue is full.
+     *
+     * @param file The file.
+     * @return False if the file was already queued or being processed, or the queue is shut down.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    boolean submit(Path file) throws InterruptedException {
+        String fileName = file.getFileName().toString();
+        if (shutdown) {
+            return false;
+        }
+        if (!pending.add(fileName)) {
+            logger.debug("File '{}' is already queued.", fileName);
+            return false;
+        }
+
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            pending.remove(fileName);
+            throw e;
+        }
+
+        execute(file, fileName);
+        return true;
+    }
+
+    /**
+     * Queues a file to be processed, if there is room in the queue.
+     *
+     * @param file The file.
+     * @return False if the queue is full or shut down, so the file must be offered again later. A file already queued
+     * or being processed is ignored, and true is returned.
+     */
+    boolean offer(Path file) {
+        String fileName = file.getFileName().toString();
+        if (shutdown) {
+            return false;
+        }
+        if (!pending.add(fileName)) {
+            logger.debug("File '{}' is already queued.", fileName);
+            return true;
+        }
+        if (!capacity.tryAcquire()) {
+            pending.remove(fileName);
+            return false;
+        }
+
+        execute(file, fileName);
+        return true;
+    }
+
+    private void execute(Path file, String fileName) {
+        long size = 0;
+        long lastModified = 0;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            size = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            // The processor reports files that can't be read
+        }
+
+        queue.add(new Task(fileName, size, lastModified, sequence.getAndIncrement()));
+    }
+
+    /**
+     * Runs on the dispatcher thread, handing the queued files to the executor while there are free workers, until
+     * the queue is shut down and empty.
+     */
+    private void dispatch() {
+        try {
+            while (true) {
+                running.acquire();
+                Task task = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    executor.execute(task);
+                } else {
+                    running.release();
+                    if (shutdown && queue.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Ingestion dispatcher interrupted, {} queued files will not be processed.", queue.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return Whether the file is queued or being processed.
+     */
+    boolean isPending(String fileName) {
+        return pending.contains(fileName);
+    }
+
+    /**
+     * @return How many files are waiting for a worker.
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return How many files are being processed.
+     */
+    int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * @return How many files can be processed at the same time.
+     */
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Changes how many files can be processed at the same time. The files being processed above a lower concurrency
+     * finish, and no new one is started until the processed files are below it.
+     *
+     * @param concurrency The new concurrency, at least one.
+     */
+    synchronized void setConcurrency(int concurrency) {
+        int change = Math.max(concurrency, 1) - this.concurrency;
+        if (change > 0) {
+            running.release(change);
+            capacity.release(change);
+        } else if (change < 0) {
+            running.reducePermits(-change);
+            capacity.reducePermits(-change);
+        }
+        this.concurrency += change;
+    }
+
+    /**
+     * @return Whether the CPU time of the files is measured, so {@link #sample()} has it.
+     */
+    boolean isMeasured() {
+        return measured;
+    }
+
+    /**
+     * @return How many files were processed since the previous sample, with their CPU and wall time.
+     */
+    synchronized Sample sample() {
+        long now = System.nanoTime();
+        Sample sample = new Sample(sampledFiles.sumThenReset(), sampledCpuNanos.sumThenReset(),
+                sampledWallNanos.sumThenReset(), now - sampledAt);
+        sampledAt = now;
+        return sample;
+    }
+
+    /**
+     * Stops the workers after the queued files are processed.
+     */
+    void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Shuts the queue down, dropping the files that are still waiting for a worker. They are processed again on the
+     * next start.
+     *
+     * @return How many queued files were dropped.
+     */
+    int drain() {
+        shutdown = true;
+        List<Task> dropped = new ArrayList<>();
+        queue.drainTo(dropped);
+        for (Task task : dropped) {
+            pending.remove(task.fileName);
+            capacity.release();
+        }
+        return dropped.size();
+    }
+
+    /**
+     * Interrupts the files still being processed, after {@link #drain()}.
+     */
+    void abort() {
+        dispatcher.interrupt();
+        executor.shutdownNow();
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        dispatcher.join(Math.max(unit.toMillis(timeout), 1));
+        return !dispatcher.isAlive()
+                && executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The files processed during a period, with their CPU and wall time.
+     */
+    static final class Sample {
+
+        private final long files;
+        private final long cpuNanos;
+        private final long wallNanos;
+        private final long periodNanos;
+
+        Sample(long files, long cpuNanos, long wallNanos, long periodNanos) {
+            this.files = files;
+            this.cpuNanos = cpuNanos;
+            this.wallNanos = wallNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        long getFiles() {
+            return files;
+        }
+
+        /**
+         * @return The files processed per second during the period.
+         */
+        double getThroughput() {
+            return files * 1e9 / Math.max(periodNanos, 1);
+        }
+
+        /**
+         * @return The CPU time over the wall time the workers spent on files, or 1 if nothing was measured. Above 1
+         * when the files are parsed on several threads each.
+         */
+        double getCpuRatio() {
+            return wallNanos == 0 ? 1 : (double) cpuNanos / wallNanos;
+        }
+    }
+
+    /**
+     * A semaphore whose permits can be removed.
+     */
+    private static final class Permits extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        private Permits(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    /**
+     * A queued file.
+     */
+    final class Task implements Runnable {
+
+        private final String fileName;
+        private final long size;
+        private final long lastModified;
+        private final long sequence;
+        private final long queuedAt = System.nanoTime();
+
+        private Task(String fileName, long size, long lastModified, long sequence) {
+            this.fileName = fileName;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            active.incrementAndGet();
+            long start = System.nanoTime();
+            Metrics.INSTANCE.record(Metrics.Stage.QUEUE_WAIT, start - queuedAt);
+            try {
+                Callable<Boolean> processor = processorFactory.apply(fileName);
+                if (measured) {
+                    CpuTime.measure(sampledCpuNanos, processor);
+                } else {
+                    processor.call();
+                }
+            } catch (Exception e) {
+                logger.error("Error while processing the file '" + fileName + "'.", e);
+            } finally {
+                if (measured) {
+                    sampledWallNanos.add(System.nanoTime() - start);
+                    sampledFiles.increment();
+                }
+                pending.remove(fileName);
+                active.decrementAndGet();
+                running.release();
+                capacity.release();
+            }
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+    }
+
+}
@@ -0,0 +1,362 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * An input directory watched for new files, with the directory their outputs are written to and how many of its files
+ * are processed at the same time. Each root has its own {@link IngestionQueue} and {@link ReadinessGate}, so roots on
+ * different disks are read in parallel and a slow one doesn't hold the others back.
+ * <p>
+ * Several instances of the application can share an input directory when each one has an instance ID. A file is then
+ * claimed before it is processed, by moving it to {@code processing/<instance ID>} inside the input directory. The
+ * move is an atomic rename, so only one instance gets each file and the others see it gone. Once processed, the file
+ * is moved to {@code processed}; a file that failed stays in the processing directory of its instance and is
+ * processed again when that instance restarts.
+ * <p>
+ * The watcher may lose events, so the input directory is also reconciled from time to time: it is listed and the
+ * files that aren't queued or known to be finished are tracked. The names of the finished files are kept in memory, so
+ * only the new names have their output checked on disk.
+ * <p>
+ * The files processed are also appended to a {@link ProcessedJournal}, so after a restart the files completed before
+ * are skipped without looking at their outputs. Claimed files don't need it: the processed ones are moved away.
+ *
+ * @author Anderson Araujo.
+ */
+final class InputRoot {
+
+    private static final Logger logger = LoggerFactory.getLogger(InputRoot.class);
+
+    static final String PROCESSING_DIRECTORY = "processing";
+
+    static final String PROCESSED_DIRECTORY = "processed";
+
+    private static final String ROOT_SEPARATOR = ",";
+    private static final String OUTPUT_SEPARATOR = "=";
+    private static final String WORKERS_SEPARATOR = "@";
+
+    private final Path input;
+
+    private final Path output;
+
+    /**
+     * How many files of the root are processed at the same time, or zero for the configured concurrency.
+     */
+    private final int workers;
+
+    private IngestionQueue ingestionQueue;
+
+    private ReadinessGate readinessGate;
+
+    private ProcessedJournal journal;
+
+    /**
+     * Names of the files of the input directory whose output was published, or is up to date. Only the names still in
+     * the directory are kept.
+     */
+    private final Set<String> finishedFiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The size and modification time each file that failed had, by its name, so it is only queued again once changed.
+     * Only the names still in the directory are kept.
+     */
+    private final Map<String, String> failedFiles = new ConcurrentHashMap<>();
+
+    InputRoot(Path input, Path output, int workers) {
+        this.input = input.toAbsolutePath();
+        this.output = output.toAbsolutePath();
+        this.workers = workers;
+    }
+
+    /**
+     * @param defaultInput  The input directory when no roots are configured.
+     * @param defaultOutput The output directory when no roots are configured.
+     * @return The roots of the {@link Settings#INPUT_ROOTS} setting, or a single root with the default directories.
+     */
+    static List<InputRoot> configured(Path defaultInput, Path defaultOutput) {
+        String roots = Settings.getString(Settings.INPUT_ROOTS, null);
+        if (roots == null) {
+            return Collections.singletonList(new InputRoot(defaultInput, defaultOutput, 0));
+        }
+        return parse(roots);
+    }
+
+    /**
+     * Reads a list of roots like {@code /disk1/in=/disk1/out@4,/disk2/in}. The output directory defaults to
+     * {@code out} next to the input directory and the workers to the configured concurrency.
+     */
+    static List<InputRoot> parse(String roots) {
+        List<InputRoot> parsed = new ArrayList<>();
+        for (String root : roots.split(ROOT_SEPARATOR)) {
+            String value = root.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+
+            int workers = 0;
+            int separator = value.lastIndexOf(WORKERS_SEPARATOR);
+            if (separator >= 0) {
+                try {
+                    workers = Integer.parseInt(value.substring(separator + 1).trim());
+                } catch (NumberFormatException e) {
+                    workers = -1;
+                }
+                if (workers < 1) {
+                    throw new IllegalArgumentException("Input root '" + root + "' must have a positive amount of "
+                            + "workers.");
+                }
+                value = value.substring(0, separator).trim();
+            }
+
+            separator = value.indexOf(OUTPUT_SEPARATOR);
+            Path input = Paths.get(separator < 0 ? value : value.substring(0, separator).trim());
+            Path output = separator < 0 ? input.toAbsolutePath().resolveSibling("out")
+                    : Paths.get(value.substring(separator + 1).trim());
+            parsed.add(new InputRoot(input, output, workers));
+        }
+
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Setting '" + Settings.INPUT_ROOTS + "' has no input directory.");
+        }
+        return parsed;
+    }
+
+    /**
+     * @return The configured instance ID, which enables the claiming of the files, or null.
+     */
+    static String configuredInstanceId() {
+        String instanceId = Settings.getString(Settings.INSTANCE_ID, null);
+        if (instanceId != null && (instanceId.contains("/") || instanceId.contains(File.separator)
+                || instanceId.startsWith("."))) {
+            throw new IllegalArgumentException("Setting '" + Settings.INSTANCE_ID + "' must be a valid directory name.");
+        }
+        return instanceId;
+    }
+
+    Path getInput() {
+        return input;
+    }
+
+    Path getOutput() {
+        return output;
+    }
+
+    int getWorkers() {
+        return workers;
+    }
+
+    IngestionQueue getIngestionQueue() {
+        return ingestionQueue;
+    }
+
+    ReadinessGate getReadinessGate() {
+        return readinessGate;
+    }
+
+    /**
+     * Creates the input and output directories.
+     *
+     * @throws IOException If they can't be created.
+     */
+    void createDirectories() throws IOException {
+        Files.createDirectories(input);
+        Files.createDirectories(output);
+    }
+
+    /**
+     * Sets the queue and the gate the files of the root go through, and the journal of the processed files, which
+     * may be null.
+     */
+    void start(IngestionQueue ingestionQueue, ReadinessGate readinessGate, ProcessedJournal journal) {
+        this.ingestionQueue = ingestionQueue;
+        this.readinessGate = readinessGate;
+        this.journal = journal;
+    }
+
+    /**
+     * Creates the processor of a file of the root.
+     *
+     * @param fileName   The name of the file.
+     * @param instanceId The ID of this instance, to claim the file first, or null.
+     * @param factory    Creates the processor, given the file name and the directory the file is in.
+     * @return The processor, which returns false if the file failed or was claimed by another instance.
+     */
+    Callable<Boolean> processor(String fileName, String instanceId,
+                                BiFunction<String, String, FlatFileProcessor> factory) {
+        if (instanceId == null) {
+            FlatFileProcessor processor = factory.apply(fileName, directory(input));
+            return () -> {
+                // Returns once the output is published, and the file is pending in the queue until then
+                Boolean processed = processor.call();
+                if (Boolean.TRUE.equals(processed)) {
+                    finishedFiles.add(fileName);
+                    failedFiles.remove(fileName);
+                } else {
+                    String state = ProcessedJournal.state(input.resolve(fileName));
+                    if (state != null) {
+                        failedFiles.put(fileName, state);
+                    }
+                }
+                return processed;
+            };
+        }
+
+        return () -> {
+            Path claimed = claim(fileName, instanceId);
+            if (claimed == null) {
+                logger.debug("File '{}' was claimed by another instance.", fileName);
+                return Boolean.FALSE;
+            }
+
+            // Left claimed until its output is published, so a crash before that resumes it
+            Boolean processed = factory.apply(fileName, directory(claimed.getParent())).call();
+            if (Boolean.TRUE.equals(processed)) {
+                moveToProcessed(claimed);
+            }
+            return processed;
+        };
+    }
+
+    private void moveToProcessed(Path claimed) {
+        try {
+            Path done = Files.createDirectories(input.resolve(PROCESSED_DIRECTORY)).resolve(claimed.getFileName());
+            Files.move(claimed, done, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Error while moving the processed file '{}': {}", claimed, e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a file of the input directory to the processing directory of the instance.
+     *
+     * @return The claimed file, or null if another instance claimed it first.
+     * @throws IOException If the file can't be moved.
+     */
+    Path claim(String fileName, String instanceId) throws IOException {
+        Path claimed = Files.createDirectories(processingDirectory(instanceId)).resolve(fileName);
+        try {
+            Files.move(input.resolve(fileName), claimed, StandardCopyOption.ATOMIC_MOVE);
+            return claimed;
+        } catch (NoSuchFileException e) {
+            // Left claimed by a previous run of this instance, or claimed by another one
+            return Files.exists(claimed) ? claimed : null;
+        }
+    }
+
+    Path processingDirectory(String instanceId) {
+        return input.resolve(PROCESSING_DIRECTORY).resolve(instanceId);
+    }
+
+    /**
+     * Tracks the input files that don't have an up to date output yet and, when claiming, the files left claimed by a
+     * previous run of this instance.
+     *
+     * @param instanceId The ID of this instance, or null.
+     * @throws IOException If the directories can't be listed.
+     */
+    void scan(String instanceId) throws IOException {
+        int queued = 0;
+        // The claimed files first, as the reconciliation only finds the files of the input directory
+        if (instanceId != null && Files.isDirectory(processingDirectory(instanceId))) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(processingDirectory(instanceId),
+                    Main.INPUT_FILE_GLOB)) {
+                for (Path file : files) {
+                    if (Files.isRegularFile(file) && !isProcessed(file) && readinessGate.track(file)) {
+                        queued++;
+                    }
+                }
+            }
+        }
+        queued += reconcile();
+        logger.info("{} existing files queued from the directory '{}'.", queued, input);
+    }
+
+    /**
+     * Tracks the files of the input directory that are not tracked, queued or finished yet and don't have an up to
+     * date output, which the watcher missed. A file that failed is only tracked again once its size or modification
+     * time changed. The listing stops once the readiness gate is full, and the gate reconciles the directory again
+     * when it has room.
+     *
+     * @return How many files were tracked.
+     * @throws IOException If the input directory can't be listed.
+     */
+    int reconcile() throws IOException {
+        Set<String> listed = new HashSet<>();
+        boolean complete = true;
+        int tracked = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(input, Main.INPUT_FILE_GLOB)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                listed.add(fileName);
+                if (finishedFiles.contains(fileName) || readinessGate.isTracked(file)
+                        || (ingestionQueue != null && ingestionQueue.isPending(fileName))
+                        || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                String failedState = failedFiles.get(fileName);
+                if (failedState != null) {
+                    if (failedState.equals(ProcessedJournal.state(file))) {
+                        continue;
+                    }
+                    failedFiles.remove(fileName);
+                }
+
+                if ((journal != null && journal.isCompleted(file)) || isProcessed(file)) {
+                    finishedFiles.add(fileName);
+                } else if (readinessGate.track(file)) {
+                    tracked++;
+                } else {
+                    complete = false;
+                    break;
+                }
+            }
+        }
+        if (complete) {
+            finishedFiles.retainAll(listed);
+            failedFiles.keySet().retainAll(listed);
+        }
+        return tracked;
+    }
+
+    /**
+     * @return Whether the file has an output that is newer than the file.
+     */
+    boolean isProcessed(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        Path outputFile = output.resolve(fileName.substring(0, fileName.lastIndexOf(Main.INPUT_FILE_EXTENSION))
+                + ReportFormat.configured().getExtension());
+        return Files.exists(outputFile)
+                && Files.getLastModifiedTime(outputFile).compareTo(Files.getLastModifiedTime(file)) >= 0;
+    }
+
+    /**
+     * @return The directory as the processors take it, ending with a separator.
+     */
+    static String directory(Path directory) {
+        return directory.toString() + File.separator;
+    }
+
+    @Override
+    public String toString() {
+        return input + " -> " + output;
+    }
+
+}
@@ -0,0 +1,234 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Units sold and revenue per ItemID.
+ * <p>
+ * This is an open-addressing hash table keyed by the numeric ItemID, with the totals kept in parallel {@code long}
+ * arrays in units of {@code 10^-}{@link Money#SCALE}, so adding an item neither boxes the key nor creates a value
+ * object. A total that doesn't fit in a {@code long} moves to a {@link BigDecimal} kept aside for that item only.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+final class ItemTotals {
+
+    private static final long EMPTY = -1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] itemIds;
+
+    private final Column units = new Column();
+
+    private final Column revenue = new Column();
+
+    private int size;
+
+    ItemTotals() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedItems How many distinct items are expected. The table grows when there are more.
+     */
+    ItemTotals(int expectedItems) {
+        int capacity = Integer.highestOneBit(Math.max(expectedItems, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Adds an item sale.
+     *
+     * @param itemId   The ItemID.
+     * @param quantity The units sold.
+     * @param amount   The revenue.
+     */
+    void add(long itemId, Money quantity, Money amount) {
+        int slot = slotFor(itemId);
+        units.add(slot, quantity);
+        revenue.add(slot, amount);
+    }
+
+    /**
+     * Adds all the totals of another table into this one.
+     */
+    void merge(ItemTotals other) {
+        for (int slot = 0; slot < other.itemIds.length; slot++) {
+            if (other.itemIds[slot] != EMPTY) {
+                int target = slotFor(other.itemIds[slot]);
+                units.add(target, other.units, slot);
+                revenue.add(target, other.revenue, slot);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The ItemIDs, sorted.
+     */
+    long[] itemIds() {
+        long[] result = new long[size];
+        int index = 0;
+        for (long itemId : itemIds) {
+            if (itemId != EMPTY) {
+                result[index++] = itemId;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @return The units sold of the item, or null if it was not sold.
+     */
+    BigDecimal getUnits(long itemId) {
+        int slot = find(itemId);
+        return slot < 0 ? null : units.get(slot);
+    }
+
+    /**
+     * @return The revenue of the item, or null if it was not sold.
+     */
+    BigDecimal getRevenue(long itemId) {
+        int slot = find(itemId);
+        return slot < 0 ? null : revenue.get(slot);
+    }
+
+    private int find(long itemId) {
+        int mask = itemIds.length - 1;
+        for (int slot = hash(itemId) & mask; ; slot = (slot + 1) & mask) {
+            long current = itemIds[slot];
+            if (current == itemId) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private int slotFor(long itemId) {
+        int mask = itemIds.length - 1;
+        for (int slot = hash(itemId) & mask; ; slot = (slot + 1) & mask) {
+            long current = itemIds[slot];
+            if (current == itemId) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                if (size + 1 > itemIds.length / 2) {
+                    grow();
+                    return slotFor(itemId);
+                }
+                itemIds[slot] = itemId;
+                size++;
+                return slot;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldItemIds = itemIds;
+        Column oldUnits = units.copy();
+        Column oldRevenue = revenue.copy();
+
+        allocate(oldItemIds.length * 2);
+        size = 0;
+        for (int slot = 0; slot < oldItemIds.length; slot++) {
+            if (oldItemIds[slot] != EMPTY) {
+                int target = slotFor(oldItemIds[slot]);
+                units.add(target, oldUnits, slot);
+                revenue.add(target, oldRevenue, slot);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        itemIds = new long[capacity];
+        Arrays.fill(itemIds, EMPTY);
+        units.allocate(capacity);
+        revenue.allocate(capacity);
+    }
+
+    private static int hash(long itemId) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * A column of exact amounts, kept as {@code long}s while they fit.
+     */
+    private static final class Column {
+
+        private long[] values;
+
+        /**
+         * Amounts that no longer fit in {@link #values}. Only allocated when needed.
+         */
+        private BigDecimal[] exact;
+
+        void allocate(int capacity) {
+            values = new long[capacity];
+            exact = null;
+        }
+
+        Column copy() {
+            Column copy = new Column();
+            copy.values = values;
+            copy.exact = exact;
+            return copy;
+        }
+
+        void add(int slot, Money amount) {
+            if (amount.fitsInLong()) {
+                add(slot, amount.getUnits());
+            } else {
+                addExact(slot, amount.toBigDecimal());
+            }
+        }
+
+        void add(int slot, Column other, int otherSlot) {
+            if (other.exact != null && other.exact[otherSlot] != null) {
+                addExact(slot, other.exact[otherSlot]);
+            } else {
+                add(slot, other.values[otherSlot]);
+            }
+        }
+
+        BigDecimal get(int slot) {
+            if (exact != null && exact[slot] != null) {
+                return exact[slot];
+            }
+            return BigDecimal.valueOf(values[slot], Money.SCALE);
+        }
+
+        private void add(int slot, long value) {
+            if (exact != null && exact[slot] != null) {
+                exact[slot] = exact[slot].add(BigDecimal.valueOf(value, Money.SCALE));
+                return;
+            }
+
+            long current = values[slot];
+            long sum = current + value;
+            if (((current ^ sum) & (value ^ sum)) < 0) {
+                addExact(slot, BigDecimal.valueOf(value, Money.SCALE));
+            } else {
+                values[slot] = sum;
+            }
+        }
+
+        private void addExact(int slot, BigDecimal value) {
+            if (exact == null) {
+                exact = new BigDecimal[values.length];
+            }
+            exact[slot] = get(slot).add(value);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds, in the spirit of HdrHistogram.
+ * <p>
+ * Each power of two is split in {@value #SUB_BUCKETS} linear buckets, so any recorded value is reported with an error
+ * of at most 12.5%, from nanoseconds to centuries, in a few hundred counters. Recording only increments a counter of
+ * an {@link AtomicLongArray} and a few {@link LongAdder}s, so it never locks and can be called from every worker.
+ * Percentiles read the counters without stopping the writers, so they are approximate while values are recorded.
+ *
+ * @author Anderson Araujo.
+ */
+final class LatencyHistogram implements LatencyMXBean {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for every positive {@code long}, whose highest bit is at most 62.
+     */
+    private static final int BUCKETS = (62 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds. Negative values are recorded as zero.
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @param percentile From 0 to 100.
+     * @return The latency in nanoseconds below which that percentage of the recorded values are, or zero if there are
+     * no values.
+     */
+    long getPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMeanMicros() {
+        long total = count.sum();
+        return total == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sum.sum() / total);
+    }
+
+    @Override
+    public long getP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentile(50));
+    }
+
+    @Override
+    public long getP90Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentile(90));
+    }
+
+    @Override
+    public long getP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentile(99));
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(max.get());
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + " mean=" + getMeanMicros() + "us p50=" + getP50Micros() + "us p90="
+                + getP90Micros() + "us p99=" + getP99Micros() + "us max=" + getMaxMicros() + "us";
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} have a bucket each. Above that, the bucket is given by the highest bit of the
+     * value and the {@link #SUB_BUCKET_BITS} bits after it.
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The highest value that falls in the bucket.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * The latencies of a processing stage, as seen through JMX.
+ *
+ * @author Anderson Araujo.
+ */
+public interface LatencyMXBean {
+
+    long getCount();
+
+    long getMeanMicros();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+
+}
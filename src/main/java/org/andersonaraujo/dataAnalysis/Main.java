@@ -4,9 +4,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.*;
-import java.util.concurrent.ExecutorService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class to start the application.
@@ -19,6 +24,13 @@ public class Main {
 
     public static final String INPUT_FILE_EXTENSION = ".dat";
 
+    public static final String COMPRESSED_INPUT_FILE_EXTENSION = INPUT_FILE_EXTENSION + ".gz";
+
+    /**
+     * Glob of the input files, plain and compressed.
+     */
+    static final String INPUT_FILE_GLOB = "*{" + INPUT_FILE_EXTENSION + "," + COMPRESSED_INPUT_FILE_EXTENSION + "}";
+
     public static final String OUTPUT_FILE_EXTENSION = ".done.dat";
 
     static final String ENV_VAR_NAME = "HOMEPATH";
@@ -26,9 +38,48 @@ public class Main {
     static final String ENV_VAR_HOMEPATH_NOT_CREATED_ERROR_MSG = "Environment variable 'HOMEPATH' was not created.";
 
     /**
-     * Thread executor.
+     * The watched input directories, each one with its queue of files to be processed.
+     */
+    private List<InputRoot> inputRoots;
+
+    /**
+     * The ID of this instance, to claim the files of input directories shared with other instances, or null.
+     */
+    private String instanceId;
+
+    /**
+     * Runs the periodic tasks, like flushing the global summary.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * The numbers of every file processed so far.
+     */
+    private GlobalSummary globalSummary;
+
+    /**
+     * The outputs of the files already processed, or null if the cache is disabled.
+     */
+    private ResultCache resultCache;
+
+    /**
+     * Writes the output files on its own thread.
      */
-    private final ExecutorService executor = Executors.newFixedThreadPool(5);
+    private OutputWriter outputWriter;
+
+    /**
+     * The input files processed, so a restart resumes only the unfinished ones.
+     */
+    private ProcessedJournal journal;
+
+    /**
+     * Serves the reports from memory, or null if disabled.
+     */
+    private ReportServer reportServer;
+
+    private volatile WatchService watcher;
+
+    private String fullDataPath;
 
     private String fullInputPath;
 
@@ -36,47 +87,107 @@ public class Main {
 
     public static void main(String[] args) {
 
+        if (args.length > 0 && BatchProcessor.BATCH_OPTION.equals(args[0])) {
+            System.exit(runBatch(args));
+        }
+
         logger.info("Starting Data Analysis application.... ");
 
         new Main().startWatching();
 
     }
 
+    /**
+     * Processes the files given in the arguments once, see {@link BatchProcessor}.
+     *
+     * @return The exit status.
+     */
+    static int runBatch(String[] args) {
+        try {
+            return BatchProcessor.fromArguments(args).run();
+        } catch (IllegalArgumentException e) {
+            logger.error("{} {}", e.getMessage(), BatchProcessor.USAGE);
+            return BatchProcessor.EXIT_USAGE;
+        } catch (IOException e) {
+            logger.error("Error while processing the batch: {}", e.getMessage());
+            return BatchProcessor.EXIT_FAILURES;
+        } catch (InterruptedException e) {
+            logger.error("Batch interrupted.");
+            return BatchProcessor.EXIT_FAILURES;
+        }
+    }
+
     private void startWatching() {
 
         try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            this.watcher = watcher;
 
             setDirectories();
+            startGlobalSummary();
+            startResultCache();
+            startReportServer();
+            journal = ProcessedJournal.open(Paths.get(fullDataPath, ProcessedJournal.FILE_NAME));
+            startIngestionQueue();
+            startMetrics();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "shutdown"));
+
+            Map<WatchKey, InputRoot> watchedRoots = new HashMap<>();
+            for (InputRoot root : inputRoots) {
+                watchedRoots.put(root.getInput().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY), root);
+                logger.info("Starting to watch for new files in the directory '{}'.", root.getInput());
+            }
 
-            Path watchingDir = Paths.get(fullInputPath);
-            watchingDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
-            logger.info("Starting to watch for new files in the directory '{}'.", fullInputPath);
+            // Files created before the watcher was registered
+            scanInputDirectory();
+            startReconciliation();
 
-            while (true) {
+            while (!watchedRoots.isEmpty()) {
                 WatchKey key;
                 try {
                     // wait for a key to be available
                     key = watcher.take();
-                } catch (InterruptedException ex) {
+                } catch (InterruptedException | ClosedWatchServiceException ex) {
                     return;
                 }
+                InputRoot root = watchedRoots.get(key);
+                Path watchingDir = root.getInput();
+                ReadinessGate readinessGate = root.getReadinessGate();
 
+                boolean overflow = false;
                 for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                        continue;
+                    }
+
                     // get file name
                     @SuppressWarnings("unchecked")
                     WatchEvent<Path> ev = (WatchEvent<Path>) event;
                     Path fileName = ev.context();
 
-                    logger.debug("New file '{}' created in the directory '{}'.", fileName, fullInputPath);
+                    if (ev.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                        readinessGate.modified(watchingDir.resolve(fileName));
+                        continue;
+                    }
 
-                    // process create event
-                    executor.submit(new FlatFileProcessor(fileName.toString(), fullInputPath, fullOutputPath));
+                    logger.debug("New file '{}' created in the directory '{}'.", fileName, watchingDir);
+
+                    // process create event once the file is completely written
+                    readinessGate.track(watchingDir.resolve(fileName));
+                }
+
+                if (overflow) {
+                    logger.warn("Events of the directory '{}' were lost. It will be reconciled.", watchingDir);
+                    Metrics.INSTANCE.watchOverflow();
+                    reconcile(root);
                 }
 
                 // IMPORTANT: The key must be reset after processed
                 boolean valid = key.reset();
                 if (!valid) {
-                    break;
+                    logger.warn("Directory '{}' is no longer watched.", watchingDir);
+                    watchedRoots.remove(key);
                 }
             }
 
@@ -85,6 +196,273 @@ public class Main {
         }
     }
 
+    /**
+     * Restores the global summary from its last snapshot and schedules it to be flushed periodically.
+     *
+     * @throws IOException If the snapshot can't be read.
+     */
+    private void startGlobalSummary() throws IOException {
+        globalSummary = GlobalSummary.load(Paths.get(fullOutputPath,
+                GlobalSummary.OUTPUT_BASE_NAME + ReportFormat.configured().getExtension()),
+                Paths.get(fullDataPath, GlobalSummary.SNAPSHOT_FILE_NAME));
+
+        long interval = Settings.getLong(Settings.GLOBAL_FLUSH_INTERVAL, Settings.DEFAULT_GLOBAL_FLUSH_INTERVAL);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                globalSummary.flush();
+            } catch (Exception e) {
+                logger.error("Error while flushing the global summary.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Restores the result cache, if enabled, and schedules it to be flushed with the global summary.
+     *
+     * @throws IOException If the cache file can't be read.
+     */
+    private void startResultCache() throws IOException {
+        int size = Settings.getInt(Settings.RESULT_CACHE_SIZE, 0);
+        if (size <= 0) {
+            return;
+        }
+        resultCache = ResultCache.load(Paths.get(fullDataPath, ResultCache.FILE_NAME), size,
+                ResultCache.configuredOptions());
+
+        long interval = Settings.getLong(Settings.GLOBAL_FLUSH_INTERVAL, Settings.DEFAULT_GLOBAL_FLUSH_INTERVAL);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                resultCache.flush();
+            } catch (Exception e) {
+                logger.error("Error while flushing the result cache.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts serving the reports, if a port is configured.
+     *
+     * @throws IOException If the port can't be bound.
+     */
+    private void startReportServer() throws IOException {
+        int port = Settings.getInt(Settings.REPORT_SERVER_PORT, 0);
+        if (port <= 0) {
+            return;
+        }
+        reportServer = new ReportServer(port,
+                Settings.getInt(Settings.REPORT_SERVER_SIZE, Settings.DEFAULT_REPORT_SERVER_SIZE),
+                ReportFormat.configured(), globalSummary::generateOutput);
+        reportServer.start();
+    }
+
+    /**
+     * Creates the queue of files to be processed of each input root, with the executor strategy, concurrency, queue
+     * depth and scheduling policy from the {@link Settings}, and the writer of their outputs.
+     *
+     * @throws IOException If the directories of the roots can't be created.
+     */
+    private void startIngestionQueue() throws IOException {
+        ExecutorStrategy strategy = ExecutorStrategy.of(
+                Settings.getString(Settings.EXECUTOR_STRATEGY, Settings.DEFAULT_EXECUTOR_STRATEGY));
+        int concurrency = strategy.concurrency(Settings.getInt(Settings.POOL_SIZE, Settings.DEFAULT_POOL_SIZE),
+                Settings.getInt(Settings.CONCURRENCY_LIMIT, Settings.DEFAULT_CONCURRENCY_LIMIT));
+        int queueDepth = Settings.getInt(Settings.QUEUE_DEPTH, Settings.DEFAULT_QUEUE_DEPTH);
+        SchedulingPolicy policy = SchedulingPolicy.of(
+                Settings.getString(Settings.SCHEDULING_POLICY, Settings.DEFAULT_SCHEDULING_POLICY));
+
+        outputWriter = new OutputWriter(
+                Settings.getInt(Settings.OUTPUT_BATCH_SIZE, Settings.DEFAULT_OUTPUT_BATCH_SIZE),
+                Settings.getBoolean(Settings.OUTPUT_SYNC, Settings.DEFAULT_OUTPUT_SYNC));
+
+        long quietPeriod = Settings.getLong(Settings.READINESS_QUIET_PERIOD, Settings.DEFAULT_READINESS_QUIET_PERIOD);
+        instanceId = InputRoot.configuredInstanceId();
+        if (instanceId != null) {
+            logger.info("Claiming the input files as instance '{}'.", instanceId);
+        } else {
+            globalSummary.journalTo(journal);
+        }
+
+        inputRoots = InputRoot.configured(Paths.get(fullInputPath), Paths.get(fullOutputPath));
+        for (InputRoot root : inputRoots) {
+            root.createDirectories();
+            int workers = root.getWorkers() > 0
+                    ? Math.min(root.getWorkers(),
+                    Settings.getInt(Settings.CONCURRENCY_LIMIT, Settings.DEFAULT_CONCURRENCY_LIMIT))
+                    : concurrency;
+            String output = InputRoot.directory(root.getOutput());
+
+            logger.info("Processing {} files of '{}' at a time on {} threads, up to {} queued, in {} order.",
+                    workers, root, strategy, queueDepth, policy);
+            IngestionQueue ingestionQueue = new IngestionQueue(strategy, workers, queueDepth, policy,
+                    fileName -> root.processor(fileName, instanceId,
+                            (name, input) -> new FlatFileProcessor(name, input, output, globalSummary, resultCache,
+                                    outputWriter, reportServer)));
+
+            if (strategy == ExecutorStrategy.ADAPTIVE) {
+                startAdaptiveConcurrency(root, ingestionQueue);
+            }
+
+            // No more files are tracked than the queue takes, the others are tracked as the queue drains
+            ReadinessGate readinessGate = new ReadinessGate(ingestionQueue, quietPeriod,
+                    Settings.getBoolean(Settings.ATOMIC_RENAME), workers + queueDepth);
+            readinessGate.start(scheduler, Math.max(quietPeriod / 2, 50), () -> refill(root));
+            root.start(ingestionQueue, readinessGate, instanceId == null ? journal : null);
+        }
+    }
+
+    /**
+     * Schedules the changes of the workers of a queue of the {@code adaptive} strategy, between the
+     * {@link Settings#MIN_WORKERS} and the concurrency limit, or the workers of the root.
+     */
+    private void startAdaptiveConcurrency(InputRoot root, IngestionQueue ingestionQueue) {
+        if (!ingestionQueue.isMeasured()) {
+            logger.warn("The CPU time of the threads can't be measured, the workers of '{}' won't be changed.",
+                    root.getInput());
+            return;
+        }
+
+        int maxWorkers = root.getWorkers() > 0 ? ingestionQueue.getConcurrency()
+                : Settings.getInt(Settings.CONCURRENCY_LIMIT, Settings.DEFAULT_CONCURRENCY_LIMIT);
+        AdaptiveConcurrency adaptive = new AdaptiveConcurrency(root.getInput().toString(), ingestionQueue,
+                Math.min(Settings.getInt(Settings.MIN_WORKERS, Settings.DEFAULT_MIN_WORKERS), maxWorkers), maxWorkers,
+                Runtime.getRuntime().availableProcessors());
+
+        long interval = Settings.getLong(Settings.ADAPT_INTERVAL, Settings.DEFAULT_ADAPT_INTERVAL);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                adaptive.adapt();
+            } catch (Exception e) {
+                logger.error("Error while changing the workers of '" + root.getInput() + "'.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes the metrics through JMX and schedules them to be written to the data directory.
+     */
+    private void startMetrics() {
+        Metrics metrics = Metrics.INSTANCE;
+        metrics.setGauges(
+                () -> inputRoots.stream().mapToInt(root -> root.getIngestionQueue().getQueueDepth()).sum(),
+                () -> inputRoots.stream().mapToInt(root -> root.getIngestionQueue().getActiveCount()).sum(),
+                () -> inputRoots.stream().mapToInt(root -> root.getReadinessGate().getPendingCount()).sum());
+        metrics.setWorkerLimit(
+                () -> inputRoots.stream().mapToInt(root -> root.getIngestionQueue().getConcurrency()).sum());
+        metrics.register();
+
+        long interval = Settings.getLong(Settings.METRICS_INTERVAL, Settings.DEFAULT_METRICS_INTERVAL);
+        if (interval > 0) {
+            metrics.start(scheduler, Paths.get(fullDataPath, Metrics.FILE_NAME), interval);
+        }
+    }
+
+    /**
+     * Stops the application: stops watching, lets the files being processed finish within the
+     * {@link Settings#SHUTDOWN_TIMEOUT} and writes what is still in memory. The files queued, waiting to be completely
+     * written or interrupted are not in the journal, so they are processed again on the next start.
+     */
+    void shutdown() {
+        logger.info("Stopping Data Analysis application....");
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing the directory watcher: {}", e.getMessage());
+        }
+        scheduler.shutdownNow();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                Settings.getLong(Settings.SHUTDOWN_TIMEOUT, Settings.DEFAULT_SHUTDOWN_TIMEOUT));
+        try {
+            for (InputRoot root : inputRoots) {
+                int dropped = root.getIngestionQueue().drain();
+                if (dropped > 0) {
+                    logger.info("{} queued files of '{}' will be processed on the next start.", dropped,
+                            root.getInput());
+                }
+            }
+            for (InputRoot root : inputRoots) {
+                if (!root.getIngestionQueue().awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    logger.warn("Files of '{}' still being processed are interrupted.", root.getInput());
+                    root.getIngestionQueue().abort();
+                }
+            }
+            outputWriter.close();
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while waiting for the files being processed.");
+        }
+
+        if (reportServer != null) {
+            reportServer.stop();
+        }
+
+        try {
+            globalSummary.flush();
+            if (resultCache != null) {
+                resultCache.flush();
+            }
+            journal.close();
+        } catch (Exception e) {
+            logger.error("Error while stopping Data Analysis application.", e);
+        }
+    }
+
+    /**
+     * Schedules the reconciliation of every input directory, to queue the files the watcher missed.
+     */
+    private void startReconciliation() {
+        long interval = Settings.getLong(Settings.RECONCILE_INTERVAL, Settings.DEFAULT_RECONCILE_INTERVAL);
+        if (interval <= 0) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> inputRoots.forEach(this::reconcile), interval, interval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tracks the files of the input directory of the root that were not tracked while its readiness gate was full.
+     */
+    private void refill(InputRoot root) {
+        try {
+            int tracked = root.reconcile();
+            logger.debug("{} files of the directory '{}' tracked as the queue drained.", tracked, root.getInput());
+        } catch (Exception e) {
+            logger.error("Error while reconciling the directory '" + root.getInput() + "'.", e);
+        }
+    }
+
+    /**
+     * Queues the files of the input directory of the root that the watcher missed.
+     */
+    private void reconcile(InputRoot root) {
+        try {
+            int tracked = root.reconcile();
+            if (tracked > 0) {
+                logger.info("{} files missed by the watcher found in the directory '{}'.", tracked, root.getInput());
+                Metrics.INSTANCE.filesReconciled(tracked);
+            }
+        } catch (Exception e) {
+            logger.error("Error while reconciling the directory '" + root.getInput() + "'.", e);
+        }
+    }
+
+    /**
+     * Queues the input files of every root that don't have an up to date output yet.
+     *
+     * @throws IOException If an input directory can't be listed.
+     */
+    void scanInputDirectory() throws IOException {
+        for (InputRoot root : inputRoots) {
+            root.scan(instanceId);
+        }
+    }
+
+    /**
+     * @return Whether the file name has the extension of a plain or compressed input file.
+     */
+    static boolean isInputFile(String fileName) {
+        return fileName.endsWith(INPUT_FILE_EXTENSION) || CompressedInput.isCompressed(fileName);
+    }
+
     /**
      * Gets the value of the environment variable {Main#ENV_VAR_NAME} defines the input and output directories.
      * <p>
@@ -98,8 +476,9 @@ public class Main {
 
         logger.info("HOMEPATH is '{}'.", homePath);
 
-        fullInputPath = homePath + File.separator + "data" + File.separator + "in" + File.separator;
-        fullOutputPath = homePath + File.separator + "data" + File.separator + "out" + File.separator;
+        fullDataPath = homePath + File.separator + "data" + File.separator;
+        fullInputPath = fullDataPath + "in" + File.separator;
+        fullOutputPath = fullDataPath + "out" + File.separator;
 
         logger.debug("Full input path is '{}'.", fullInputPath);
         logger.debug("Full input path is '{}'.", fullOutputPath);
@@ -0,0 +1,379 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters, gauges and latencies of the file processing.
+ * <p>
+ * The counters are {@link LongAdder}s and the latencies {@link LatencyHistogram}s, so the workers update them without
+ * locking. They are published as MBeans under {@value #DOMAIN} and written to a text file from time to time, with the
+ * rates since the previous write.
+ *
+ * @author Anderson Araujo.
+ */
+final class Metrics implements MetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    static final String FILE_NAME = "metrics.txt";
+
+    private static final String DOMAIN = "org.andersonaraujo.dataAnalysis";
+
+    /**
+     * The metrics of the application.
+     */
+    static final Metrics INSTANCE = new Metrics();
+
+    /**
+     * The stages a file goes through, each with its own latencies.
+     */
+    enum Stage {
+
+        /**
+         * From the file being seen in the input directory until it is queued, which includes the readiness quiet
+         * period.
+         */
+        READINESS,
+
+        /**
+         * From the file being queued until a worker takes it.
+         */
+        QUEUE_WAIT,
+
+        /**
+         * Reading and parsing the file.
+         */
+        PARSE,
+
+        /**
+         * Merging the chunks of the file and merging the file into the global summary.
+         */
+        AGGREGATE,
+
+        /**
+         * Writing the output file.
+         */
+        WRITE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final LongAdder filesProcessed = new LongAdder();
+
+    private final LongAdder filesFailed = new LongAdder();
+
+    private final LongAdder parseErrors = new LongAdder();
+
+    private final LongAdder bytesProcessed = new LongAdder();
+
+    private final LongAdder rejectedLines = new LongAdder();
+
+    private final LongAdder watchOverflows = new LongAdder();
+
+    private final LongAdder reconciledFiles = new LongAdder();
+
+    private final LongAdder workerChanges = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final Map<Stage, LatencyHistogram> latencies = new EnumMap<>(Stage.class);
+
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    private volatile IntSupplier activeWorkers = () -> 0;
+
+    private volatile IntSupplier pendingFiles = () -> 0;
+
+    private volatile IntSupplier workerLimit = () -> 0;
+
+    /**
+     * The counters at the previous dump, to compute the rates.
+     */
+    private long lastDumpNanos = System.nanoTime();
+    private long lastFilesProcessed;
+    private long lastBytesProcessed;
+
+    Metrics() {
+        for (Stage stage : Stage.values()) {
+            latencies.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Counts a file processed successfully.
+     *
+     * @param bytes The size of the file.
+     */
+    void fileProcessed(long bytes) {
+        filesProcessed.increment();
+        bytesProcessed.add(bytes);
+    }
+
+    /**
+     * Counts a file that could not be processed.
+     *
+     * @param parseError Whether the file has an invalid line.
+     */
+    void fileFailed(boolean parseError) {
+        filesFailed.increment();
+        if (parseError) {
+            parseErrors.increment();
+        }
+    }
+
+    /**
+     * Counts the lines skipped by a lenient parse.
+     */
+    void linesRejected(long lines) {
+        rejectedLines.add(lines);
+    }
+
+    /**
+     * Counts the events of an input directory lost by the watcher.
+     */
+    void watchOverflow() {
+        watchOverflows.increment();
+    }
+
+    /**
+     * Counts the files missed by the watcher and found by a reconciliation of the input directories.
+     */
+    void filesReconciled(long files) {
+        reconciledFiles.add(files);
+    }
+
+    /**
+     * Counts a change of the workers of an adaptive queue.
+     */
+    void workersChanged() {
+        workerChanges.increment();
+    }
+
+    /**
+     * Counts a file whose output was found in the result cache.
+     */
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Counts a file whose output was not found in the result cache.
+     */
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /**
+     * Records how long a file took in a stage.
+     */
+    void record(Stage stage, long nanos) {
+        latencies.get(stage).record(nanos);
+    }
+
+    LatencyHistogram getLatency(Stage stage) {
+        return latencies.get(stage);
+    }
+
+    /**
+     * Sets where the gauges are read from.
+     *
+     * @param queueDepth    How many files are waiting for a worker.
+     * @param activeWorkers How many workers are processing a file.
+     * @param pendingFiles  How many files are waiting to be completely written.
+     */
+    void setGauges(IntSupplier queueDepth, IntSupplier activeWorkers, IntSupplier pendingFiles) {
+        this.queueDepth = queueDepth;
+        this.activeWorkers = activeWorkers;
+        this.pendingFiles = pendingFiles;
+    }
+
+    /**
+     * @param workerLimit How many files can be processed at the same time.
+     */
+    void setWorkerLimit(IntSupplier workerLimit) {
+        this.workerLimit = workerLimit;
+    }
+
+    @Override
+    public long getFilesProcessed() {
+        return filesProcessed.sum();
+    }
+
+    @Override
+    public long getFilesFailed() {
+        return filesFailed.sum();
+    }
+
+    @Override
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    @Override
+    public long getBytesProcessed() {
+        return bytesProcessed.sum();
+    }
+
+    @Override
+    public long getRejectedLines() {
+        return rejectedLines.sum();
+    }
+
+    @Override
+    public long getWatchOverflows() {
+        return watchOverflows.sum();
+    }
+
+    @Override
+    public long getReconciledFiles() {
+        return reconciledFiles.sum();
+    }
+
+    @Override
+    public long getWorkerChanges() {
+        return workerChanges.sum();
+    }
+
+    @Override
+    public int getWorkerLimit() {
+        return workerLimit.getAsInt();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getActiveWorkers() {
+        return activeWorkers.getAsInt();
+    }
+
+    @Override
+    public int getPendingFiles() {
+        return pendingFiles.getAsInt();
+    }
+
+    /**
+     * Publishes the metrics in the platform MBean server.
+     */
+    void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=Metrics"), this);
+            for (Stage stage : Stage.values()) {
+                register(server, new ObjectName(DOMAIN + ":type=Latency,stage=" + stage.label()),
+                        latencies.get(stage));
+            }
+        } catch (JMException e) {
+            logger.warn("Metrics could not be published through JMX: {}", e.getMessage());
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if (!server.isRegistered(name)) {
+            server.registerMBean(bean, name);
+        }
+    }
+
+    /**
+     * Schedules the metrics to be written to a file.
+     *
+     * @param scheduler The timer.
+     * @param file      Where the metrics are written.
+     * @param interval  Milliseconds between writes.
+     */
+    void start(ScheduledExecutorService scheduler, Path file, long interval) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                dump(file);
+            } catch (Exception e) {
+                logger.error("Error while writing the metrics.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the metrics to a temporary file and moves it over the previous one.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    void dump(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, generateOutput().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return The metrics as {@code name=value} lines, with the rates since the previous call.
+     */
+    synchronized String generateOutput() {
+        long now = System.nanoTime();
+        long files = getFilesProcessed();
+        long bytes = getBytesProcessed();
+        double seconds = Math.max(now - lastDumpNanos, 1) / 1e9;
+
+        StringBuilder output = new StringBuilder()
+                .append("time=").append(Instant.now()).append('\n')
+                .append("filesProcessed=").append(files).append('\n')
+                .append("filesFailed=").append(getFilesFailed()).append('\n')
+                .append("parseErrors=").append(getParseErrors()).append('\n')
+                .append("bytesProcessed=").append(bytes).append('\n')
+                .append("rejectedLines=").append(getRejectedLines()).append('\n')
+                .append("watchOverflows=").append(getWatchOverflows()).append('\n')
+                .append("reconciledFiles=").append(getReconciledFiles()).append('\n')
+                .append("filesPerSecond=").append(String.format(Locale.ROOT, "%.2f",
+                        (files - lastFilesProcessed) / seconds)).append('\n')
+                .append("bytesPerSecond=").append(String.format(Locale.ROOT, "%.0f",
+                        (bytes - lastBytesProcessed) / seconds)).append('\n')
+                .append("cacheHits=").append(getCacheHits()).append('\n')
+                .append("cacheMisses=").append(getCacheMisses()).append('\n')
+                .append("queueDepth=").append(getQueueDepth()).append('\n')
+                .append("activeWorkers=").append(getActiveWorkers()).append('\n')
+                .append("pendingFiles=").append(getPendingFiles()).append('\n')
+                .append("workerLimit=").append(getWorkerLimit()).append('\n')
+                .append("workerChanges=").append(getWorkerChanges()).append('\n');
+        for (Stage stage : Stage.values()) {
+            output.append("latency.").append(stage.label()).append('=').append(latencies.get(stage)).append('\n');
+        }
+
+        lastDumpNanos = now;
+        lastFilesProcessed = files;
+        lastBytesProcessed = bytes;
+        return output.toString();
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * The counters and gauges of the application, as seen through JMX. The latencies of each stage are published
+ * as {@link LatencyMXBean}s.
+ *
+ * @author Anderson Araujo.
+ */
+public interface MetricsMXBean {
+
+    long getFilesProcessed();
+
+    long getFilesFailed();
+
+    long getParseErrors();
+
+    long getBytesProcessed();
+
+    long getRejectedLines();
+
+    long getWatchOverflows();
+
+    long getReconciledFiles();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    int getQueueDepth();
+
+    int getActiveWorkers();
+
+    int getPendingFiles();
+
+    int getWorkerLimit();
+
+    long getWorkerChanges();
+
+}
@@ -0,0 +1,156 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.math.BigDecimal;
+
+/**
+ * A mutable, exact amount of money.
+ * <p>
+ * The amount is kept as a {@code long} number of units of {@code 10^-SCALE} (cents with the default scale of 2), so
+ * summing prices doesn't create any object. Only when a value has more decimal places than the scale allows, or when
+ * the sum overflows a {@code long}, the amount switches to a {@link BigDecimal}, so results are always exact.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+public final class Money implements Comparable<Money> {
+
+    /**
+     * Number of decimal places kept in the {@code long} representation.
+     */
+    static final int SCALE = scale();
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The amount in units of {@code 10^-SCALE}. Only used while {@link #exact} is null.
+     */
+    private long units;
+
+    /**
+     * The amount, once it no longer fits in {@link #units}.
+     */
+    private BigDecimal exact;
+
+    /**
+     * Adds a decimal value given by its digits.
+     *
+     * @param unscaled       The digits of the value, without the decimal point.
+     * @param fractionDigits How many of those digits are decimal places.
+     */
+    void add(long unscaled, int fractionDigits) {
+        while (fractionDigits > SCALE && unscaled % 10 == 0) {
+            unscaled /= 10;
+            fractionDigits--;
+        }
+        if (fractionDigits <= SCALE) {
+            long multiplier = POWERS_OF_TEN[SCALE - fractionDigits];
+            if (unscaled <= Long.MAX_VALUE / multiplier) {
+                addUnits(unscaled * multiplier);
+                return;
+            }
+        }
+        add(BigDecimal.valueOf(unscaled, fractionDigits));
+    }
+
+    /**
+     * Adds the product of two decimal values given by their digits.
+     */
+    void addProduct(long unscaled, int fractionDigits, long otherUnscaled, int otherFractionDigits) {
+        long product;
+        try {
+            product = Math.multiplyExact(unscaled, otherUnscaled);
+        } catch (ArithmeticException e) {
+            add(BigDecimal.valueOf(unscaled, fractionDigits).multiply(
+                    BigDecimal.valueOf(otherUnscaled, otherFractionDigits)));
+            return;
+        }
+        add(product, fractionDigits + otherFractionDigits);
+    }
+
+    void add(BigDecimal value) {
+        exact = toBigDecimal().add(value);
+        units = 0;
+    }
+
+    void add(Money value) {
+        if (value.exact != null) {
+            add(value.exact);
+        } else {
+            addUnits(value.units);
+        }
+    }
+
+    private void addUnits(long value) {
+        if (exact != null) {
+            exact = exact.add(BigDecimal.valueOf(value, SCALE));
+            return;
+        }
+
+        long sum = units + value;
+        if (((units ^ sum) & (value ^ sum)) < 0) {
+            // Overflow, keep going with BigDecimal
+            exact = BigDecimal.valueOf(units, SCALE).add(BigDecimal.valueOf(value, SCALE));
+            units = 0;
+        } else {
+            units = sum;
+        }
+    }
+
+    void set(Money value) {
+        this.units = value.units;
+        this.exact = value.exact;
+    }
+
+    void clear() {
+        this.units = 0;
+        this.exact = null;
+    }
+
+    /**
+     * @return Whether the amount is held as a {@code long}, returned by {@link #getUnits()}.
+     */
+    boolean fitsInLong() {
+        return exact == null;
+    }
+
+    /**
+     * @return The amount in units of {@code 10^-SCALE}. Only meaningful when {@link #fitsInLong()}.
+     */
+    long getUnits() {
+        return units;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return exact != null ? exact : BigDecimal.valueOf(units, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        if (exact == null && other.exact == null) {
+            return Long.compare(units, other.units);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private static int scale() {
+        int scale = Settings.getInt(Settings.MONEY_SCALE, Settings.DEFAULT_MONEY_SCALE);
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("Setting '" + Settings.MONEY_SCALE + "' must be between 0 and 18.");
+        }
+        return scale;
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * Finds the ID of the most expensive sale ({@code 003}). On ties the first sale of the file is kept.
+ *
+ * @author Anderson Araujo.
+ */
+final class MostExpensiveSaleAnalyzer implements Analyzer<MostExpensiveSaleAnalyzer.State> {
+
+    static final MostExpensiveSaleAnalyzer INSTANCE = new MostExpensiveSaleAnalyzer();
+
+    private MostExpensiveSaleAnalyzer() {
+    }
+
+    @Override
+    public State newState() {
+        return new State();
+    }
+
+    @Override
+    public void appendOutput(State state, StringBuilder output) {
+        FlatFileProcessor.appendLine(output, FlatFileProcessor.OUTPUT_TYPE_EXPENSIVE_SALE,
+                FlatFileProcessor.OUTPUT_MOST_EXPENSIVE_SALE, state.saleId);
+    }
+
+    static final class State implements AnalyzerState<State> {
+
+        private final Money value = new Money();
+
+        private String saleId;
+
+        private State() {
+        }
+
+        @Override
+        public void onSale(SaleRecord sale) {
+            if (sale.getValue().compareTo(value) > 0) {
+                saleId = sale.getSaleId();
+                value.set(sale.getValue());
+            }
+        }
+
+        @Override
+        public void merge(State next) {
+            if (next.value.compareTo(value) > 0) {
+                saleId = next.saleId;
+                value.set(next.value);
+            }
+        }
+
+        /**
+         * @return The ID of the most expensive sale, or null if there are no sales.
+         */
+        String getSaleId() {
+            return saleId;
+        }
+
+        /**
+         * @return The value of the most expensive sale. It must not be changed.
+         */
+        Money getValue() {
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the output files on its own thread, publishing the outputs of the workers in batches.
+ * <p>
+ * The workers encode the outputs straight into pooled buffers, queue them and wait for them to be published. The writer
+ * thread takes the queued outputs in batches: it writes every one of them to a temporary file of its own next to its
+ * output file, and only then, when syncing, forces each temporary file once, so the disk flushes the batch together
+ * instead of waiting on each file between writes. It then moves every temporary file over its output file and forces
+ * each directory once. An output file is therefore always complete when it appears, and a burst of small files pays one
+ * directory sync per batch instead of one per file. Each file still needs a sync of its own, as Java can't sync several
+ * files at once.
+ * <p>
+ * Once the queue is full, {@link #write(Path, CharSequence)} blocks until the writer catches up.
+ *
+ * @author Anderson Araujo.
+ */
+final class OutputWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputWriter.class);
+
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * Makes the temporary files unique, so two outputs of the same file don't write the same temporary file.
+     */
+    private static final AtomicLong TEMP_SEQUENCE = new AtomicLong();
+
+    private static final ThreadLocal<CharsetEncoder> ENCODERS =
+            ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+    private final BlockingQueue<Output> queue;
+
+    /**
+     * The buffers of the outputs written, to be reused.
+     */
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    private final int batchSize;
+
+    private final boolean sync;
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param batchSize How many outputs are published at a time, which is also how many can be queued.
+     * @param sync      Whether the outputs are forced to disk before they are published.
+     */
+    OutputWriter(int batchSize, boolean sync) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Output batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+        this.sync = sync;
+        this.queue = new ArrayBlockingQueue<>(batchSize);
+        this.buffers = new ArrayBlockingQueue<>(2 * batchSize);
+
+        this.writer = new Thread(this::run, "output-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Encodes an output and queues it to be written, waiting while the queue is full.
+     *
+     * @param file    The output file.
+     * @param content The output.
+     * @return Completes once the output file is published.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    CompletableFuture<Void> write(Path file, CharSequence content) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Output writer is closed.");
+        }
+        Output output = new Output(file, encode(content));
+        queue.put(output);
+        return output.published;
+    }
+
+    /**
+     * Writes the outputs still queued and stops the writer thread.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    void close() throws InterruptedException {
+        closed = true;
+        writer.join();
+    }
+
+    /**
+     * @return How many outputs are waiting to be written.
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Encodes the content as UTF-8 into a pooled buffer, or into a buffer of its own if it doesn't fit.
+     */
+    private ByteBuffer encode(CharSequence content) {
+        CharsetEncoder encoder = ENCODERS.get().reset();
+        CharBuffer chars = CharBuffer.wrap(content);
+
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        CoderResult result = encoder.encode(chars, buffer, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(buffer);
+        }
+        if (result.isOverflow()) {
+            buffer.clear();
+            buffers.offer(buffer);
+            buffer = ByteBuffer.allocate((int) Math.ceil(content.length() * encoder.maxBytesPerChar()));
+            encoder.reset().encode(CharBuffer.wrap(content), buffer, true);
+            encoder.flush(buffer);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Runs on the writer thread, publishing the queued outputs until it is closed and the queue is empty.
+     */
+    private void run() {
+        List<Output> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                Output output = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (output == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(output);
+                queue.drainTo(batch, batchSize - 1);
+                publish(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Output writer interrupted, {} outputs were not written.", queue.size() + batch.size());
+        }
+    }
+
+    private void publish(List<Output> batch) {
+        for (Output output : batch) {
+            try {
+                writeTemp(output);
+            } catch (IOException e) {
+                fail(output, e);
+            }
+        }
+        // Every file of the batch is written before the first one is forced
+        for (Output output : batch) {
+            try {
+                closeTemp(output);
+            } catch (IOException e) {
+                fail(output, e);
+            }
+        }
+
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Output output : batch) {
+            if (output.published.isCompletedExceptionally()) {
+                continue;
+            }
+            try {
+                Files.move(output.temp, output.file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                directories.add(output.file.toAbsolutePath().getParent());
+            } catch (IOException e) {
+                fail(output, e);
+            }
+        }
+
+        if (sync) {
+            directories.forEach(OutputWriter::forceDirectory);
+        }
+        for (Output output : batch) {
+            output.published.complete(null);
+        }
+        logger.debug("{} outputs written.", batch.size());
+    }
+
+    /**
+     * Writes the output to its temporary file, which is left open to be forced with the rest of the batch.
+     */
+    private void writeTemp(Output output) throws IOException {
+        try {
+            output.temp = tempFile(output.file);
+            output.channel = FileChannel.open(output.temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            while (output.data.hasRemaining()) {
+                output.channel.write(output.data);
+            }
+        } finally {
+            release(output.data);
+        }
+    }
+
+    private void closeTemp(Output output) throws IOException {
+        if (output.channel == null) {
+            return;
+        }
+        try (FileChannel channel = output.channel) {
+            if (sync && !output.published.isCompletedExceptionally()) {
+                channel.force(false);
+            }
+        }
+    }
+
+    private void release(ByteBuffer buffer) {
+        if (buffer.isDirect() && buffer.capacity() == BUFFER_SIZE) {
+            buffer.clear();
+            buffers.offer(buffer);
+        }
+    }
+
+    private static void fail(Output output, IOException e) {
+        logger.error("Error while writing the output file '{}': {}", output.file, e.getMessage());
+        output.published.completeExceptionally(e);
+        if (output.temp != null) {
+            try {
+                Files.deleteIfExists(output.temp);
+            } catch (IOException deleteError) {
+                logger.warn("Temporary file '{}' could not be deleted: {}", output.temp, deleteError.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Forces the renames in a directory to disk. Not every platform can open a directory, in which case the renames
+     * are left to the file system.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory '{}' could not be synced: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * @return A temporary file next to the file, of a name no other output uses.
+     */
+    private static Path tempFile(Path file) {
+        return file.resolveSibling(file.getFileName() + "." + TEMP_SEQUENCE.incrementAndGet() + TEMP_EXTENSION);
+    }
+
+    /**
+     * Writes a file at once on the calling thread, through a temporary file moved over it, so it is never seen half
+     * written.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = tempFile(file);
+        try {
+            Files.write(temp, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * An encoded output waiting to be written.
+     */
+    private static final class Output {
+
+        private final Path file;
+
+        private final ByteBuffer data;
+
+        private final CompletableFuture<Void> published = new CompletableFuture<>();
+
+        // Used by the writer thread only
+        private Path temp;
+        private FileChannel channel;
+
+        private Output(Path file, ByteBuffer data) {
+            this.file = file;
+            this.data = data;
+        }
+    }
+
+}
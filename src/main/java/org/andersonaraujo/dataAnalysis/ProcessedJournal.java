@@ -0,0 +1,170 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only journal of the input files completely processed, so a restart resumes only the unfinished files.
+ * <p>
+ * Each line is {@code <path>\t<size>\t<modification time>} of a processed file. The lines are appended and forced to
+ * disk once the output of their files is published and their numbers are in the {@link GlobalSummary} snapshot, so a
+ * process killed at any time leaves at worst its last line cut, which is ignored when the journal is read back. A file
+ * is completed while it still has the size and modification time it had when processed, even if its output was taken
+ * away since.
+ * <p>
+ * The journal is compacted when opened: the lines of the files deleted or changed since are dropped.
+ *
+ * @author Anderson Araujo.
+ */
+final class ProcessedJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessedJournal.class);
+
+    static final String FILE_NAME = "processed.journal";
+
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * The size and modification time of each processed file, by its path.
+     */
+    private final Map<String, String> completed = new ConcurrentHashMap<>();
+
+    private final FileChannel channel;
+
+    private ProcessedJournal(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads the journal, compacts it and opens it to append the files processed from now on.
+     *
+     * @param file The journal file, which is created if it doesn't exist.
+     * @return The journal.
+     * @throws IOException If the journal can't be read or written.
+     */
+    static ProcessedJournal open(Path file) throws IOException {
+        Map<String, String> entries = new ConcurrentHashMap<>();
+        int lines = 0;
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    lines++;
+                    int time = line.lastIndexOf(SEPARATOR);
+                    int size = time > 0 ? line.lastIndexOf(SEPARATOR, time - 1) : -1;
+                    if (size > 0) {
+                        entries.put(line.substring(0, size), line.substring(size + 1));
+                    }
+                }
+            }
+        }
+
+        // Files deleted or changed since they were processed
+        entries.entrySet().removeIf(entry -> !entry.getValue().equals(state(Paths.get(entry.getKey()))));
+        StringBuilder compacted = new StringBuilder();
+        entries.forEach((path, state) -> compacted.append(path).append(SEPARATOR).append(state).append('\n'));
+        if (entries.size() < lines) {
+            OutputWriter.writeAtomically(file, compacted.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        logger.info("{} processed files read from the journal '{}'.", entries.size(), file);
+
+        ProcessedJournal journal = new ProcessedJournal(file);
+        journal.completed.putAll(entries);
+        return journal;
+    }
+
+    /**
+     * @return Whether the file was processed and hasn't changed since.
+     */
+    boolean isCompleted(Path file) {
+        String state = completed.get(file.toAbsolutePath().toString());
+        return state != null && state.equals(state(file));
+    }
+
+    /**
+     * Appends a processed file to the journal.
+     *
+     * @param file The file, as it was processed.
+     * @throws IOException If the journal can't be written.
+     */
+    void completed(Path file) throws IOException {
+        completed(Collections.singletonList(file));
+    }
+
+    /**
+     * Appends processed files to the journal, with a single write, and forces them to disk.
+     *
+     * @param files The files, as they were processed. The ones deleted since are skipped.
+     * @throws IOException If the journal can't be written.
+     */
+    void completed(Collection<Path> files) throws IOException {
+        Map<String, String> states = new LinkedHashMap<>();
+        StringBuilder lines = new StringBuilder();
+        for (Path file : files) {
+            String path = file.toAbsolutePath().toString();
+            String state = state(file);
+            if (state != null) {
+                states.put(path, state);
+                lines.append(path).append(SEPARATOR).append(state).append('\n');
+            }
+        }
+        if (states.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        synchronized (channel) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        completed.putAll(states);
+    }
+
+    /**
+     * @return How many processed files the journal has.
+     */
+    int size() {
+        return completed.size();
+    }
+
+    void close() throws IOException {
+        synchronized (channel) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return The size and modification time of the file as written in the journal, or null if it doesn't exist.
+     */
+    static String state(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() + String.valueOf(SEPARATOR) + attributes.lastModifiedTime().toMillis();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not read the attributes of the file '{}': {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds new files back until they are completely written, and only then queues them to be processed.
+ * <p>
+ * A file is ready when its size and modification time haven't changed for the quiet period. The pending files are
+ * checked by a timer, so no worker is tied up while an upload is in flight, and a file that doesn't fit in the
+ * {@link IngestionQueue} yet stays pending until the next check. A file is only read again once the quiet period since
+ * its last known change elapsed, and that change is dated from its modification time, so an upload in flight is not
+ * read on every check.
+ * <p>
+ * At most about {@code capacity} files are pending. Beyond that new files are not tracked, and once half of the
+ * pending files were queued the input directory is reconciled to track them, so a burst of files doesn't fill the
+ * heap.
+ * <p>
+ * Only {@code .dat} files are tracked, so uploads written to another name (for example {@code .tmp}) and then
+ * renamed to {@code .dat} are ignored until the rename. With {@code atomicRename} such files are trusted to be
+ * complete and are queued on the first check.
+ *
+ * @author Anderson Araujo.
+ */
+class ReadinessGate {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadinessGate.class);
+
+    private final IngestionQueue ingestionQueue;
+
+    private final long quietPeriodNanos;
+
+    private final boolean atomicRename;
+
+    private final int capacity;
+
+    /**
+     * The files not ready yet, with their last observed state.
+     */
+    private final Map<Path, Observation> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Whether files were not tracked since the gate was full.
+     */
+    private volatile boolean full;
+
+    /**
+     * Tracks the files that were not tracked while the gate was full, or null.
+     */
+    private volatile Runnable refill;
+
+    /**
+     * Creates a gate without a limit on the pending files.
+     *
+     * @param ingestionQueue The queue the files are handed to once they are ready.
+     * @param quietPeriod    Milliseconds a file must stay unchanged to be ready.
+     * @param atomicRename   Whether {@code .dat} files are only created complete, by renaming them.
+     */
+    ReadinessGate(IngestionQueue ingestionQueue, long quietPeriod, boolean atomicRename) {
+        this(ingestionQueue, quietPeriod, atomicRename, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param ingestionQueue The queue the files are handed to once they are ready.
+     * @param quietPeriod    Milliseconds a file must stay unchanged to be ready.
+     * @param atomicRename   Whether {@code .dat} files are only created complete, by renaming them.
+     * @param capacity       How many files can be pending.
+     */
+    ReadinessGate(IngestionQueue ingestionQueue, long quietPeriod, boolean atomicRename, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.ingestionQueue = ingestionQueue;
+        this.quietPeriodNanos = TimeUnit.MILLISECONDS.toNanos(quietPeriod);
+        this.atomicRename = atomicRename;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Schedules the checks of the pending files.
+     *
+     * @param scheduler The timer.
+     * @param interval  Milliseconds between checks.
+     * @param refill    Tracks the files that were not tracked while the gate was full.
+     */
+    void start(ScheduledExecutorService scheduler, long interval, Runnable refill) {
+        this.refill = refill;
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                check();
+            } catch (Exception e) {
+                logger.error("Error while checking the pending files.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts tracking a new file.
+     *
+     * @param file The file.
+     * @return False if the gate is full, so the file is left to the refill. Files that are not input files are ignored,
+     * and true is returned.
+     */
+    boolean track(Path file) {
+        if (!Main.isInputFile(file.getFileName().toString())) {
+            logger.debug("File '{}' is not an input file. It will be ignored.", file);
+            return true;
+        }
+        if (pending.size() >= capacity && !pending.containsKey(file)) {
+            logger.debug("File '{}' will be tracked once fewer files are pending.", file);
+            full = true;
+            return false;
+        }
+        pending.put(file, new Observation());
+        return true;
+    }
+
+    /**
+     * Notes that a file changed, so its quiet period starts again. Files not being tracked are ignored.
+     *
+     * @param file The file.
+     */
+    void modified(Path file) {
+        pending.computeIfPresent(file, (key, observation) -> new Observation(observation.trackedAt));
+    }
+
+    /**
+     * @return Whether the file is waiting to be ready.
+     */
+    boolean isTracked(Path file) {
+        return pending.containsKey(file);
+    }
+
+    /**
+     * @return How many files are not ready yet.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Queues the files that are ready, then refills the gate if files were not tracked and half of it is free.
+     */
+    void check() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Observation>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Observation> entry = iterator.next();
+            Path file = entry.getKey();
+            Observation observation = entry.getValue();
+            if (!atomicRename && now - observation.changedAt < quietPeriodNanos) {
+                continue;
+            }
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                logger.debug("File '{}' was removed before it was ready.", file);
+                iterator.remove();
+                continue;
+            } catch (IOException e) {
+                logger.warn("Can't read the attributes of file '{}': {}", file, e.getMessage());
+                continue;
+            }
+
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            boolean ready = atomicRename || (size == observation.size && modified == observation.modified);
+
+            if (!ready) {
+                // Changed since it was last read, at its modification time if that is after then and not ahead
+                long changedAt = now - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - modified);
+                changedAt = Math.min(Math.max(changedAt, observation.changedAt), now);
+                pending.replace(file, observation, new Observation(size, modified, changedAt, observation.trackedAt));
+            } else if (ingestionQueue.offer(file)) {
+                logger.debug("File '{}' is ready to be processed.", file);
+                pending.remove(file, observation);
+                Metrics.INSTANCE.record(Metrics.Stage.READINESS, now - observation.trackedAt);
+            }
+        }
+
+        Runnable refill = this.refill;
+        if (full && refill != null && pending.size() <= capacity / 2) {
+            full = false;
+            refill.run();
+        }
+    }
+
+    /**
+     * The size and modification time of a file, when they last changed and when the file started being tracked.
+     */
+    private static final class Observation {
+
+        private final long size;
+        private final long modified;
+        private final long changedAt;
+        private final long trackedAt;
+
+        private Observation() {
+            this(System.nanoTime());
+        }
+
+        private Observation(long trackedAt) {
+            this(-1, -1, System.nanoTime(), trackedAt);
+        }
+
+        private Observation(long size, long modified, long changedAt, long trackedAt) {
+            this.size = size;
+            this.modified = modified;
+            this.changedAt = changedAt;
+            this.trackedAt = trackedAt;
+        }
+    }
+
+}
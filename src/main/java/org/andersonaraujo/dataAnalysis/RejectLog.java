@@ -0,0 +1,291 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the lines rejected by a lenient parse to a {@code .rejects} file, one line per rejected line:
+ * {@code <line number>ç<reason>ç<line>}.
+ * <p>
+ * The parsers only count the rejected lines and queue them; a thread of the log writes them, so a file with many bad
+ * lines is still parsed at full speed. The queue is bounded, so a parser waits if the writer falls behind. The
+ * thread and the file are only created on the first rejected line.
+ * <p>
+ * A file parsed in chunks numbers the lines of each chunk from its start. The rejected lines of a chunk are held
+ * until every chunk before it is done, so they can be written with their line number in the file.
+ *
+ * @author Anderson Araujo.
+ */
+final class RejectLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectLog.class);
+
+    /**
+     * The directory of the {@code .rejects} files, next to the output directory.
+     */
+    static final String DIRECTORY_NAME = "error";
+
+    static final String FILE_EXTENSION = ".rejects";
+
+    /**
+     * Rejected lines longer than this amount of characters are cut.
+     */
+    static final int MAX_LINE_LENGTH = 4096;
+
+    private static final int QUEUE_SIZE = 1024;
+
+    private static final String DELIMITER = "ç";
+
+    private static final Entry END = new Entry(-1, 0, null, null);
+
+    private final Path file;
+
+    private final long maxRejects;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+    private Thread writer;
+
+    private volatile boolean closed;
+
+    private volatile IOException failure;
+
+    /**
+     * How many lines each chunk completely parsed has. Filled by the chunks done before the writer thread starts, then
+     * only by the writer thread as it takes the done markers from the queue.
+     */
+    private final Map<Integer, Long> chunkLines = new HashMap<>();
+
+    /**
+     * Used by the writer thread: the lines before each chunk, known up to the first chunk not done yet.
+     */
+    private final Map<Integer, Long> firstLines = new HashMap<>();
+    private int firstUnfinished;
+
+    /**
+     * @param file       The {@code .rejects} file. A file left by a previous parse of the same input is deleted.
+     * @param maxRejects The most lines rejected before the parse fails.
+     * @throws IOException If the previous file can't be deleted.
+     */
+    RejectLog(Path file, long maxRejects) throws IOException {
+        this.file = file;
+        this.maxRejects = maxRejects;
+        this.firstLines.put(0, 0L);
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * @param index The position of the chunk in the file, from zero.
+     * @return Where the parser of the chunk reports its rejected lines.
+     */
+    Chunk chunk(int index) {
+        return new Chunk(index);
+    }
+
+    /**
+     * @return How many lines were rejected so far.
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Writes the rejected lines still queued and closes the file.
+     *
+     * @throws IOException          If the file could not be written.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    void close() throws IOException, InterruptedException {
+        Thread started;
+        synchronized (this) {
+            closed = true;
+            started = writer;
+        }
+        if (started != null) {
+            queue.put(END);
+            started.join();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void queue(Entry entry) {
+        synchronized (this) {
+            if (writer == null && !closed) {
+                writer = new Thread(this::run, "rejects-" + file.getFileName());
+                writer.setDaemon(true);
+                writer.start();
+            }
+        }
+        try {
+            // The writer is gone once closed, so chunks still running after a failure don't wait for it
+            while (!queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs on the writer thread, writing the rejected lines of each chunk once the line number it starts at is known.
+     */
+    private void run() {
+        Map<Integer, List<Entry>> pending = new TreeMap<>();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (Entry entry = queue.take(); entry != END; entry = queue.take()) {
+                    if (entry.isDone()) {
+                        chunkLines.put(entry.chunk, entry.line);
+                    } else {
+                        pending.computeIfAbsent(entry.chunk, chunk -> new ArrayList<>()).add(entry);
+                    }
+                    writeNumbered(out, pending);
+                }
+                writeNumbered(out, pending);
+
+                // Chunks after a failed one never get their line number in the file
+                for (List<Entry> held : pending.values()) {
+                    for (Entry entry : held) {
+                        write(out, "?", entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error while writing the rejected lines to '{}': {}", file, e.getMessage());
+            failure = e;
+            closed = true;
+            queue.clear();
+        } catch (InterruptedException e) {
+            logger.warn("Writer of the rejected lines to '{}' interrupted.", file);
+        }
+    }
+
+    /**
+     * Writes the held rejected lines of the chunks, in order, up to the first one whose line number in the file is
+     * not known yet.
+     */
+    private void writeNumbered(Writer out, Map<Integer, List<Entry>> pending) throws IOException {
+        while (chunkLines.containsKey(firstUnfinished)) {
+            firstLines.put(firstUnfinished + 1, firstLines.get(firstUnfinished) + chunkLines.get(firstUnfinished));
+            firstUnfinished++;
+        }
+
+        Iterator<Map.Entry<Integer, List<Entry>>> chunks = pending.entrySet().iterator();
+        while (chunks.hasNext()) {
+            Map.Entry<Integer, List<Entry>> chunk = chunks.next();
+            Long base = firstLines.get(chunk.getKey());
+            if (base == null) {
+                return;
+            }
+            for (Entry entry : chunk.getValue()) {
+                write(out, Long.toString(base + entry.line), entry);
+            }
+            chunks.remove();
+        }
+    }
+
+    private static void write(Writer out, String line, Entry entry) throws IOException {
+        out.append(line).append(DELIMITER).append(entry.reason).append(DELIMITER).append(entry.text).append('\n');
+    }
+
+    /**
+     * Where the parser of a chunk of the file reports its rejected lines.
+     */
+    final class Chunk {
+
+        private final int index;
+
+        private Chunk(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Counts and queues a rejected line.
+         *
+         * @param line   The number of the line in the chunk, from one.
+         * @param reason Why the line was rejected.
+         * @param buffer The bytes of the line.
+         * @param start  Position of the first byte of the line.
+         * @param end    Position after the last byte of the line.
+         * @throws IllegalArgumentException If more lines than allowed were rejected.
+         */
+        void reject(long line, String reason, ByteBuffer buffer, int start, int end) {
+            String text = DatFileParser.decode(buffer, start, Math.min(end, start + MAX_LINE_LENGTH));
+            queue(new Entry(index, line, reason, text));
+
+            long rejected = count.incrementAndGet();
+            if (rejected > maxRejects) {
+                throw new IllegalArgumentException("More than " + maxRejects + " lines rejected.");
+            }
+        }
+
+        /**
+         * Tells the log the chunk was completely parsed, so the rejected lines of the next chunks can be numbered.
+         * <p>
+         * Once the writer is started, this goes through the queue behind the rejected lines of the chunk, so they are
+         * all written before the lines of the next chunks.
+         *
+         * @param lines How many lines the chunk has.
+         */
+        void done(long lines) {
+            synchronized (RejectLog.this) {
+                if (writer == null) {
+                    // No line rejected yet, so none of this chunk is queued
+                    chunkLines.put(index, lines);
+                    return;
+                }
+            }
+            queue(new Entry(index, lines, null, null));
+        }
+    }
+
+    /**
+     * A rejected line, or the marker of a chunk done, with its amount of lines and no reason.
+     */
+    private static final class Entry {
+
+        private final int chunk;
+
+        private final long line;
+
+        private final String reason;
+
+        private final String text;
+
+        private Entry(int chunk, long line, String reason, String text) {
+            this.chunk = chunk;
+            this.line = line;
+            this.reason = reason;
+            this.text = text;
+        }
+
+        private boolean isDone() {
+            return reason == null;
+        }
+    }
+
+}
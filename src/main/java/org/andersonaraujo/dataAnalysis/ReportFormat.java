@@ -0,0 +1,190 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * How the reports are written, to the output files and by the {@link ReportServer}.
+ * <p>
+ * The reports are computed as the text format, one {@code ç} delimited line per record, which is also what the
+ * {@link ResultCache} keeps. The other formats are encoded from it one record at a time, as each record is
+ * {@code <type>ç<name>ç<values...>}. The reports are a few lines per file, so the encoded report is built in memory
+ * before it is written.
+ *
+ * @author Anderson Araujo.
+ */
+enum ReportFormat {
+
+    /**
+     * The {@code ç} delimited lines, as they are computed.
+     */
+    TEXT(Main.OUTPUT_FILE_EXTENSION, "text/plain; charset=UTF-8") {
+        @Override
+        void encode(CharSequence report, Appendable output) throws IOException {
+            output.append(report);
+        }
+
+        @Override
+        String encode(CharSequence report) {
+            return report.toString();
+        }
+    },
+
+    /**
+     * An array with an object per record: {@code {"type":"001","name":"AmountClients","values":["2"]}}.
+     */
+    JSON(".done.json", "application/json; charset=UTF-8") {
+        @Override
+        void encode(CharSequence report, Appendable output) throws IOException {
+            output.append('[');
+            boolean[] first = {true};
+            forEachRecord(report, fields -> {
+                output.append(first[0] ? "\n" : ",\n").append("{\"type\":");
+                first[0] = false;
+                appendJson(output, fields[0]);
+                output.append(",\"name\":");
+                appendJson(output, fields.length > 1 ? fields[1] : "");
+                output.append(",\"values\":[");
+                for (int index = 2; index < fields.length; index++) {
+                    if (index > 2) {
+                        output.append(',');
+                    }
+                    appendJson(output, fields[index]);
+                }
+                output.append("]}");
+            });
+            output.append("\n]\n");
+        }
+    },
+
+    /**
+     * A row per record: {@code type,name,values...}, quoted as in RFC 4180 when needed.
+     */
+    CSV(".done.csv", "text/csv; charset=UTF-8") {
+        @Override
+        void encode(CharSequence report, Appendable output) throws IOException {
+            forEachRecord(report, fields -> {
+                for (int index = 0; index < fields.length; index++) {
+                    if (index > 0) {
+                        output.append(',');
+                    }
+                    appendCsv(output, fields[index]);
+                }
+                output.append("\r\n");
+            });
+        }
+    };
+
+    private static final String DELIMITER = "ç";
+
+    private final String extension;
+
+    private final String contentType;
+
+    ReportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Writes a text report in this format.
+     *
+     * @param report The {@code ç} delimited lines.
+     * @param output Where the encoded report is appended.
+     * @throws IOException If the output can't be written.
+     */
+    abstract void encode(CharSequence report, Appendable output) throws IOException;
+
+    /**
+     * @return The text report in this format.
+     */
+    String encode(CharSequence report) {
+        StringBuilder output = new StringBuilder(report.length() * 2);
+        try {
+            encode(report, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toString();
+    }
+
+    /**
+     * @return The extension of the output files, like {@code .done.dat}.
+     */
+    String getExtension() {
+        return extension;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The format of the {@link Settings}.
+     */
+    static ReportFormat configured() {
+        return of(Settings.getString(Settings.REPORT_FORMAT, Settings.DEFAULT_REPORT_FORMAT));
+    }
+
+    /**
+     * @param name The format name, case insensitive.
+     * @return The format.
+     * @throws IllegalArgumentException If there is no format with the name.
+     */
+    static ReportFormat of(String name) {
+        for (ReportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report format '" + name + "'.");
+    }
+
+    private static void forEachRecord(CharSequence report, RecordConsumer consumer) throws IOException {
+        int start = 0;
+        int length = report.length();
+        while (start < length) {
+            int end = start;
+            while (end < length && report.charAt(end) != '\n') {
+                end++;
+            }
+            if (end > start) {
+                consumer.accept(report.subSequence(start, end).toString().split(DELIMITER, -1));
+            }
+            start = end + 1;
+        }
+    }
+
+    private static void appendJson(Appendable output, String value) throws IOException {
+        output.append('"');
+        for (int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            if (c == '"' || c == '\\') {
+                output.append('\\').append(c);
+            } else if (c < 0x20) {
+                output.append(String.format("\\u%04x", (int) c));
+            } else {
+                output.append(c);
+            }
+        }
+        output.append('"');
+    }
+
+    private static void appendCsv(Appendable output, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            output.append(value);
+            return;
+        }
+        output.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Receives the fields of each record of a report.
+     */
+    private interface RecordConsumer {
+
+        void accept(String[] fields) throws IOException;
+    }
+
+}
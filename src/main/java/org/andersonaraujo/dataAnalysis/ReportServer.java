@@ -0,0 +1,187 @@
+package org.andersonaraujo.dataAnalysis;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serves the reports of the latest files processed and the global report from memory, over HTTP on the loopback
+ * address, so consumers don't need to scan the output directory and parse the files:
+ * <ul>
+ * <li>{@code GET /reports}: the names of the files with a report, oldest first;</li>
+ * <li>{@code GET /reports/<file name>}: the report of a file;</li>
+ * <li>{@code GET /global}: the global report.</li>
+ * </ul>
+ * The reports are in the configured {@link ReportFormat}, or the one of the {@code format} query parameter, like
+ * {@code /global?format=json}. Only the most recent reports are kept, up to the configured amount.
+ *
+ * @author Anderson Araujo.
+ */
+final class ReportServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportServer.class);
+
+    static final String REPORTS_PATH = "/reports";
+
+    static final String GLOBAL_PATH = "/global";
+
+    private static final String FORMAT_PARAMETER = "format=";
+
+    private final HttpServer server;
+
+    private final ReportFormat defaultFormat;
+
+    private final Supplier<String> globalReport;
+
+    /**
+     * The text report of each file, by its name, the most recent last.
+     */
+    private final Map<String, String> reports = new LinkedHashMap<>();
+
+    private final int maxReports;
+
+    /**
+     * @param port          The port to listen to, or zero for any free port.
+     * @param maxReports    How many reports of files are kept.
+     * @param defaultFormat The format of the reports when none is asked for.
+     * @param globalReport  Gives the text of the global report.
+     * @throws IOException If the port can't be bound.
+     */
+    ReportServer(int port, int maxReports, ReportFormat defaultFormat, Supplier<String> globalReport)
+            throws IOException {
+        this.defaultFormat = defaultFormat;
+        this.globalReport = globalReport;
+        this.maxReports = maxReports;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(REPORTS_PATH, this::handleReports);
+        server.createContext(GLOBAL_PATH, this::handleGlobal);
+    }
+
+    void start() {
+        server.start();
+        logger.info("Serving the reports on http://{}:{}.", server.getAddress().getHostString(), getPort());
+    }
+
+    /**
+     * Stops serving, waiting up to one second for the requests being answered.
+     */
+    void stop() {
+        server.stop(1);
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Keeps the report of a file processed, replacing the previous one of a file with the same name.
+     *
+     * @param fileName The name of the input file.
+     * @param report   The text report.
+     */
+    void publish(String fileName, String report) {
+        synchronized (reports) {
+            reports.remove(fileName);
+            reports.put(fileName, report);
+            Iterator<String> oldest = reports.keySet().iterator();
+            while (reports.size() > maxReports) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+    }
+
+    private void handleReports(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange)) {
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals(REPORTS_PATH) || path.equals(REPORTS_PATH + "/")) {
+            List<String> fileNames;
+            synchronized (reports) {
+                fileNames = new ArrayList<>(reports.keySet());
+            }
+            StringBuilder body = new StringBuilder();
+            for (String fileName : fileNames) {
+                body.append(fileName).append('\n');
+            }
+            send(exchange, 200, ReportFormat.TEXT.getContentType(), body.toString());
+            return;
+        }
+
+        String fileName = URLDecoder.decode(path.substring(REPORTS_PATH.length() + 1), "UTF-8");
+        String report;
+        synchronized (reports) {
+            report = reports.get(fileName);
+        }
+        if (report == null) {
+            send(exchange, 404, ReportFormat.TEXT.getContentType(), "No report of the file '" + fileName + "'.\n");
+            return;
+        }
+        sendReport(exchange, report);
+    }
+
+    private void handleGlobal(HttpExchange exchange) throws IOException {
+        if (isGet(exchange)) {
+            sendReport(exchange, globalReport.get());
+        }
+    }
+
+    private boolean isGet(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", "GET");
+        send(exchange, 405, ReportFormat.TEXT.getContentType(), "Only GET is supported.\n");
+        return false;
+    }
+
+    private void sendReport(HttpExchange exchange, String report) throws IOException {
+        ReportFormat format;
+        try {
+            format = format(exchange.getRequestURI().getQuery());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, ReportFormat.TEXT.getContentType(), e.getMessage() + "\n");
+            return;
+        }
+        send(exchange, 200, format.getContentType(), format.encode(report));
+    }
+
+    private ReportFormat format(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(FORMAT_PARAMETER)) {
+                    return ReportFormat.of(parameter.substring(FORMAT_PARAMETER.length()));
+                }
+            }
+        }
+        return defaultFormat;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+}
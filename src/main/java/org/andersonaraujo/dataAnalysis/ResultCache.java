@@ -0,0 +1,353 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outputs of the files already processed, by the content of the file, so a file sent again under another name
+ * gets its output without being parsed.
+ * <p>
+ * A file is identified by its size and a 64 bits hash of its bytes. Hashing still reads the whole file, so the hash of
+ * each file seen is also kept by its path, size and modification time, and a file that is unchanged since it was
+ * hashed is not read again. Both maps keep the most recently used entries, up to the size of the cache.
+ * <p>
+ * The cache is written to a file by {@link #flush()} and read back by {@link #load(Path, int, String)} on the next
+ * start. The outputs depend on the settings of the report, so the cache is discarded if they changed.
+ *
+ * @author Anderson Araujo.
+ */
+final class ResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    static final String FILE_NAME = "result.cache";
+
+    private static final int MAGIC = 0x44415243;
+    private static final int VERSION = 1;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final long MULTIPLIER_1 = 0x87C37B91114253D5L;
+    private static final long MULTIPLIER_2 = 0x4CF5AD432745937FL;
+
+    private final Path file;
+
+    private final String options;
+
+    private final LruMap<Key, String> outputs;
+
+    private final LruMap<String, FileState> states;
+
+    /**
+     * Counts the changes, so flushes can be skipped when nothing changed.
+     */
+    private long version;
+
+    private long flushedVersion;
+
+    /**
+     * @param file       Where the cache is written.
+     * @param maxEntries How many outputs are kept.
+     * @param options    The settings the outputs depend on.
+     */
+    ResultCache(Path file, int maxEntries, String options) {
+        this.file = file;
+        this.options = options;
+        this.outputs = new LruMap<>(maxEntries);
+        this.states = new LruMap<>(maxEntries);
+    }
+
+    /**
+     * Creates a cache, restoring its entries from the file if there is one written with the same options.
+     *
+     * @param file       Where the cache is read from and written to.
+     * @param maxEntries How many outputs are kept.
+     * @param options    The settings the outputs depend on.
+     * @return The cache.
+     * @throws IOException If the file exists but can't be read.
+     */
+    static ResultCache load(Path file, int maxEntries, String options) throws IOException {
+        ResultCache cache = new ResultCache(file, maxEntries, options);
+        if (Files.exists(file)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                cache.read(input);
+            }
+            logger.info("{} cached results restored from '{}'.", cache.size(), file);
+        }
+        return cache;
+    }
+
+    /**
+     * @return The settings the outputs depend on, from the {@link Settings}. The report format is not one of them, as
+     * the outputs are cached before they are encoded.
+     */
+    static String configuredOptions() {
+        return Settings.ITEM_REPORT + '=' + Settings.getBoolean(Settings.ITEM_REPORT)
+                + ',' + Settings.SALESMAN_RANKING + '=' + Settings.getInt(Settings.SALESMAN_RANKING, 0)
+                + ',' + Settings.DISTINCT_COUNT + '=' + DistinctCountMode.configured()
+                + ',' + Settings.HYPER_LOG_LOG_PRECISION + '='
+                + Settings.getInt(Settings.HYPER_LOG_LOG_PRECISION, Settings.DEFAULT_HYPER_LOG_LOG_PRECISION)
+                + ',' + Settings.LENIENT_PARSING + '=' + Settings.getBoolean(Settings.LENIENT_PARSING)
+                + ',' + Settings.MONEY_SCALE + '=' + Settings.getInt(Settings.MONEY_SCALE, Settings.DEFAULT_MONEY_SCALE)
+                + ",analyzers=" + analyzerNames();
+    }
+
+    private static String analyzerNames() {
+        StringBuilder names = new StringBuilder();
+        for (Analyzer<?> analyzer : Analyzers.plugins()) {
+            names.append(names.length() == 0 ? "" : ";").append(analyzer.getClass().getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Identifies the content of a file, hashing it unless it is unchanged since it was last hashed.
+     *
+     * @param path The file.
+     * @return The key of the file content.
+     * @throws IOException If the file can't be read.
+     */
+    Key key(Path path) throws IOException {
+        String name = path.toAbsolutePath().toString();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        synchronized (this) {
+            FileState state = states.get(name);
+            if (state != null && state.key.size == size && state.modified == modified) {
+                return state.key;
+            }
+        }
+
+        Key key = new Key(hash(path), size);
+        synchronized (this) {
+            states.put(name, new FileState(key, modified));
+            version++;
+        }
+        return key;
+    }
+
+    /**
+     * @return The output of a file with the content, or null if there is none.
+     */
+    synchronized String get(Key key) {
+        return outputs.get(key);
+    }
+
+    /**
+     * Keeps the output of a file with the content.
+     */
+    synchronized void put(Key key, String output) {
+        outputs.put(key, output);
+        version++;
+    }
+
+    synchronized int size() {
+        return outputs.size();
+    }
+
+    /**
+     * Writes the cache to a temporary file and moves it over the previous one, if it changed since the last flush.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    synchronized void flush() throws IOException {
+        if (version == flushedVersion) {
+            return;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            write(output);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        flushedVersion = version;
+        logger.debug("Result cache flushed to '{}'.", file);
+    }
+
+    /**
+     * Writes the entries from the least to the most recently used, so they are read back in the same order.
+     */
+    private void write(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeUTF(options);
+
+        output.writeInt(outputs.size());
+        for (Map.Entry<Key, String> entry : outputs.entrySet()) {
+            output.writeLong(entry.getKey().hash);
+            output.writeLong(entry.getKey().size);
+            byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        output.writeInt(states.size());
+        for (Map.Entry<String, FileState> entry : states.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeLong(entry.getValue().key.hash);
+            output.writeLong(entry.getValue().key.size);
+            output.writeLong(entry.getValue().modified);
+        }
+    }
+
+    private void read(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("File '" + file + "' is not a result cache.");
+        }
+        int fileVersion = input.readInt();
+        if (fileVersion != VERSION) {
+            throw new IOException("Result cache '" + file + "' has the unknown version " + fileVersion + ".");
+        }
+        String fileOptions = input.readUTF();
+        if (!options.equals(fileOptions)) {
+            logger.info("Result cache '{}' was written with other settings ({}), it will be discarded.", file,
+                    fileOptions);
+            return;
+        }
+
+        int amount = input.readInt();
+        for (int i = 0; i < amount; i++) {
+            Key key = new Key(input.readLong(), input.readLong());
+            byte[] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            outputs.put(key, new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        amount = input.readInt();
+        for (int i = 0; i < amount; i++) {
+            String name = input.readUTF();
+            Key key = new Key(input.readLong(), input.readLong());
+            states.put(name, new FileState(key, input.readLong()));
+        }
+    }
+
+    /**
+     * A 64 bits hash of the bytes of a file, read 8 bytes at a time and mixed as in MurmurHash3.
+     */
+    static long hash(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long hash = 0;
+        long length = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                length += buffer.remaining();
+                while (buffer.remaining() >= 8) {
+                    hash = mix(hash, buffer.getLong());
+                }
+                buffer.compact();
+            }
+        }
+
+        buffer.flip();
+        long tail = 0;
+        for (int shift = 0; buffer.hasRemaining(); shift += 8) {
+            tail |= (buffer.get() & 0xFFL) << shift;
+        }
+        hash = mix(hash, tail) ^ length;
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mix(long hash, long word) {
+        word *= MULTIPLIER_1;
+        word = Long.rotateLeft(word, 31);
+        word *= MULTIPLIER_2;
+        hash ^= word;
+        return Long.rotateLeft(hash, 27) * 5 + 0x52DCE729;
+    }
+
+    /**
+     * The size and hash of a file content.
+     */
+    static final class Key {
+
+        private final long hash;
+
+        private final long size;
+
+        Key(long hash, long size) {
+            this.hash = hash;
+            this.size = size;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && size == key.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    /**
+     * The key of a file when it was last hashed, with its modification time.
+     */
+    private static final class FileState {
+
+        private final Key key;
+
+        private final long modified;
+
+        private FileState(Key key, long modified) {
+            this.key = key;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * A map in access order that drops its least recently used entry once it is full.
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        private LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+}
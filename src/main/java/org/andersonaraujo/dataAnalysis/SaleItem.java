@@ -0,0 +1,68 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An item of a sales line ({@code ItemID-ItemQuantity-ItemPrice}) as seen by {@link DatFileParser}.
+ * <p>
+ * Like {@link SaleRecord}, this is a flyweight reused by the parser from one sale to the next.
+ *
+ * @author Anderson Araujo.
+ */
+public final class SaleItem {
+
+    private ByteBuffer buffer;
+
+    private int itemIdStart;
+    private int itemIdEnd;
+
+    private final Money quantity = new Money();
+
+    private final Money revenue = new Money();
+
+    void set(ByteBuffer buffer, int itemIdStart, int itemIdEnd) {
+        this.buffer = buffer;
+        this.itemIdStart = itemIdStart;
+        this.itemIdEnd = itemIdEnd;
+    }
+
+    /**
+     * @return The ItemID, which must be a number of up to 18 digits.
+     * @throws IllegalArgumentException If the ItemID is not a number.
+     */
+    public long getItemId() {
+        long itemId = 0;
+        int digits = 0;
+        for (int index = itemIdStart; index >= 0 && index < itemIdEnd; index++) {
+            byte current = buffer.get(index);
+            if (current == '[' || current == ']') {
+                continue;
+            }
+            if (current < '0' || current > '9' || digits == 18) {
+                throw new IllegalArgumentException("ItemID '" + DatFileParser.decode(buffer, itemIdStart, itemIdEnd)
+                        + "' is not a number.");
+            }
+            itemId = itemId * 10 + (current - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Item without ItemID.");
+        }
+        return itemId;
+    }
+
+    /**
+     * @return The ItemQuantity.
+     */
+    public Money getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return The ItemQuantity times the ItemPrice.
+     */
+    public Money getRevenue() {
+        return revenue;
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A sales line ({@code 003}) as seen by {@link DatFileParser}.
+ * <p>
+ * This is a flyweight: the parser fills the same instance for every sales line and the sale ID and salesman name
+ * are only decoded into {@link String}s when they are requested.
+ *
+ * @author Anderson Araujo.
+ */
+public final class SaleRecord {
+
+    private ByteBuffer buffer;
+
+    private int saleIdStart;
+    private int saleIdEnd;
+
+    private int salesmanStart;
+    private int salesmanEnd;
+
+    private Money value;
+
+    private SaleItem[] items;
+    private int itemCount;
+
+    private long offset;
+
+    void set(ByteBuffer buffer, int saleIdStart, int saleIdEnd, int salesmanStart, int salesmanEnd,
+             Money value, SaleItem[] items, int itemCount, long offset) {
+        this.buffer = buffer;
+        this.saleIdStart = saleIdStart;
+        this.saleIdEnd = saleIdEnd;
+        this.salesmanStart = salesmanStart;
+        this.salesmanEnd = salesmanEnd;
+        this.value = value;
+        this.items = items;
+        this.itemCount = itemCount;
+        this.offset = offset;
+    }
+
+    /**
+     * @return The sale ID, decoded from the input.
+     */
+    public String getSaleId() {
+        return DatFileParser.decode(buffer, saleIdStart, saleIdEnd);
+    }
+
+    /**
+     * @return The salesman name, decoded from the input.
+     */
+    public String getSalesman() {
+        return DatFileParser.decode(buffer, salesmanStart, salesmanEnd);
+    }
+
+    /**
+     * @return The ID of the salesman in the dictionary, looked up from the input without decoding the name.
+     */
+    int salesmanId(SalesmanDictionary dictionary) {
+        return dictionary.id(buffer, salesmanStart, salesmanEnd);
+    }
+
+    /**
+     * @return The sum of the item quantities times their prices. The instance is reused by the parser, so it must be
+     * copied to be kept.
+     */
+    public Money getValue() {
+        return value;
+    }
+
+    /**
+     * @return The amount of items of this sale.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @param index The item index, from 0 to {@link #getItemCount()} (exclusive).
+     * @return The item. The instance is reused by the parser.
+     */
+    public SaleItem getItem(int index) {
+        return items[index];
+    }
+
+    /**
+     * @return The position in the file where this line starts. It follows the file order.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.util.List;
+
+/**
+ * Holds the numbers computed from a flat file, or from a part of it.
+ * <p>
+ * The numbers are the states of the {@link Analyzer}s: the default ones, behind the records {@code 001} to
+ * {@code 004}, and the ones found by {@link Analyzers#plugins()}. Each record of the file is handed to every state.
+ * <p>
+ * When a file is split in chunks each chunk fills its own summary, and the summaries are merged in file order with
+ * {@link #merge(SalesSummary)}, so the result is the same as parsing the whole file at once.
+ *
+ * @author Anderson Araujo.
+ */
+class SalesSummary implements DatRecordHandler {
+
+    private final DistinctCountAnalyzer clientsAnalyzer;
+
+    private final DistinctCountAnalyzer salesmenAnalyzer;
+
+    /**
+     * Counts the Client's CNPJs.
+     */
+    private final DistinctCountAnalyzer.State clients;
+
+    /**
+     * Counts the Salesman's CPFs.
+     */
+    private final DistinctCountAnalyzer.State salesmen;
+
+    /**
+     * Holds the ID and the value of the most expensive sale.
+     */
+    private final MostExpensiveSaleAnalyzer.State mostExpensiveSale;
+
+    /**
+     * Holds the sum of sales of each salesman.
+     */
+    private final WorstSalesmanAnalyzer.State worstSalesman;
+
+    /**
+     * Holds the units sold and the revenue per ItemID, or null if they are not needed.
+     */
+    private final ItemTotals itemTotals;
+
+    /**
+     * The ItemIDs of the sale being counted, reused from one sale to the next.
+     */
+    private long[] itemIds = new long[16];
+
+    /**
+     * The analyzers besides the default ones, and their states in the same order.
+     */
+    private final List<Analyzer<?>> analyzers;
+    private final AnalyzerState<?>[] states;
+
+    SalesSummary() {
+        this(false);
+    }
+
+    /**
+     * @param withItemTotals Whether the totals per ItemID should be computed.
+     */
+    SalesSummary(boolean withItemTotals) {
+        this(withItemTotals, DistinctCountMode.configured());
+    }
+
+    /**
+     * @param withItemTotals Whether the totals per ItemID should be computed.
+     * @param distinctCount  How the distinct CNPJs and CPFs are counted.
+     */
+    SalesSummary(boolean withItemTotals, DistinctCountMode distinctCount) {
+        this(withItemTotals, distinctCount, Analyzers.plugins());
+    }
+
+    /**
+     * @param withItemTotals Whether the totals per ItemID should be computed.
+     * @param distinctCount  How the distinct CNPJs and CPFs are counted.
+     * @param analyzers      The analyzers besides the default ones.
+     */
+    SalesSummary(boolean withItemTotals, DistinctCountMode distinctCount, List<Analyzer<?>> analyzers) {
+        this.clientsAnalyzer = DistinctCountAnalyzer.clients(distinctCount);
+        this.salesmenAnalyzer = DistinctCountAnalyzer.salesmen(distinctCount);
+        this.clients = clientsAnalyzer.newState();
+        this.salesmen = salesmenAnalyzer.newState();
+        this.mostExpensiveSale = MostExpensiveSaleAnalyzer.INSTANCE.newState();
+        this.worstSalesman = WorstSalesmanAnalyzer.INSTANCE.newState();
+        this.itemTotals = withItemTotals ? new ItemTotals() : null;
+
+        this.analyzers = analyzers;
+        this.states = new AnalyzerState<?>[analyzers.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = analyzers.get(i).newState();
+        }
+    }
+
+    @Override
+    public void onSalesman(String cpf) {
+        salesmen.onSalesman(cpf);
+        for (AnalyzerState<?> state : states) {
+            state.onSalesman(cpf);
+        }
+    }
+
+    @Override
+    public void onCustomer(String cnpj) {
+        clients.onCustomer(cnpj);
+        for (AnalyzerState<?> state : states) {
+            state.onCustomer(cnpj);
+        }
+    }
+
+    @Override
+    public void onSale(SaleRecord sale) {
+        // A bad ItemID rejects the sale, so the ItemIDs are read before anything is counted
+        int itemCount = sale.getItemCount();
+        if (itemTotals != null) {
+            if (itemIds.length < itemCount) {
+                itemIds = new long[Math.max(itemCount, itemIds.length * 2)];
+            }
+            for (int i = 0; i < itemCount; i++) {
+                itemIds[i] = sale.getItem(i).getItemId();
+            }
+        }
+
+        mostExpensiveSale.onSale(sale);
+        worstSalesman.onSale(sale);
+
+        if (itemTotals != null) {
+            for (int i = 0; i < itemCount; i++) {
+                SaleItem item = sale.getItem(i);
+                itemTotals.add(itemIds[i], item.getQuantity(), item.getRevenue());
+            }
+        }
+
+        for (AnalyzerState<?> state : states) {
+            state.onSale(sale);
+        }
+    }
+
+    /**
+     * Merges the summary of the next part of the file into this one.
+     * <p>
+     * On ties the most expensive sale already held is kept, since it comes first in the file.
+     *
+     * @param next The summary of the part of the file that comes after the one of this summary. It must have the same
+     *             analyzers.
+     */
+    void merge(SalesSummary next) {
+        clients.merge(next.clients);
+        salesmen.merge(next.salesmen);
+        mostExpensiveSale.merge(next.mostExpensiveSale);
+        worstSalesman.merge(next.worstSalesman);
+
+        if (itemTotals != null) {
+            itemTotals.merge(next.itemTotals);
+        }
+
+        for (int i = 0; i < states.length; i++) {
+            merge(states[i], next.states[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S extends AnalyzerState<S>> void merge(AnalyzerState<?> state, AnalyzerState<?> next) {
+        ((S) state).merge((S) next);
+    }
+
+    /**
+     * Appends the records of the default analyzers, {@code 001} to {@code 004}.
+     */
+    void appendSummaryOutput(StringBuilder output) {
+        clientsAnalyzer.appendOutput(clients, output);
+        salesmenAnalyzer.appendOutput(salesmen, output);
+        MostExpensiveSaleAnalyzer.INSTANCE.appendOutput(mostExpensiveSale, output);
+        WorstSalesmanAnalyzer.INSTANCE.appendOutput(worstSalesman, output);
+    }
+
+    /**
+     * Appends the records of the analyzers besides the default ones.
+     */
+    void appendAnalyzerOutput(StringBuilder output) {
+        for (int i = 0; i < states.length; i++) {
+            appendOutput(analyzers.get(i), states[i], output);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S extends AnalyzerState<S>> void appendOutput(Analyzer<S> analyzer, AnalyzerState<?> state,
+                                                                  StringBuilder output) {
+        analyzer.appendOutput((S) state, output);
+    }
+
+    DistinctCounter getClientsCnpjs() {
+        return clients.getCounter();
+    }
+
+    DistinctCounter getSalesmanCpfs() {
+        return salesmen.getCounter();
+    }
+
+    /**
+     * @return The value of the most expensive sale. It must not be changed.
+     */
+    Money getMostExpensiveSaleValue() {
+        return mostExpensiveSale.getValue();
+    }
+
+    int getAmountOfClients() {
+        return clients.getCounter().size();
+    }
+
+    int getAmountOfSalesman() {
+        return salesmen.getCounter().size();
+    }
+
+    String getMostExpensiveSaleId() {
+        return mostExpensiveSale.getSaleId();
+    }
+
+    /**
+     * @return The units sold and the revenue per ItemID, or null if they are not computed.
+     */
+    ItemTotals getItemTotals() {
+        return itemTotals;
+    }
+
+    /**
+     * @return The salesman with the lowest sum of sales, or null if there are no sales.
+     */
+    String getWorstSalesman() {
+        return worstSalesman.getTotals().getWorst();
+    }
+
+    /**
+     * @return The sum of sales of each salesman.
+     */
+    SalesmanTotals getSalesmanTotals() {
+        return worstSalesman.getTotals();
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Gives each salesman name a dense ID, from zero in the order the names are first seen.
+ * <p>
+ * The names are looked up straight from the bytes of the input, in an open addressing table of IDs, so a known name
+ * doesn't create any object. A name is only decoded into a {@link String} the first time it is seen.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+final class SalesmanDictionary {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The ID plus one of the name in each slot, or zero for an empty slot. Its length is a power of two and it is
+     * kept at most half full.
+     */
+    private int[] slots;
+
+    // The hash, UTF-8 bytes and name of each ID
+    private int[] hashes;
+    private byte[][] keys;
+    private String[] names;
+
+    private int size;
+
+    SalesmanDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize How many names the dictionary is sized for.
+     */
+    SalesmanDictionary(int expectedSize) {
+        int capacity = Math.max(expectedSize, DEFAULT_CAPACITY);
+        slots = new int[tableSize(capacity)];
+        hashes = new int[capacity];
+        keys = new byte[capacity][];
+        names = new String[capacity];
+    }
+
+    /**
+     * @return The ID of the name between {@code start} and {@code end} of the buffer, which is added if not known.
+     */
+    int id(ByteBuffer buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                byte[] key = new byte[end - start];
+                for (int index = 0; index < key.length; index++) {
+                    key[index] = buffer.get(start + index);
+                }
+                return add(slot, hash, key, DatFileParser.decode(buffer, start, end));
+            }
+            if (hashes[id] == hash && matches(keys[id], buffer, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * @return The ID of the name, which is added if not known.
+     */
+    int id(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        return id(ByteBuffer.wrap(key), 0, key.length);
+    }
+
+    /**
+     * @return The ID in this dictionary of a name of another dictionary, which is added if not known.
+     */
+    int id(SalesmanDictionary other, int otherId) {
+        byte[] key = other.keys[otherId];
+        int hash = other.hashes[otherId];
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return add(slot, hash, key, other.names[otherId]);
+            }
+            if (hashes[id] == hash && Arrays.equals(keys[id], key)) {
+                return id;
+            }
+        }
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return The name as UTF-8. The array must not be changed.
+     */
+    byte[] bytes(int id) {
+        return keys[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Grows the dictionary, if needed, so the expected amount of names is added without growing it again.
+     */
+    void ensureCapacity(int expectedSize) {
+        if (expectedSize > keys.length) {
+            grow(Math.max(expectedSize, keys.length * 2));
+        }
+        if (tableSize(expectedSize) > slots.length) {
+            rehash(tableSize(expectedSize));
+        }
+    }
+
+    private int add(int slot, int hash, byte[] key, String name) {
+        int id = size++;
+        if (id == keys.length) {
+            grow(keys.length * 2);
+        }
+        hashes[id] = hash;
+        keys[id] = key;
+        names[id] = name;
+
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            slots[slot] = id + 1;
+        }
+        return id;
+    }
+
+    private void grow(int capacity) {
+        hashes = Arrays.copyOf(hashes, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+
+    private void rehash(int tableSize) {
+        slots = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int tableSize(int expectedSize) {
+        return Integer.highestOneBit(Math.max(expectedSize, DEFAULT_CAPACITY) * 2 - 1) << 1;
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + buffer.get(index);
+        }
+        // Spreads the high bits to the low ones, which pick the slot
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int index = 0; index < key.length; index++) {
+            if (key[index] != buffer.get(start + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,228 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The sum of sales of each salesman.
+ * <p>
+ * The salesmen get dense IDs from a {@link SalesmanDictionary} and their sums are kept in a {@code long} array of
+ * {@link Money} units indexed by ID, so adding a sale of a known salesman doesn't create any object. A sum that no
+ * longer fits in a {@code long} switches to a {@link BigDecimal}, as {@link Money} does.
+ * <p>
+ * The worst and best salesman are found in a single pass over the totals, and the bottom/top N with a heap bounded to
+ * N entries, so no query sorts all the salesmen. Ties are broken by the order the salesmen were first seen.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Anderson Araujo.
+ */
+final class SalesmanTotals {
+
+    private final SalesmanDictionary salesmen = new SalesmanDictionary();
+
+    /**
+     * The sum of sales of each salesman ID, in units of {@code 10^-SCALE}.
+     */
+    private long[] units = new long[16];
+
+    /**
+     * The sums that no longer fit in {@link #units}, or null if none.
+     */
+    private BigDecimal[] exact;
+
+    /**
+     * Orders the IDs by the sum of sales, then by name, so rankings don't depend on the order of the salesmen.
+     */
+    private final Comparator<Integer> byTotal = (id1, id2) -> {
+        int result = compare(id1, id2);
+        return result != 0 ? result : salesmen.name(id1).compareTo(salesmen.name(id2));
+    };
+
+    /**
+     * Adds a sale to the total of its salesman, looking the salesman up from the bytes of the sale.
+     */
+    void add(SaleRecord sale) {
+        add(sale.salesmanId(salesmen), sale.getValue());
+    }
+
+    /**
+     * Adds a sale to the salesman's total.
+     */
+    void add(String salesman, Money salesValue) {
+        add(salesmen.id(salesman), salesValue);
+    }
+
+    private void add(int id, Money value) {
+        if (value.fitsInLong()) {
+            addUnits(id, value.getUnits());
+        } else {
+            addExact(id, value.toBigDecimal());
+        }
+    }
+
+    private void addUnits(int id, long value) {
+        if (id >= units.length) {
+            growTotals(id + 1);
+        }
+        if (exact == null || exact[id] == null) {
+            long sum = units[id] + value;
+            if (((units[id] ^ sum) & (value ^ sum)) >= 0) {
+                units[id] = sum;
+                return;
+            }
+        }
+        // Overflow, keep going with BigDecimal
+        addExact(id, BigDecimal.valueOf(value, Money.SCALE));
+    }
+
+    private void addExact(int id, BigDecimal value) {
+        if (id >= units.length) {
+            growTotals(id + 1);
+        }
+        if (exact == null) {
+            exact = new BigDecimal[units.length];
+        }
+        exact[id] = total(id).add(value);
+    }
+
+    /**
+     * Sizes the totals for the expected amount of salesmen, like the amount of salesman records of the file, so they
+     * don't grow while the sales are added.
+     */
+    void ensureCapacity(int expectedSize) {
+        salesmen.ensureCapacity(expectedSize);
+        if (expectedSize > units.length) {
+            growTotals(expectedSize);
+        }
+    }
+
+    private void growTotals(int capacity) {
+        units = Arrays.copyOf(units, Math.max(capacity, units.length * 2));
+        if (exact != null) {
+            exact = Arrays.copyOf(exact, units.length);
+        }
+    }
+
+    /**
+     * Adds all the totals of another instance into this one.
+     */
+    void merge(SalesmanTotals other) {
+        for (int id = 0; id < other.size(); id++) {
+            int target = salesmen.id(other.salesmen, id);
+            if (other.exact != null && other.exact[id] != null) {
+                addExact(target, other.exact[id]);
+            } else {
+                addUnits(target, other.units[id]);
+            }
+        }
+    }
+
+    /**
+     * Calls the action for each salesman and its sum of sales. The sum is reused between calls and must not be
+     * changed.
+     */
+    void forEach(BiConsumer<String, Money> action) {
+        Money total = new Money();
+        for (int id = 0; id < size(); id++) {
+            total.clear();
+            if (exact != null && exact[id] != null) {
+                total.add(exact[id]);
+            } else {
+                total.add(units[id], Money.SCALE);
+            }
+            action.accept(salesmen.name(id), total);
+        }
+    }
+
+    int size() {
+        return salesmen.size();
+    }
+
+    /**
+     * @return The salesman with the lowest sum of sales, or null if there are no sales.
+     */
+    String getWorst() {
+        return extreme(-1);
+    }
+
+    /**
+     * @return The salesman with the highest sum of sales, or null if there are no sales.
+     */
+    String getBest() {
+        return extreme(1);
+    }
+
+    /**
+     * @param amount How many salesmen to return.
+     * @return The salesmen with the lowest sums of sales and their sums, from the lowest.
+     */
+    List<Map.Entry<String, BigDecimal>> getBottom(int amount) {
+        return rank(amount, byTotal);
+    }
+
+    /**
+     * @param amount How many salesmen to return.
+     * @return The salesmen with the highest sums of sales and their sums, from the highest.
+     */
+    List<Map.Entry<String, BigDecimal>> getTop(int amount) {
+        return rank(amount, byTotal.reversed());
+    }
+
+    private BigDecimal total(int id) {
+        return exact != null && exact[id] != null ? exact[id] : BigDecimal.valueOf(units[id], Money.SCALE);
+    }
+
+    private int compare(int id1, int id2) {
+        if (exact == null || exact[id1] == null && exact[id2] == null) {
+            return Long.compare(units[id1], units[id2]);
+        }
+        return total(id1).compareTo(total(id2));
+    }
+
+    /**
+     * Finds the first salesman whose total is the lowest ({@code sign} -1) or highest ({@code sign} 1).
+     */
+    private String extreme(int sign) {
+        if (size() == 0) {
+            return null;
+        }
+        int found = 0;
+        for (int id = 1; id < size(); id++) {
+            if (Integer.signum(compare(id, found)) == sign) {
+                found = id;
+            }
+        }
+        return salesmen.name(found);
+    }
+
+    /**
+     * Selects the first IDs by {@code order} with a heap holding at most {@code amount} IDs, whose head is the ID to
+     * be dropped next.
+     */
+    private List<Map.Entry<String, BigDecimal>> rank(int amount, Comparator<Integer> order) {
+        if (amount <= 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Integer> heap = new PriorityQueue<>(amount + 1, order.reversed());
+        for (int id = 0; id < size(); id++) {
+            if (heap.size() < amount) {
+                heap.add(id);
+            } else if (order.compare(id, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+
+        List<Map.Entry<String, BigDecimal>> ranking = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int id = heap.poll();
+            ranking.add(new AbstractMap.SimpleImmutableEntry<>(salesmen.name(id), total(id)));
+        }
+        Collections.reverse(ranking);
+        return ranking;
+    }
+
+}
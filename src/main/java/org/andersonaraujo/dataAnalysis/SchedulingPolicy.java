@@ -0,0 +1,53 @@
+package org.andersonaraujo.dataAnalysis;
+
+import java.util.Comparator;
+
+/**
+ * The order in which the queued files are processed.
+ *
+ * @author Anderson Araujo.
+ */
+enum SchedulingPolicy {
+
+    /**
+     * In the order the files were found.
+     */
+    FIFO(Comparator.comparingLong(IngestionQueue.Task::getSequence)),
+
+    /**
+     * Smallest files first, so a burst of small files is not held back by a big one.
+     */
+    SMALLEST_FIRST(Comparator.comparingLong(IngestionQueue.Task::getSize)
+            .thenComparingLong(IngestionQueue.Task::getSequence)),
+
+    /**
+     * Files with the oldest modification time first.
+     */
+    OLDEST_FIRST(Comparator.comparingLong(IngestionQueue.Task::getLastModified)
+            .thenComparingLong(IngestionQueue.Task::getSequence));
+
+    private final Comparator<IngestionQueue.Task> order;
+
+    SchedulingPolicy(Comparator<IngestionQueue.Task> order) {
+        this.order = order;
+    }
+
+    Comparator<IngestionQueue.Task> getOrder() {
+        return order;
+    }
+
+    /**
+     * @param name The policy name, case insensitive.
+     * @return The policy.
+     * @throws IllegalArgumentException If there is no policy with the name.
+     */
+    static SchedulingPolicy of(String name) {
+        for (SchedulingPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name.trim())) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scheduling policy '" + name + "'.");
+    }
+
+}
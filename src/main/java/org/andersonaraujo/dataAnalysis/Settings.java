@@ -0,0 +1,239 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * Tuning settings of the application.
+ * <p>
+ * Every setting is read from a system property ({@code -DdataAnalysis.<name>=<value>}) and falls back to its default
+ * when the property is not set.
+ *
+ * @author Anderson Araujo.
+ */
+final class Settings {
+
+    static final String PREFIX = "dataAnalysis.";
+
+    /**
+     * Files bigger than this amount of bytes are split in chunks of about this size and parsed in parallel. Compressed
+     * files are not split, see {@link CompressedInput}.
+     */
+    static final String SPLIT_THRESHOLD = PREFIX + "splitThreshold";
+    static final long DEFAULT_SPLIT_THRESHOLD = 64L * 1024 * 1024;
+
+    /**
+     * Decimal places of money values kept as scaled {@code long}s. Values with more decimal places are still exact,
+     * but slower to sum.
+     */
+    static final String MONEY_SCALE = PREFIX + "moneyScale";
+    static final int DEFAULT_MONEY_SCALE = 2;
+
+    /**
+     * Whether the output has the per-item records ({@code 005}), with the units sold and the revenue of each ItemID.
+     */
+    static final String ITEM_REPORT = PREFIX + "itemReport";
+
+    /**
+     * How many salesmen are listed in the worst ({@code 006}) and best ({@code 007}) salesmen records of the output.
+     * Zero leaves the records out.
+     */
+    static final String SALESMAN_RANKING = PREFIX + "salesmanRanking";
+
+    /**
+     * Milliseconds between writes of the global report and its snapshot.
+     */
+    static final String GLOBAL_FLUSH_INTERVAL = PREFIX + "globalFlushInterval";
+    static final long DEFAULT_GLOBAL_FLUSH_INTERVAL = 5000;
+
+    /**
+     * How many files are processed at the same time.
+     */
+    static final String POOL_SIZE = PREFIX + "poolSize";
+    static final int DEFAULT_POOL_SIZE = 5;
+
+    /**
+     * The threads the files are processed on: {@code FIXED} (a pool of {@link #POOL_SIZE} threads), {@code CPU} (a
+     * pool of one thread per core), {@code ADAPTIVE} (a pool sized from the CPU time of the files) or {@code VIRTUAL}
+     * (a virtual thread per file).
+     */
+    static final String EXECUTOR_STRATEGY = PREFIX + "executorStrategy";
+    static final String DEFAULT_EXECUTOR_STRATEGY = "FIXED";
+
+    /**
+     * The most files processed at the same time, whatever the executor strategy.
+     */
+    static final String CONCURRENCY_LIMIT = PREFIX + "concurrencyLimit";
+    static final int DEFAULT_CONCURRENCY_LIMIT = 256;
+
+    /**
+     * How many files can wait to be processed. Once the queue is full, new files wait to be queued.
+     */
+    static final String QUEUE_DEPTH = PREFIX + "queueDepth";
+    static final int DEFAULT_QUEUE_DEPTH = 1000;
+
+    /**
+     * The order in which the waiting files are processed: {@code FIFO}, {@code SMALLEST_FIRST} or
+     * {@code OLDEST_FIRST}.
+     */
+    static final String SCHEDULING_POLICY = PREFIX + "schedulingPolicy";
+    static final String DEFAULT_SCHEDULING_POLICY = "FIFO";
+
+    /**
+     * The watched input directories, like {@code /disk1/in=/disk1/out@4,/disk2/in}: each one with the directory of its
+     * outputs (by default {@code out} next to it) and how many of its files are processed at the same time (by
+     * default the configured concurrency). By default, {@code data/in} is watched.
+     */
+    static final String INPUT_ROOTS = PREFIX + "inputRoots";
+
+    /**
+     * The ID of this instance among the instances sharing the input directories. When set, each file is claimed by
+     * moving it to the {@code processing} directory of the instance before it is processed.
+     */
+    static final String INSTANCE_ID = PREFIX + "instanceId";
+
+    /**
+     * Milliseconds a new file must stay unchanged before it is processed, so files still being copied are not read.
+     */
+    static final String READINESS_QUIET_PERIOD = PREFIX + "readinessQuietPeriod";
+    static final long DEFAULT_READINESS_QUIET_PERIOD = 1000;
+
+    /**
+     * Whether {@code .dat} files are only created complete, by writing them with another name and renaming them.
+     * They are then processed without waiting for the quiet period.
+     */
+    static final String ATOMIC_RENAME = PREFIX + "atomicRename";
+
+    /**
+     * How the distinct CNPJs and CPFs are counted: {@code EXACT} or {@code APPROXIMATE}.
+     */
+    static final String DISTINCT_COUNT = PREFIX + "distinctCount";
+    static final String DEFAULT_DISTINCT_COUNT = "EXACT";
+
+    /**
+     * The precision of the approximate distinct counts. They take {@code 2^precision} bytes each and have a standard
+     * error of {@code 1.04 / sqrt(2^precision)}.
+     */
+    static final String HYPER_LOG_LOG_PRECISION = PREFIX + "hyperLogLogPrecision";
+    static final int DEFAULT_HYPER_LOG_LOG_PRECISION = 12;
+
+    /**
+     * Whether malformed lines are skipped and written to a {@code .rejects} file in the error directory, instead of
+     * failing the file.
+     */
+    static final String LENIENT_PARSING = PREFIX + "lenientParsing";
+
+    /**
+     * The most lines a lenient parse skips before the file fails anyway.
+     */
+    static final String MAX_REJECTS = PREFIX + "maxRejects";
+    static final long DEFAULT_MAX_REJECTS = 1000;
+
+    /**
+     * Whether each processed file is also written as a columnar file, next to its output, to be analysed again
+     * without being parsed.
+     */
+    static final String COLUMNAR_OUTPUT = PREFIX + "columnarOutput";
+
+    /**
+     * How many outputs are written at a time by the output writer, which syncs the directory once per batch. It is
+     * also how many outputs can wait to be written.
+     */
+    static final String OUTPUT_BATCH_SIZE = PREFIX + "outputBatchSize";
+    static final int DEFAULT_OUTPUT_BATCH_SIZE = 256;
+
+    /**
+     * Whether the outputs are forced to disk before they are renamed to their final name.
+     */
+    static final String OUTPUT_SYNC = PREFIX + "outputSync";
+    static final boolean DEFAULT_OUTPUT_SYNC = true;
+
+    /**
+     * Milliseconds between reconciliations of the input directories, which queue the files the watcher missed. Zero
+     * only reconciles a directory when the watcher loses its events.
+     */
+    static final String RECONCILE_INTERVAL = PREFIX + "reconcileInterval";
+    static final long DEFAULT_RECONCILE_INTERVAL = 60000;
+
+    /**
+     * Milliseconds the files being processed are given to finish when the application is stopped. The files still
+     * being processed after that are interrupted and processed again on the next start.
+     */
+    static final String SHUTDOWN_TIMEOUT = PREFIX + "shutdownTimeout";
+    static final long DEFAULT_SHUTDOWN_TIMEOUT = 30000;
+
+    /**
+     * The format of the output files and the served reports: {@code text}, {@code json} or {@code csv}. See
+     * {@link ReportFormat}.
+     */
+    static final String REPORT_FORMAT = PREFIX + "reportFormat";
+    static final String DEFAULT_REPORT_FORMAT = "text";
+
+    /**
+     * The port the reports are served on, on the loopback address. Zero disables the server. See
+     * {@link ReportServer}.
+     */
+    static final String REPORT_SERVER_PORT = PREFIX + "reportServerPort";
+
+    /**
+     * How many reports of the latest files processed are served.
+     */
+    static final String REPORT_SERVER_SIZE = PREFIX + "reportServerSize";
+    static final int DEFAULT_REPORT_SERVER_SIZE = 1000;
+
+    /**
+     * The least amount of files processed at the same time by the {@code adaptive} executor strategy. The most is the
+     * concurrency limit, or the workers of the input root.
+     */
+    static final String MIN_WORKERS = PREFIX + "minWorkers";
+    static final int DEFAULT_MIN_WORKERS = 1;
+
+    /**
+     * Milliseconds between the changes of the workers by the {@code adaptive} executor strategy.
+     */
+    static final String ADAPT_INTERVAL = PREFIX + "adaptInterval";
+    static final long DEFAULT_ADAPT_INTERVAL = 5000;
+
+    /**
+     * How many outputs of processed files are kept by their content, so a file sent again under another name is not
+     * parsed. Zero disables the cache.
+     */
+    static final String RESULT_CACHE_SIZE = PREFIX + "resultCacheSize";
+
+    /**
+     * Milliseconds between writes of the metrics file. Zero disables the file; the metrics are still published through
+     * JMX.
+     */
+    static final String METRICS_INTERVAL = PREFIX + "metricsInterval";
+    static final long DEFAULT_METRICS_INTERVAL = 10000;
+
+    private Settings() {
+    }
+
+    static long getLong(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting '" + name + "' must be a number, but it is '" + value + "'.");
+        }
+    }
+
+    static int getInt(String name, int defaultValue) {
+        return (int) getLong(name, defaultValue);
+    }
+
+    static String getString(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    static boolean getBoolean(String name) {
+        return getBoolean(name, false);
+    }
+
+    static boolean getBoolean(String name, boolean defaultValue) {
+        return Boolean.parseBoolean(System.getProperty(name, Boolean.toString(defaultValue)).trim());
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.andersonaraujo.dataAnalysis;
+
+/**
+ * Finds the salesman with the lowest sum of sales ({@code 004}). The sums are also what the worst and best salesmen
+ * rankings are made of.
+ *
+ * @author Anderson Araujo.
+ */
+final class WorstSalesmanAnalyzer implements Analyzer<WorstSalesmanAnalyzer.State> {
+
+    static final WorstSalesmanAnalyzer INSTANCE = new WorstSalesmanAnalyzer();
+
+    private WorstSalesmanAnalyzer() {
+    }
+
+    @Override
+    public State newState() {
+        return new State();
+    }
+
+    @Override
+    public void appendOutput(State state, StringBuilder output) {
+        FlatFileProcessor.appendLine(output, FlatFileProcessor.OUTPUT_TYPE_WORST_SALESMAN,
+                FlatFileProcessor.OUTPUT_WORST_SALESMAN, state.totals.getWorst());
+    }
+
+    static final class State implements AnalyzerState<State> {
+
+        private final SalesmanTotals totals = new SalesmanTotals();
+
+        /**
+         * How many salesman records were seen, which the totals are sized for.
+         */
+        private int salesmanRecords;
+
+        private State() {
+        }
+
+        @Override
+        public void onSalesman(String cpf) {
+            totals.ensureCapacity(++salesmanRecords);
+        }
+
+        @Override
+        public void onSale(SaleRecord sale) {
+            totals.add(sale);
+        }
+
+        @Override
+        public void merge(State next) {
+            totals.merge(next.totals);
+        }
+
+        SalesmanTotals getTotals() {
+            return totals;
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link AdaptiveConcurrency}.
+ */
+public class AdaptiveConcurrencyTest {
+
+    private SampledQueue queue;
+
+    @After
+    public void shutdownQueue() throws Exception {
+        queue.drain();
+        queue.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testNominalShrinkWhenCpuBound() {
+        queue = new SampledQueue(8, 10);
+        AdaptiveConcurrency adaptive = new AdaptiveConcurrency("in", queue, 1, 16, 4);
+
+        queue.samples.add(sample(100, 100));
+        assertEquals(6, adaptive.adapt());
+        queue.samples.add(sample(100, 100));
+        assertEquals(5, adaptive.adapt());
+        queue.samples.add(sample(100, 100));
+        assertEquals(4, adaptive.adapt());
+        queue.samples.add(sample(100, 100));
+        assertEquals(4, adaptive.adapt());
+    }
+
+    @Test
+    public void testNominalGrowWhenWaitingOnDisk() {
+        queue = new SampledQueue(4, 10);
+        AdaptiveConcurrency adaptive = new AdaptiveConcurrency("in", queue, 1, 12, 4);
+
+        queue.samples.add(sample(100, 25));
+        assertEquals(8, adaptive.adapt());
+        queue.samples.add(sample(200, 25));
+        assertEquals(10, adaptive.adapt());
+        queue.samples.add(sample(300, 25));
+        assertEquals(11, adaptive.adapt());
+    }
+
+    @Test
+    public void testNominalKeepWithoutWaitingFiles() {
+        queue = new SampledQueue(4, 0);
+        AdaptiveConcurrency adaptive = new AdaptiveConcurrency("in", queue, 1, 12, 4);
+
+        queue.samples.add(sample(100, 25));
+        assertEquals(4, adaptive.adapt());
+    }
+
+    @Test
+    public void testOffNominalUndoChangeLoweringThroughput() {
+        queue = new SampledQueue(4, 10);
+        AdaptiveConcurrency adaptive = new AdaptiveConcurrency("in", queue, 1, 12, 4);
+
+        queue.samples.add(sample(100, 25));
+        assertEquals(8, adaptive.adapt());
+        queue.samples.add(sample(50, 25));
+        assertEquals(4, adaptive.adapt());
+        queue.samples.add(sample(50, 25));
+        assertEquals(4, adaptive.adapt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalInvalidBounds() {
+        queue = new SampledQueue(4, 0);
+        new AdaptiveConcurrency("in", queue, 4, 2, 4);
+    }
+
+    /**
+     * @return A sample of a second with the files and the CPU share, in percent.
+     */
+    private static IngestionQueue.Sample sample(long files, long cpuPercent) {
+        return new IngestionQueue.Sample(files, cpuPercent, 100, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * A queue with given samples and files waiting.
+     */
+    private static final class SampledQueue extends IngestionQueue {
+
+        private final Deque<Sample> samples = new ArrayDeque<>();
+
+        private final int waiting;
+
+        private SampledQueue(int concurrency, int waiting) {
+            super(ExecutorStrategy.ADAPTIVE, concurrency, 10, SchedulingPolicy.FIFO, fileName -> () -> true);
+            this.waiting = waiting;
+        }
+
+        @Override
+        Sample sample() {
+            return samples.poll();
+        }
+
+        @Override
+        int getQueueDepth() {
+            return waiting;
+        }
+    }
+
+}
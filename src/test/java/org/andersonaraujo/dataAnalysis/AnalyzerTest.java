@@ -0,0 +1,110 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link Analyzer} and {@link Analyzers}.
+ */
+public class AnalyzerTest {
+
+    private static final String DATA = FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+            + FlatFileProcessorTest.SALES_DATA;
+
+    @Test
+    public void testNominalAnalyzerOutput() {
+        SalesSummary summary = summary(DATA);
+
+        StringBuilder output = new StringBuilder();
+        summary.appendSummaryOutput(output);
+        summary.appendAnalyzerOutput(output);
+
+        assertEquals("001çAmountClientsç2\n" +
+                "002çAmountSalesmanç2\n" +
+                "003çMostExpensiveSaleç10\n" +
+                "004çWorstSalesmançRenato\n" +
+                "900çSalesç2ç6\n", output.toString());
+    }
+
+    @Test
+    public void testNominalMergeChunks() {
+        SalesSummary summary = summary(FlatFileProcessorTest.SALESMAN_DATA + "003ç10ç[1-1-5]çDiego\n");
+        summary.merge(summary("003ç11ç[1-1-7,2-1-1]çRenato\n003ç12ç[1-1-1]çDiego\n"));
+
+        StringBuilder output = new StringBuilder();
+        summary.appendAnalyzerOutput(output);
+        assertEquals("900çSalesç3ç4\n", output.toString());
+        assertEquals("11", summary.getMostExpensiveSaleId());
+        assertEquals("Diego", summary.getWorstSalesman());
+    }
+
+    @Test
+    public void testNominalLoadFromServiceFile() throws Exception {
+        Path directory = Files.createTempDirectory("analyzers");
+        Path services = Files.createDirectories(directory.resolve("META-INF/services"));
+        Files.write(services.resolve(Analyzer.class.getName()),
+                ("# Test analyzers\n" + SaleCountAnalyzer.class.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+                getClass().getClassLoader())) {
+            List<Analyzer<?>> analyzers = Analyzers.load(classLoader);
+
+            assertEquals(1, analyzers.size());
+            assertTrue(analyzers.get(0) instanceof SaleCountAnalyzer);
+        }
+    }
+
+    private static SalesSummary summary(String data) {
+        SalesSummary summary = new SalesSummary(false, DistinctCountMode.EXACT,
+                Collections.<Analyzer<?>>singletonList(new SaleCountAnalyzer()));
+        new DatFileParser(summary).parse(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), 0, true);
+        return summary;
+    }
+
+    /**
+     * Counts the sales and their items.
+     */
+    public static class SaleCountAnalyzer implements Analyzer<SaleCountAnalyzer.State> {
+
+        @Override
+        public State newState() {
+            return new State();
+        }
+
+        @Override
+        public void appendOutput(State state, StringBuilder output) {
+            output.append("900çSalesç").append(state.sales).append('ç').append(state.items).append('\n');
+        }
+
+        static final class State implements AnalyzerState<State> {
+
+            private long sales;
+
+            private long items;
+
+            @Override
+            public void onSale(SaleRecord sale) {
+                sales++;
+                items += sale.getItemCount();
+            }
+
+            @Override
+            public void merge(State next) {
+                sales += next.sales;
+                items += next.items;
+            }
+        }
+    }
+
+}
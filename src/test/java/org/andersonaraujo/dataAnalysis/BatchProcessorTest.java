@@ -0,0 +1,108 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link BatchProcessor}.
+ */
+public class BatchProcessorTest {
+
+    @After
+    public void clearSettings() {
+        System.clearProperty(Settings.REPORT_FORMAT);
+    }
+
+    @Test
+    public void testNominalRun() throws Exception {
+        Path directory = Files.createTempDirectory("batch");
+        write(directory.resolve("a.dat"), FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.SALES_DATA);
+        write(directory.resolve("b.dat"), FlatFileProcessorTest.CLIENT_DATA + "003ç20ç[1-1-5000]çRenato\n");
+        Path output = directory.resolve("out");
+        Path report = directory.resolve("report.done.dat");
+
+        BatchProcessor batch = BatchProcessor.fromArguments(new String[]{BatchProcessor.BATCH_OPTION,
+                directory.toString(), BatchProcessor.OUTPUT_OPTION, output.toString(),
+                BatchProcessor.REPORT_OPTION, report.toString()});
+
+        assertEquals(BatchProcessor.EXIT_SUCCESS, batch.run());
+        assertTrue(Files.exists(output.resolve("a.done.dat")));
+        assertTrue(Files.exists(output.resolve("b.done.dat")));
+        assertEquals("001çAmountClientsç2\n" +
+                "002çAmountSalesmanç2\n" +
+                "003çMostExpensiveSaleç20\n" +
+                "004çWorstSalesmançDiego\n", new String(Files.readAllBytes(report), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testNominalRunInReportFormat() throws Exception {
+        Path directory = Files.createTempDirectory("batch");
+        write(directory.resolve("a.dat"), FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.SALES_DATA);
+        Path report = directory.resolve("report.csv");
+        System.setProperty(Settings.REPORT_FORMAT, "csv");
+
+        BatchProcessor batch = BatchProcessor.fromArguments(new String[]{BatchProcessor.BATCH_OPTION,
+                directory.resolve("a.dat").toString(), BatchProcessor.REPORT_OPTION, report.toString()});
+
+        assertEquals(BatchProcessor.EXIT_SUCCESS, batch.run());
+        assertTrue(Files.exists(directory.resolve("a.done.csv")));
+        assertEquals("001,AmountClients,0\r\n" +
+                "002,AmountSalesman,2\r\n" +
+                "003,MostExpensiveSale,10\r\n" +
+                "004,WorstSalesman,Renato\r\n", new String(Files.readAllBytes(report), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOffNominalRunWithInvalidFile() throws Exception {
+        Path directory = Files.createTempDirectory("batch");
+        write(directory.resolve("a.dat"), FlatFileProcessorTest.SALESMAN_DATA);
+        write(directory.resolve("b.dat"), "003ç20\n");
+
+        BatchProcessor batch = BatchProcessor.fromArguments(new String[]{BatchProcessor.BATCH_OPTION,
+                directory.resolve("*.dat").toString()});
+
+        assertEquals(BatchProcessor.EXIT_FAILURES, batch.run());
+        assertTrue(Files.exists(directory.resolve("a.done.dat")));
+        assertFalse(Files.exists(directory.resolve("b.done.dat")));
+    }
+
+    @Test
+    public void testNominalResolve() throws Exception {
+        Path directory = Files.createTempDirectory("batch");
+        write(directory.resolve("2016-01.dat"), "");
+        write(directory.resolve("2016-02.dat"), "");
+        write(directory.resolve("2016-02.done.dat"), "");
+        write(directory.resolve("2017-01.dat"), "");
+        write(directory.resolve("2016-03.txt"), "");
+
+        List<Path> files = BatchProcessor.resolve(directory.resolve("2016-*").toString());
+        assertEquals(Arrays.asList(directory.resolve("2016-01.dat"), directory.resolve("2016-02.dat")), files);
+        assertEquals(3, BatchProcessor.resolve(directory.toString()).size());
+        assertEquals(1, BatchProcessor.resolve(directory.resolve("2017-01.dat").toString()).size());
+    }
+
+    @Test
+    public void testOffNominalRunBatchWithoutFiles() throws Exception {
+        Path directory = Files.createTempDirectory("batch");
+
+        assertEquals(BatchProcessor.EXIT_USAGE, Main.runBatch(new String[]{BatchProcessor.BATCH_OPTION,
+                directory.toString()}));
+        assertEquals(BatchProcessor.EXIT_USAGE, Main.runBatch(new String[]{BatchProcessor.BATCH_OPTION,
+                directory.resolve("missing.dat").toString()}));
+    }
+
+    private static void write(Path file, String data) throws Exception {
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ColumnarFile}.
+ */
+public class ColumnarFileTest {
+
+    private static final String DATA = FlatFileProcessorTest.SALESMAN_DATA
+            + "001çA-123çPauloç30000\n"
+            + FlatFileProcessorTest.CLIENT_DATA
+            + "002ç2345675434544345çJosedaSilvaçRural\n"
+            + "002çCNPJ-1çMariaçRural\n"
+            + FlatFileProcessorTest.SALES_DATA
+            + "003ç08ç[1-34-10,2-33-1.50,3-40-0.10]çRenato\n"
+            + "003çA7ç[1-1-1]çPaulo\n";
+
+    @Test
+    public void testNominalWriteAndRead() throws Exception {
+        Path file = Files.createTempDirectory("columnar").resolve("file.col");
+        builder(DATA).write(file);
+
+        ColumnarFile.Summary summary = ColumnarFile.read(file, DistinctCountMode.EXACT);
+
+        assertEquals(textOutput(DATA), summary.generateOutput());
+        assertEquals("10", summary.getMostExpensiveSaleId());
+        assertEquals(0, summary.getMostExpensiveSaleValue().toBigDecimal().compareTo(new BigDecimal("1199")));
+    }
+
+    @Test
+    public void testNominalMergeChunks() throws Exception {
+        Path directory = Files.createTempDirectory("columnar");
+        String[] lines = DATA.split("\n");
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            (i % 2 == 0 ? first : second).append(lines[i]).append('\n');
+        }
+
+        ColumnarFile.Builder merged = builder(first.toString());
+        merged.merge(builder(second.toString()));
+        merged.write(directory.resolve("merged.col"));
+        builder(first.toString() + second).write(directory.resolve("whole.col"));
+
+        assertEquals(ColumnarFile.read(directory.resolve("whole.col"), DistinctCountMode.EXACT).generateOutput(),
+                ColumnarFile.read(directory.resolve("merged.col"), DistinctCountMode.EXACT).generateOutput());
+    }
+
+    @Test
+    public void testNominalProcessColumnarFile() throws Exception {
+        Path directory = Files.createTempDirectory("columnar");
+        String path = directory.toString() + "/";
+        Files.write(directory.resolve("feed.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+
+        System.setProperty(Settings.COLUMNAR_OUTPUT, "true");
+        try {
+            assertTrue(new FlatFileProcessor("feed.dat", path, path, 64, false, null).processFile());
+        } finally {
+            System.clearProperty(Settings.COLUMNAR_OUTPUT);
+        }
+        String output = new String(Files.readAllBytes(directory.resolve("feed.done.dat")), StandardCharsets.UTF_8);
+        Files.delete(directory.resolve("feed.done.dat"));
+
+        assertTrue(new FlatFileProcessor("feed.col", path, path).processFile());
+        assertEquals(output,
+                new String(Files.readAllBytes(directory.resolve("feed.done.dat")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOffNominalValueTooPrecise() {
+        ColumnarFile.Builder builder = builder(FlatFileProcessorTest.SALESMAN_DATA
+                + "003ç10ç[1-10-100,2-3-0.12345678901234567]çDiego\n");
+
+        assertNotNull(builder.getUnsupported());
+        assertNull(builder(DATA).getUnsupported());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffNominalNotColumnarFile() throws Exception {
+        Path file = Files.createTempDirectory("columnar").resolve("file.col");
+        Files.write(file, DATA.getBytes(StandardCharsets.UTF_8));
+
+        ColumnarFile.read(file, DistinctCountMode.EXACT);
+    }
+
+    private static ColumnarFile.Builder builder(String data) {
+        ColumnarFile.Builder builder = new ColumnarFile.Builder();
+        new DatFileParser(builder).parse(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), 0, true);
+        return builder;
+    }
+
+    private static String textOutput(String data) {
+        SalesSummary summary = new SalesSummary(false, DistinctCountMode.EXACT);
+        new DatFileParser(summary).parse(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), 0, true);
+        return FlatFileProcessor.generateOutput(summary.getAmountOfClients(), summary.getAmountOfSalesman(),
+                summary.getMostExpensiveSaleId(), summary.getWorstSalesman());
+    }
+
+}
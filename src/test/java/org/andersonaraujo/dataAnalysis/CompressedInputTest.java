@@ -0,0 +1,155 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link CompressedInput}.
+ */
+public class CompressedInputTest {
+
+    private static final String DATA = FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+            + "003ç10ç[1-10-100,2-30-2.50,3-40-3.10]çDiego\r\n003ç08ç[1-34-10,2-33-1.50,3-40-0.10]çRenato\r"
+            + "003ç11ç[1-1-1]çRenato";
+
+    @Test
+    public void testNominalGzip() throws Exception {
+        Path file = Files.createTempFile("compressed", ".dat.gz");
+        Files.write(file, gzip(DATA));
+
+        assertFalse(CompressedInput.isBgzf(file));
+        for (int bufferSize : new int[]{1, 7, 64, 1024}) {
+            assertEquals("Buffer size " + bufferSize, parse(DATA), parse(file, bufferSize));
+        }
+    }
+
+    @Test
+    public void testNominalBgzf() throws Exception {
+        Path file = Files.createTempFile("compressed", ".dat.gz");
+        Files.write(file, bgzf(DATA, 13));
+
+        assertTrue(CompressedInput.isBgzf(file));
+        for (int bufferSize : new int[]{1, 7, 64, 1024}) {
+            assertEquals("Buffer size " + bufferSize, parse(DATA), parse(file, bufferSize));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffNominalNotGzip() throws Exception {
+        Path file = Files.createTempFile("compressed", ".dat.gz");
+        Files.write(file, DATA.getBytes(StandardCharsets.UTF_8));
+
+        parse(file, 64);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffNominalCorruptBgzf() throws Exception {
+        Path file = Files.createTempFile("compressed", ".dat.gz");
+        byte[] bytes = bgzf(DATA, 40);
+        bytes[bytes.length - 40] ^= 1;
+        Files.write(file, bytes);
+
+        parse(file, 64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalInvalidLine() throws Exception {
+        Path file = Files.createTempFile("compressed", ".dat.gz");
+        Files.write(file, gzip(DATA + "\n003ç12\n" + DATA));
+
+        parse(file, 8);
+    }
+
+    @Test
+    public void testNominalProcessFile() throws Exception {
+        Path file = Files.createTempFile("compressed", ".dat.gz");
+        Files.write(file, gzip(DATA));
+        String name = file.getFileName().toString();
+        String directory = file.getParent().toString() + "/";
+
+        assertTrue(new FlatFileProcessor(name, directory, directory).processFile());
+
+        Path output = file.resolveSibling(name.substring(0, name.length() - ".dat.gz".length()) + ".done.dat");
+        assertEquals(parse(DATA), new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+        assertTrue(Main.isInputFile(name));
+    }
+
+    private static String parse(Path file, int bufferSize) throws IOException {
+        SalesSummary summary = new SalesSummary();
+        CompressedInput.parse(file, new DatFileParser(summary), bufferSize);
+        return output(summary);
+    }
+
+    private static String parse(String data) {
+        SalesSummary summary = new SalesSummary();
+        new DatFileParser(summary).parse(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), 0, true);
+        return output(summary);
+    }
+
+    private static String output(SalesSummary summary) {
+        return FlatFileProcessor.generateOutput(summary.getAmountOfClients(), summary.getAmountOfSalesman(),
+                summary.getMostExpensiveSaleId(), summary.getWorstSalesman());
+    }
+
+    private static byte[] gzip(String data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes)) {
+            output.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the data as BGZF blocks of up to {@code blockSize} bytes, followed by the empty end of file block.
+     */
+    private static byte[] bgzf(String data, int blockSize) {
+        byte[] input = data.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int start = 0; start < input.length; start += blockSize) {
+            writeBlock(bytes, input, start, Math.min(blockSize, input.length - start));
+        }
+        writeBlock(bytes, input, 0, 0);
+        return bytes.toByteArray();
+    }
+
+    private static void writeBlock(ByteArrayOutputStream bytes, byte[] input, int start, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(input, start, length);
+        deflater.finish();
+        byte[] compressed = new byte[length + 64];
+        int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(input, start, length);
+        int total = 18 + compressedLength + 8;
+
+        bytes.write(new byte[]{0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+                (byte) (total - 1), (byte) ((total - 1) >> 8)}, 0, 18);
+        bytes.write(compressed, 0, compressedLength);
+        writeInt(bytes, (int) crc.getValue());
+        writeInt(bytes, length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream bytes, int value) {
+        bytes.write(value);
+        bytes.write(value >> 8);
+        bytes.write(value >> 16);
+        bytes.write(value >> 24);
+    }
+
+}
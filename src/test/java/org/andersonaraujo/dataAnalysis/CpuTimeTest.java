@@ -0,0 +1,68 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link CpuTime}.
+ */
+public class CpuTimeTest {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void testNominalHelperThreadCharged() throws Exception {
+        Assume.assumeTrue(CpuTime.isSupported());
+        LongAdder account = new LongAdder();
+        LongAdder helperNanos = new LongAdder();
+
+        CpuTime.measure(account, () -> {
+            Thread helper = new Thread(CpuTime.charged(() -> {
+                long start = THREADS.getCurrentThreadCpuTime();
+                spin();
+                helperNanos.add(THREADS.getCurrentThreadCpuTime() - start);
+            }));
+            helper.start();
+            helper.join();
+            return null;
+        });
+
+        assertTrue(helperNanos.sum() > 0);
+        assertTrue(account.sum() >= helperNanos.sum());
+    }
+
+    @Test
+    public void testNominalNotChargedOutsideMeasure() throws Exception {
+        Callable<Long> work = CpuTimeTest::spin;
+        Runnable runnable = () -> {
+        };
+
+        assertSame(work, CpuTime.charged(work));
+        assertSame(runnable, CpuTime.charged(runnable));
+        assertEquals(Boolean.TRUE, CpuTime.measure(new LongAdder(), () -> Boolean.TRUE));
+    }
+
+    /**
+     * Keeps the CPU busy for a few milliseconds.
+     *
+     * @return A value computed meanwhile.
+     */
+    private static long spin() {
+        long start = System.nanoTime();
+        long value = 0;
+        while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20)) {
+            value += Long.numberOfTrailingZeros(value + start);
+        }
+        return value;
+    }
+}
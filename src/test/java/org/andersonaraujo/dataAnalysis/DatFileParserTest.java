@@ -0,0 +1,120 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link DatFileParser}.
+ */
+public class DatFileParserTest {
+
+    @Test
+    public void testNominalParseAllKinds() throws Exception {
+        RecordingHandler handler = parse(FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+                + FlatFileProcessorTest.SALES_DATA);
+
+        assertEquals("[001 1234567891234, 001 3245678865434, 002 2345675434544345, 002 2345675433444345, "
+                + "003 10 Diego 1199.00, 003 08 Renato 393.50]", handler.records.toString());
+    }
+
+    @Test
+    public void testNominalParseLineBreaks() throws Exception {
+        RecordingHandler handler = parse("001ç1çAç1\r\n002ç2çBçX\r003ç3ç[1-1-1]çC");
+
+        assertEquals("[001 1, 002 2, 003 3 C 1.00]", handler.records.toString());
+    }
+
+    @Test
+    public void testNominalParseConsecutiveDelimitersAndUnknownKinds() throws Exception {
+        RecordingHandler handler = parse("çç001ççç1çA\n004çignored\n003ç7ç[1-1-2,,]çÁlvaro\n");
+
+        assertEquals("[001 1, 003 7 Álvaro 2.00]", handler.records.toString());
+    }
+
+    @Test
+    public void testNominalParseItemsWithoutPrice() throws Exception {
+        RecordingHandler handler = parse("003ç1ç[1-1--9,2-2-1.5,3-3-1e1]çA\n003ç2ç[,]çB\n");
+
+        assertEquals("[003 1 A 33.00, 003 2 B 0.00]", handler.records.toString());
+    }
+
+    @Test
+    public void testNominalParseAcrossWindows() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            data.append("003ç").append(i).append("ç[1-1-").append(i).append("]çSalesman\r\n");
+        }
+        File file = File.createTempFile("temp-file", ".dat");
+        Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.UTF_8));
+
+        RecordingHandler handler = new RecordingHandler();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new DatFileParser(handler, 64).parse(channel, 0, channel.size());
+        }
+
+        assertEquals(50, handler.records.size());
+        assertEquals("003 49 Salesman 49.00", handler.records.get(49));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalParseMissingField() throws Exception {
+        parse(FlatFileProcessorTest.INVALID_DATA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalParseEmptyLine() throws Exception {
+        parse("001ç1çA\n\n001ç2çB\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalParseItemWithoutPrice() throws Exception {
+        parse("003ç1ç[1-1]çA\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalParseItemWithoutQuantity() throws Exception {
+        parse("003ç1ç[1--10]çA\n");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testOffNominalParseInvalidPrice() throws Exception {
+        parse("003ç1ç[1-1-abc]çA\n");
+    }
+
+    private static RecordingHandler parse(String data) {
+        RecordingHandler handler = new RecordingHandler();
+        new DatFileParser(handler).parse(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), 0, true);
+        return handler;
+    }
+
+    private static class RecordingHandler implements DatRecordHandler {
+
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void onSalesman(String cpf) {
+            records.add("001 " + cpf);
+        }
+
+        @Override
+        public void onCustomer(String cnpj) {
+            records.add("002 " + cnpj);
+        }
+
+        @Override
+        public void onSale(SaleRecord sale) {
+            records.add("003 " + sale.getSaleId() + " " + sale.getSalesman() + " " + sale.getValue());
+        }
+    }
+
+}
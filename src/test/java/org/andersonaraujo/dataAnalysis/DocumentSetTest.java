@@ -0,0 +1,69 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link DocumentSet}.
+ */
+public class DocumentSetTest {
+
+    @Test
+    public void testNominalAdd() {
+        DocumentSet documents = new DocumentSet();
+        for (int i = 0; i < 10000; i++) {
+            documents.add(String.valueOf(1000000000000L + i % 5000));
+        }
+        documents.add("2345675434544345");
+        documents.add("2345675434544345");
+
+        assertEquals(5001, documents.size());
+    }
+
+    @Test
+    public void testNominalLeadingZerosAndFormattedDocuments() {
+        DocumentSet documents = new DocumentSet();
+        documents.add("123");
+        documents.add("0123");
+        documents.add("00123");
+        documents.add("123.456.789-00");
+        documents.add("123.456.789-00");
+        documents.add("123456789012345678");
+
+        assertEquals(5, documents.size());
+        assertEquals("00123", DocumentSet.unpack(DocumentSet.pack("00123")));
+        assertEquals("99999999999999999", DocumentSet.unpack(DocumentSet.pack("99999999999999999")));
+    }
+
+    @Test
+    public void testNominalMergeAndWrite() throws Exception {
+        DocumentSet documents = new DocumentSet();
+        documents.add("1");
+        documents.add("A1");
+        DocumentSet next = new DocumentSet();
+        next.add("1");
+        next.add("2");
+        next.add("A2");
+        documents.merge(next);
+        assertEquals(4, documents.size());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        documents.write(new DataOutputStream(bytes));
+        DocumentSet read = new DocumentSet();
+        read.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        Set<String> values = new HashSet<>();
+        read.forEach(values::add);
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "A1", "A2")), values);
+    }
+
+}
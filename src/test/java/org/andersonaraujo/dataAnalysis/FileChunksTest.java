@@ -0,0 +1,43 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Test class for {@link FileChunks}.
+ */
+public class FileChunksTest {
+
+    @Test
+    public void testNominalSplitOnLineBreaks() throws Exception {
+        assertArrayEquals(new long[]{0, 8, 16, 20}, split("0123456\n0123456\n012\n", 4));
+    }
+
+    @Test
+    public void testNominalSplitKeepsCarriageReturnAndLineFeedTogether() throws Exception {
+        assertArrayEquals(new long[]{0, 5, 10}, split("012\r\n012\r\n", 3));
+        assertArrayEquals(new long[]{0, 4, 8}, split("012\r012\r", 2));
+    }
+
+    @Test
+    public void testNominalSplitSmallFile() throws Exception {
+        assertArrayEquals(new long[]{0, 4}, split("012\n", 4));
+        assertArrayEquals(new long[]{0, 0}, split("", 4));
+    }
+
+    private static long[] split(String data, long chunkSize) throws Exception {
+        File file = File.createTempFile("temp-file", ".dat");
+        Files.write(file.toPath(), data.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return FileChunks.split(channel, chunkSize);
+        }
+    }
+
+}
@@ -9,9 +9,9 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -148,32 +148,58 @@ public class FlatFileProcessorTest {
     }
 
 
+    /**
+     * Nominal test when the file is split in chunks that are parsed in parallel.
+     */
+    @Test
+    public void testNominalGenerateOutputWhenSplitInChunks() throws Exception {
+        File tempFile = File.createTempFile("temp-file", ".dat");
+        writeToFile(tempFile, SALESMAN_DATA + CLIENT_DATA + SALES_DATA + SALES_DATA.replace("ç10ç", "ç11ç"));
+
+        String path = pathToFile(tempFile);
+        FlatFileProcessor processor = new FlatFileProcessor(tempFile.getName(), path, path, 16, true, null);
+        Future<Boolean> result = EXECUTOR.submit(processor);
+        assertTrue("File should be processed.", result.get());
+
+        String expectedOutput = "001çAmountClientsç2\n" +
+                "002çAmountSalesmanç2\n" +
+                "003çMostExpensiveSaleç10\n" +
+                "004çWorstSalesmançRenato\n" +
+                "005çItemSalesç1ç88ç2680.00\n" +
+                "005çItemSalesç2ç126ç249.00\n" +
+                "005çItemSalesç3ç160ç256.00\n";
+        assertEquals("Invalid output generated.", expectedOutput, processor.generateOutput());
+        validate(processor, true, 2, 2, "10", "Renato");
+    }
+
     private void validate(Callable<Boolean> processorCallable, boolean result, int expectedAmountOfSalesman,
                           int expectedAmountOfClients, String expectedIdMostExpensiveSales,
                           String expectedWorstSalesman) throws Exception {
 
-        FlatFileProcessor processor = (FlatFileProcessor) processorCallable;
+        FlatFileProcessor processorInstance = (FlatFileProcessor) processorCallable;
+        SalesSummary processor = TestUtil.getFieldOnObject(processorInstance, "summary", SalesSummary.class);
 
         assertTrue("File should be processed.", result);
 
         if (expectedAmountOfSalesman >= 0) {
-            Set salesmanCpfs = TestUtil.getFieldOnObject(processor, "salesmanCpfs", Set.class);
+            DistinctCounter salesmanCpfs = processor.getSalesmanCpfs();
             assertEquals("Invalid amount of Salesman.", expectedAmountOfSalesman, salesmanCpfs.size());
         }
 
         if (expectedAmountOfClients >= 0) {
-            Set clientsCnpjs = TestUtil.getFieldOnObject(processor, "clientsCnpjs", Set.class);
+            DistinctCounter clientsCnpjs = processor.getClientsCnpjs();
             assertEquals("Invalid amount of Clients.", expectedAmountOfClients, clientsCnpjs.size());
         }
 
         if (expectedIdMostExpensiveSales != null) {
-            String mostExpensiveSaleId = TestUtil.getFieldOnObject(processor, "mostExpensiveSaleId", String.class);
+            String mostExpensiveSaleId = processor.getMostExpensiveSaleId();
             assertEquals("Invalid most expensive sales id.", expectedIdMostExpensiveSales, mostExpensiveSaleId);
         }
 
         if (expectedWorstSalesman != null) {
-            @SuppressWarnings("unchecked")
-            Map<String, BigDecimal> salesmanSales = TestUtil.getFieldOnObject(processor, "salesmanSales", Map.class);
+            SalesmanTotals salesmanTotals = processor.getSalesmanTotals();
+            Map<String, BigDecimal> salesmanSales = new LinkedHashMap<>();
+            salesmanTotals.forEach((salesman, total) -> salesmanSales.put(salesman, total.toBigDecimal()));
 
             Comparator<Map.Entry<String, BigDecimal>> byValue = (entry1, entry2) -> entry1.getValue().compareTo(
                     entry2.getValue());
@@ -0,0 +1,149 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for {@link GlobalSummary}.
+ */
+public class GlobalSummaryTest {
+
+    @Test
+    public void testNominalMergeFiles() throws Exception {
+        Path directory = Files.createTempDirectory("global");
+        GlobalSummary globalSummary = new GlobalSummary(directory.resolve("global.done.dat"),
+                directory.resolve("global.snapshot"));
+
+        globalSummary.merge(summary(FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.SALES_DATA));
+        globalSummary.merge(summary(FlatFileProcessorTest.CLIENT_DATA + "003ç20ç[1-1-5000]çRenato\n"));
+
+        assertEquals("001çAmountClientsç2\n" +
+                "002çAmountSalesmanç2\n" +
+                "003çMostExpensiveSaleç20\n" +
+                "004çWorstSalesmançDiego\n", globalSummary.generateOutput());
+    }
+
+    @Test
+    public void testNominalFlushAndLoad() throws Exception {
+        Path directory = Files.createTempDirectory("global");
+        Path outputFile = directory.resolve("global.done.dat");
+        Path snapshotFile = directory.resolve("global.snapshot");
+
+        GlobalSummary globalSummary = GlobalSummary.load(outputFile, snapshotFile);
+        globalSummary.merge(summary(FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+                + FlatFileProcessorTest.SALES_DATA));
+        globalSummary.flush();
+
+        String expectedOutput = globalSummary.generateOutput();
+        assertEquals(expectedOutput, new String(Files.readAllBytes(outputFile), StandardCharsets.UTF_8));
+
+        GlobalSummary restored = GlobalSummary.load(outputFile, snapshotFile);
+        assertEquals(expectedOutput, restored.generateOutput());
+
+        restored.merge(summary("003ç30ç[1-1-1]çRenato\n"));
+        assertEquals("004çWorstSalesmançRenato", restored.generateOutput().split("\n")[3]);
+        assertFalse(Files.exists(directory.resolve("global.snapshot.tmp")));
+    }
+
+    @Test
+    public void testNominalJournalFilesOnceFlushed() throws Exception {
+        Path directory = Files.createTempDirectory("global");
+        Path outputFile = directory.resolve("global.done.dat");
+        Path snapshotFile = directory.resolve("global.snapshot");
+        Path journalFile = directory.resolve(ProcessedJournal.FILE_NAME);
+        Path first = Files.write(directory.resolve("first.dat"), "first".getBytes(StandardCharsets.UTF_8));
+        Path second = Files.write(directory.resolve("second.dat"), "second".getBytes(StandardCharsets.UTF_8));
+
+        ProcessedJournal journal = ProcessedJournal.open(journalFile);
+        GlobalSummary globalSummary = GlobalSummary.load(outputFile, snapshotFile);
+        globalSummary.journalTo(journal);
+        globalSummary.merge(summary(FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.SALES_DATA), first);
+        assertFalse(journal.isCompleted(first));
+        globalSummary.flush();
+        assertTrue(journal.isCompleted(first));
+
+        // Stops after the snapshot is written but before the journal is
+        globalSummary.merge(summary("003ç30ç[1-1-1]çRenato\n"), second);
+        journal.close();
+        try {
+            globalSummary.flush();
+            fail("The journal is closed.");
+        } catch (IOException expected) {
+            // The snapshot lists the second file
+        }
+
+        journal = ProcessedJournal.open(journalFile);
+        assertFalse(journal.isCompleted(second));
+        GlobalSummary restored = GlobalSummary.load(outputFile, snapshotFile);
+        restored.journalTo(journal);
+        assertTrue(journal.isCompleted(first));
+        assertTrue(journal.isCompleted(second));
+        assertEquals(globalSummary.generateOutput(), restored.generateOutput());
+        journal.close();
+    }
+
+    @Test
+    public void testNominalLoadExactSnapshotInApproximateMode() throws Exception {
+        Path directory = Files.createTempDirectory("global");
+        Path outputFile = directory.resolve("global.done.dat");
+        Path snapshotFile = directory.resolve("global.snapshot");
+
+        GlobalSummary exact = GlobalSummary.load(outputFile, snapshotFile, DistinctCountMode.EXACT);
+        exact.merge(summary(FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+                + FlatFileProcessorTest.SALES_DATA, DistinctCountMode.EXACT));
+        exact.flush();
+
+        GlobalSummary approximate = GlobalSummary.load(outputFile, snapshotFile, DistinctCountMode.APPROXIMATE);
+        approximate.merge(summary("002ç2345675434544345çJosedaSilvaçRural\n002ç99çOtherçRural\n",
+                DistinctCountMode.APPROXIMATE));
+        assertEquals(3, approximate.getAmountOfClients());
+        assertEquals(2, approximate.getAmountOfSalesman());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffNominalLoadApproximateSnapshotInExactMode() throws Exception {
+        Path directory = Files.createTempDirectory("global");
+        Path outputFile = directory.resolve("global.done.dat");
+        Path snapshotFile = directory.resolve("global.snapshot");
+
+        GlobalSummary approximate = GlobalSummary.load(outputFile, snapshotFile, DistinctCountMode.APPROXIMATE);
+        approximate.merge(summary(FlatFileProcessorTest.CLIENT_DATA, DistinctCountMode.APPROXIMATE));
+        approximate.flush();
+
+        GlobalSummary.load(outputFile, snapshotFile, DistinctCountMode.EXACT);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffNominalLoadSnapshotOfOtherVersion() throws Exception {
+        Path directory = Files.createTempDirectory("global");
+        Path snapshotFile = directory.resolve("global.snapshot");
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(snapshotFile))) {
+            output.writeInt(0x44415331);
+            output.writeInt(2);
+        }
+
+        GlobalSummary.load(directory.resolve("global.done.dat"), snapshotFile);
+    }
+
+    private static SalesSummary summary(String data) {
+        return summary(data, DistinctCountMode.EXACT);
+    }
+
+    private static SalesSummary summary(String data, DistinctCountMode distinctCount) {
+        SalesSummary summary = new SalesSummary(false, distinctCount);
+        new DatFileParser(summary).parse(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), 0, true);
+        return summary;
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link HyperLogLog}.
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void testNominalSmallCounts() {
+        HyperLogLog estimate = new HyperLogLog(12);
+        estimate.add("2345675434544345");
+        estimate.add("2345675433444345");
+        estimate.add("2345675434544345");
+
+        assertEquals(2, estimate.size());
+        assertEquals(0, new HyperLogLog(12).size());
+    }
+
+    @Test
+    public void testNominalErrorBound() {
+        HyperLogLog estimate = new HyperLogLog(12);
+        int distinct = 1000000;
+        for (int i = 0; i < distinct; i++) {
+            estimate.add(String.valueOf(10000000000000L + i));
+        }
+
+        // Three standard errors
+        double error = Math.abs(estimate.size() - distinct) / (double) distinct;
+        assertTrue("Error of " + error, error < 3 * HyperLogLog.standardError(12));
+    }
+
+    @Test
+    public void testNominalMerge() throws Exception {
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        for (int i = 0; i < 3000; i++) {
+            first.add("A" + i);
+            second.add("A" + (i + 1500));
+        }
+        HyperLogLog all = new HyperLogLog(10);
+        for (int i = 0; i < 4500; i++) {
+            all.add("A" + i);
+        }
+
+        first.merge(second);
+        assertEquals(all.size(), first.size());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        first.write(new DataOutputStream(bytes));
+        HyperLogLog read = new HyperLogLog(10);
+        read.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(all.size(), read.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffNominalReadOtherPrecision() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new HyperLogLog(10).write(new DataOutputStream(bytes));
+        new HyperLogLog(12).read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalPrecision() {
+        new HyperLogLog(30);
+    }
+
+}
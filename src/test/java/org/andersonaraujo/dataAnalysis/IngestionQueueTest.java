@@ -0,0 +1,274 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link IngestionQueue}.
+ */
+public class IngestionQueueTest {
+
+    @Test
+    public void testNominalSmallestFirst() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        IngestionQueue queue = new IngestionQueue(1, 10, SchedulingPolicy.SMALLEST_FIRST, fileName -> () -> {
+            blocker.await();
+            processed.add(fileName);
+            return true;
+        });
+
+        queue.submit(file(directory, "first.dat", 1));
+        waitUntilQueueIsEmpty(queue);
+        queue.submit(file(directory, "big.dat", 300));
+        queue.submit(file(directory, "small.dat", 10));
+        queue.submit(file(directory, "medium.dat", 200));
+        blocker.countDown();
+
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("[first.dat, small.dat, medium.dat, big.dat]", processed.toString());
+    }
+
+    @Test
+    public void testNominalSubmitBlocksWhenFull() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        IngestionQueue queue = new IngestionQueue(1, 1, SchedulingPolicy.FIFO, fileName -> () -> {
+            blocker.await();
+            return true;
+        });
+        queue.submit(file(directory, "1.dat", 1));
+        queue.submit(file(directory, "2.dat", 1));
+
+        Thread producer = new Thread(() -> {
+            try {
+                queue.submit(file(directory, "3.dat", 1));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue("Submit should wait for room in the queue.", producer.isAlive());
+
+        blocker.countDown();
+        producer.join(10000);
+        assertFalse(producer.isAlive());
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNominalDrainDropsQueuedFiles() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        IngestionQueue queue = new IngestionQueue(1, 10, SchedulingPolicy.FIFO, fileName -> () -> {
+            blocker.await();
+            processed.add(fileName);
+            return true;
+        });
+        queue.submit(file(directory, "1.dat", 1));
+        waitUntilQueueIsEmpty(queue);
+        queue.submit(file(directory, "2.dat", 1));
+        queue.submit(file(directory, "3.dat", 1));
+
+        assertEquals(2, queue.drain());
+        assertFalse(queue.submit(file(directory, "4.dat", 1)));
+        assertFalse(queue.isPending("2.dat"));
+        blocker.countDown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals("[1.dat]", processed.toString());
+    }
+
+    @Test
+    public void testOffNominalAbortInterruptsFiles() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        IngestionQueue queue = new IngestionQueue(1, 10, SchedulingPolicy.FIFO, fileName -> () -> {
+            blocker.await();
+            return true;
+        });
+        queue.submit(file(directory, "1.dat", 1));
+        waitUntilQueueIsEmpty(queue);
+
+        queue.drain();
+        assertFalse(queue.awaitTermination(100, TimeUnit.MILLISECONDS));
+        queue.abort();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNominalChangeConcurrency() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        IngestionQueue queue = new IngestionQueue(ExecutorStrategy.ADAPTIVE, 1, 10, SchedulingPolicy.FIFO,
+                fileName -> () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    blocker.await();
+                    running.decrementAndGet();
+                    return true;
+                });
+        queue.setConcurrency(3);
+        for (int i = 0; i < 5; i++) {
+            queue.submit(file(directory, i + ".dat", 1));
+        }
+        while (running.get() < 3) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, queue.getActiveCount());
+
+        queue.setConcurrency(1);
+        assertEquals(1, queue.getConcurrency());
+        assertEquals(3, queue.getActiveCount());
+        blocker.countDown();
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(3, maxRunning.get());
+        assertEquals(5, queue.sample().getFiles());
+    }
+
+    @Test
+    public void testNominalActiveCount() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        IngestionQueue queue = new IngestionQueue(2, 10, SchedulingPolicy.FIFO, fileName -> () -> {
+            started.countDown();
+            blocker.await();
+            return true;
+        });
+        assertEquals(0, queue.getActiveCount());
+        queue.submit(file(directory, "1.dat", 1));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // The dispatcher holds the second permit while it waits for another file
+        Thread.sleep(50);
+        assertEquals(1, queue.getActiveCount());
+        blocker.countDown();
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, queue.getActiveCount());
+    }
+
+    @Test
+    public void testOffNominalSubmitSameFileTwice() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        IngestionQueue queue = new IngestionQueue(1, 10, SchedulingPolicy.FIFO, fileName -> () -> {
+            blocker.await();
+            return true;
+        });
+        Path file = file(directory, "1.dat", 1);
+
+        assertTrue(queue.submit(file));
+        assertFalse(queue.submit(file));
+        blocker.countDown();
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNominalConcurrencyLimit() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (ExecutorStrategy strategy : ExecutorStrategy.values()) {
+            running.set(0);
+            maxRunning.set(0);
+            IngestionQueue queue = new IngestionQueue(strategy, 3, 20, SchedulingPolicy.FIFO, fileName -> () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return true;
+            });
+            for (int i = 0; i < 20; i++) {
+                queue.submit(file(directory, i + ".dat", 1));
+            }
+
+            queue.shutdown();
+            assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(strategy + " should process 3 files at a time.", 3, maxRunning.get());
+            assertEquals(0, queue.getActiveCount());
+        }
+    }
+
+    @Test
+    public void testNominalStrategyConcurrency() {
+        assertEquals(5, ExecutorStrategy.FIXED.concurrency(5, 256));
+        assertEquals(2, ExecutorStrategy.FIXED.concurrency(5, 2));
+        assertEquals(Math.min(Runtime.getRuntime().availableProcessors(), 256),
+                ExecutorStrategy.CPU.concurrency(5, 256));
+        assertEquals(256, ExecutorStrategy.of("virtual").concurrency(5, 256));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalUnknownStrategy() {
+        ExecutorStrategy.of("elastic");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalInvalidConcurrency() {
+        new IngestionQueue(0, 10, SchedulingPolicy.FIFO, fileName -> () -> true);
+    }
+
+    @Test
+    public void testNominalMeasureChunkedFiles() throws Exception {
+        Path directory = Files.createTempDirectory("queue");
+        StringBuilder data = new StringBuilder(FlatFileProcessorTest.SALESMAN_DATA);
+        while (data.length() < 8 * 1024 * 1024) {
+            data.append(FlatFileProcessorTest.SALES_DATA);
+        }
+        Path file = Files.write(directory.resolve("big.dat"), data.toString().getBytes(StandardCharsets.UTF_8));
+        String path = directory.toString() + "/";
+
+        // The worker only waits for the chunks, which are parsed on the common pool
+        IngestionQueue queue = new IngestionQueue(ExecutorStrategy.ADAPTIVE, 1, 1, SchedulingPolicy.FIFO,
+                fileName -> () -> new FlatFileProcessor(fileName, path, path, 64 * 1024, false, null).processFile());
+        assertTrue(queue.isMeasured());
+        queue.submit(file);
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(30, TimeUnit.SECONDS));
+
+        IngestionQueue.Sample sample = queue.sample();
+        assertEquals(1, sample.getFiles());
+        // Without the chunks the ratio would be near 0, and the compiler and the collector run on other threads
+        assertTrue("CPU ratio " + sample.getCpuRatio(), sample.getCpuRatio() > 0.25);
+    }
+
+    private static Path file(Path directory, String name, int size) throws Exception {
+        return Files.write(directory.resolve(name), new byte[size]);
+    }
+
+    private static void waitUntilQueueIsEmpty(IngestionQueue queue) throws InterruptedException {
+        while (queue.getQueueDepth() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+}
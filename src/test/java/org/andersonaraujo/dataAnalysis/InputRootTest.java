@@ -0,0 +1,205 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link InputRoot}.
+ */
+public class InputRootTest {
+
+    private static final String DATA = FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+            + FlatFileProcessorTest.SALES_DATA;
+
+    @Test
+    public void testNominalParseRoots() {
+        List<InputRoot> roots = InputRoot.parse("/disk1/in=/disk1/reports@4, /disk2/in");
+
+        assertEquals(2, roots.size());
+        assertEquals(Paths.get("/disk1/in"), roots.get(0).getInput());
+        assertEquals(Paths.get("/disk1/reports"), roots.get(0).getOutput());
+        assertEquals(4, roots.get(0).getWorkers());
+        assertEquals(Paths.get("/disk2/in"), roots.get(1).getInput());
+        assertEquals(Paths.get("/disk2/out"), roots.get(1).getOutput());
+        assertEquals(0, roots.get(1).getWorkers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalParseInvalidWorkers() {
+        InputRoot.parse("/disk1/in@none");
+    }
+
+    @Test
+    public void testNominalClaimOnce() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("file.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+
+        Path claimed = root.claim("file.dat", "first");
+
+        assertEquals(root.processingDirectory("first").resolve("file.dat"), claimed);
+        assertNull(root.claim("file.dat", "second"));
+        assertEquals(claimed, root.claim("file.dat", "first"));
+        assertFalse(Files.exists(root.getInput().resolve("file.dat")));
+    }
+
+    @Test
+    public void testNominalProcessClaimedFile() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("file.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(root.processor("file.dat", "first", (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput()))).call());
+        assertFalse(root.processor("file.dat", "second", (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput()))).call());
+
+        assertTrue(Files.exists(root.getOutput().resolve("file.done.dat")));
+        assertTrue(Files.exists(root.getInput().resolve(InputRoot.PROCESSED_DIRECTORY).resolve("file.dat")));
+        assertFalse(Files.exists(root.processingDirectory("first").resolve("file.dat")));
+    }
+
+    @Test
+    public void testOffNominalClaimedFileKeptUntilPublished() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("file.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        OutputWriter writer = new OutputWriter(4, false);
+
+        assertFalse(root.processor("file.dat", "first", (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput().resolve("missing")), null, null, writer)).call());
+        writer.close();
+
+        assertTrue(Files.exists(root.processingDirectory("first").resolve("file.dat")));
+        assertFalse(Files.exists(root.getInput().resolve(InputRoot.PROCESSED_DIRECTORY).resolve("file.dat")));
+    }
+
+    @Test
+    public void testNominalScanResumesClaimedFiles() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("new.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.getInput().resolve("old.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.getOutput().resolve("old.done.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(root.processingDirectory("first"));
+        Files.write(root.processingDirectory("first").resolve("claimed.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        ReadinessGate readinessGate = new ReadinessGate(null, 0, true);
+        root.start(null, readinessGate, null);
+
+        root.scan("first");
+
+        assertEquals(2, readinessGate.getPendingCount());
+    }
+
+    @Test
+    public void testNominalReconcileMissedFiles() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("old.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.getOutput().resolve("old.done.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.getInput().resolve("failed.dat"),
+                FlatFileProcessorTest.INVALID_DATA.getBytes(StandardCharsets.UTF_8));
+        ReadinessGate readinessGate = new ReadinessGate(null, 0, true);
+        root.start(null, readinessGate, null);
+        assertFalse(root.processor("failed.dat", null, (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput()))).call());
+
+        // The failed file is not tried again until it changes
+        assertEquals(0, root.reconcile());
+        assertFalse(readinessGate.isTracked(root.getInput().resolve("failed.dat")));
+
+        Files.write(root.getInput().resolve("missed.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, root.reconcile());
+        assertEquals(0, root.reconcile());
+        assertEquals(1, readinessGate.getPendingCount());
+        assertTrue(readinessGate.isTracked(root.getInput().resolve("missed.dat")));
+    }
+
+    @Test
+    public void testNominalReconcileStopsWhenGateIsFull() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("first.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.getInput().resolve("second.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        ReadinessGate readinessGate = new ReadinessGate(null, 0, true, 1);
+        root.start(null, readinessGate, null);
+
+        assertEquals(1, root.reconcile());
+        assertEquals(0, root.reconcile());
+        assertEquals(1, readinessGate.getPendingCount());
+    }
+
+    @Test
+    public void testNominalReconcileChangedFailedFile() throws Exception {
+        InputRoot root = root();
+        Path failed = root.getInput().resolve("failed.dat");
+        Files.write(failed, FlatFileProcessorTest.INVALID_DATA.getBytes(StandardCharsets.UTF_8));
+        ReadinessGate readinessGate = new ReadinessGate(null, 0, true);
+        root.start(null, readinessGate, null);
+        assertFalse(root.processor("failed.dat", null, (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput()))).call());
+        assertEquals(0, root.reconcile());
+
+        Files.write(failed, DATA.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(1, root.reconcile());
+        assertTrue(readinessGate.isTracked(failed));
+    }
+
+    @Test
+    public void testOffNominalUnpublishedFileReconciledAgain() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("file.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        ReadinessGate readinessGate = new ReadinessGate(null, 0, true);
+        root.start(null, readinessGate, null);
+        OutputWriter writer = new OutputWriter(4, false);
+
+        assertFalse(root.processor("file.dat", null, (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput().resolve("missing")), null, null, writer)).call());
+        writer.close();
+        assertEquals(0, root.reconcile());
+
+        // Queued again once it changes, as the output directory may have been fixed meanwhile
+        Files.setLastModifiedTime(root.getInput().resolve("file.dat"), FileTime.fromMillis(0));
+        assertEquals(1, root.reconcile());
+        assertTrue(readinessGate.isTracked(root.getInput().resolve("file.dat")));
+    }
+
+    @Test
+    public void testNominalScanSkipsJournaledFiles() throws Exception {
+        InputRoot root = root();
+        Files.write(root.getInput().resolve("file.dat"), DATA.getBytes(StandardCharsets.UTF_8));
+        ProcessedJournal journal = ProcessedJournal.open(root.getInput().resolveSibling(ProcessedJournal.FILE_NAME));
+        GlobalSummary globalSummary = new GlobalSummary(root.getOutput().resolve("global.done.dat"),
+                root.getInput().resolveSibling(GlobalSummary.SNAPSHOT_FILE_NAME));
+        globalSummary.journalTo(journal);
+        root.start(null, new ReadinessGate(null, 0, true), journal);
+
+        assertTrue(root.processor("file.dat", null, (name, input) -> new FlatFileProcessor(name, input,
+                InputRoot.directory(root.getOutput()), globalSummary)).call());
+        globalSummary.flush();
+        journal.close();
+        Files.delete(root.getOutput().resolve("file.done.dat"));
+
+        InputRoot restarted = new InputRoot(root.getInput(), root.getOutput(), 0);
+        ReadinessGate readinessGate = new ReadinessGate(null, 0, true);
+        restarted.start(null, readinessGate,
+                ProcessedJournal.open(root.getInput().resolveSibling(ProcessedJournal.FILE_NAME)));
+        restarted.scan(null);
+
+        assertEquals(0, readinessGate.getPendingCount());
+    }
+
+    private static InputRoot root() throws Exception {
+        Path directory = Files.createTempDirectory("roots");
+        InputRoot root = new InputRoot(directory.resolve("in"), directory.resolve("out"), 0);
+        root.createDirectories();
+        return root;
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test class for {@link ItemTotals}.
+ */
+public class ItemTotalsTest {
+
+    @Test
+    public void testNominalAddGrowsTable() {
+        ItemTotals itemTotals = new ItemTotals(2);
+        for (long itemId = 0; itemId < 1000; itemId++) {
+            itemTotals.add(itemId, money("2"), money("1.50"));
+            itemTotals.add(itemId, money("1"), money("0.25"));
+        }
+
+        assertEquals(1000, itemTotals.size());
+        assertEquals(0, new BigDecimal("3").compareTo(itemTotals.getUnits(999)));
+        assertEquals(new BigDecimal("1.75"), itemTotals.getRevenue(0));
+        assertNull(itemTotals.getRevenue(1000));
+    }
+
+    @Test
+    public void testNominalMerge() {
+        ItemTotals first = new ItemTotals();
+        first.add(7, money("1"), money("10"));
+        ItemTotals second = new ItemTotals();
+        second.add(7, money("2"), money("20"));
+        second.add(3, money("1"), money("0.001"));
+
+        first.merge(second);
+
+        assertArrayEquals(new long[]{3, 7}, first.itemIds());
+        assertEquals(0, new BigDecimal("30").compareTo(first.getRevenue(7)));
+        assertEquals(0, new BigDecimal("0.001").compareTo(first.getRevenue(3)));
+    }
+
+    @Test
+    public void testNominalAddOverflow() {
+        ItemTotals itemTotals = new ItemTotals();
+        Money big = new Money();
+        big.add(Long.MAX_VALUE / 100, 0);
+        itemTotals.add(1, big, big);
+        itemTotals.add(1, big, big);
+
+        BigDecimal expected = BigDecimal.valueOf(Long.MAX_VALUE / 100).multiply(BigDecimal.valueOf(2));
+        assertEquals(0, expected.compareTo(itemTotals.getRevenue(1)));
+    }
+
+    private static Money money(String value) {
+        BigDecimal decimal = new BigDecimal(value);
+        Money money = new Money();
+        money.add(decimal.unscaledValue().longValue(), decimal.scale());
+        return money;
+    }
+
+}
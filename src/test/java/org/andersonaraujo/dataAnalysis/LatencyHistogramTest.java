@@ -0,0 +1,55 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testNominalBuckets() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value + " is above its bucket", value <= LatencyHistogram.upperBound(index));
+            if (index > 0) {
+                assertTrue(value + " is below its bucket", value > LatencyHistogram.upperBound(index - 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.index(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testNominalPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500, histogram.getMeanMicros());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertWithinError(500, histogram.getP50Micros());
+        assertWithinError(900, histogram.getP90Micros());
+        assertWithinError(990, histogram.getP99Micros());
+    }
+
+    @Test
+    public void testOffNominalEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, new LatencyHistogram().getP50Micros());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * 1.125);
+    }
+
+}
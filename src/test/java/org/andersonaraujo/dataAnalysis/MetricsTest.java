@@ -0,0 +1,75 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link Metrics}.
+ */
+public class MetricsTest {
+
+    @Test
+    public void testNominalDump() throws Exception {
+        Metrics metrics = new Metrics();
+        metrics.setGauges(() -> 3, () -> 2, () -> 1);
+        metrics.fileProcessed(100);
+        metrics.fileProcessed(50);
+        metrics.fileFailed(true);
+        metrics.fileFailed(false);
+        metrics.record(Metrics.Stage.PARSE, 2000000);
+
+        Path file = Files.createTempDirectory("metrics").resolve(Metrics.FILE_NAME);
+        metrics.dump(file);
+        String output = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+
+        assertTrue(output.contains("filesProcessed=2\n"));
+        assertTrue(output.contains("filesFailed=2\n"));
+        assertTrue(output.contains("parseErrors=1\n"));
+        assertTrue(output.contains("bytesProcessed=150\n"));
+        assertTrue(output.contains("queueDepth=3\nactiveWorkers=2\npendingFiles=1\n"));
+        assertTrue(output.contains("latency.parse=count=1 mean=2000us"));
+        assertTrue(output.contains("latency.queue_wait=count=0 "));
+        assertFalse(Files.exists(file.resolveSibling(Metrics.FILE_NAME + ".tmp")));
+
+        // The rates only count what happened since the previous dump
+        assertTrue(metrics.generateOutput().contains("filesPerSecond=0.00\n"));
+    }
+
+    @Test
+    public void testNominalFileProcessed() throws Exception {
+        Path directory = Files.createTempDirectory("metrics");
+        String data = FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+                + FlatFileProcessorTest.SALES_DATA;
+        Files.write(directory.resolve("metrics.dat"), data.getBytes(StandardCharsets.UTF_8));
+        long processed = Metrics.INSTANCE.getFilesProcessed();
+        long parsed = Metrics.INSTANCE.getLatency(Metrics.Stage.PARSE).getCount();
+
+        String path = directory.toString() + "/";
+        assertTrue(new FlatFileProcessor("metrics.dat", path, path).processFile());
+
+        assertEquals(processed + 1, Metrics.INSTANCE.getFilesProcessed());
+        assertEquals(parsed + 1, Metrics.INSTANCE.getLatency(Metrics.Stage.PARSE).getCount());
+    }
+
+    @Test
+    public void testNominalRegister() throws Exception {
+        Metrics.INSTANCE.register();
+        Metrics.INSTANCE.register();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(new ObjectName("org.andersonaraujo.dataAnalysis:type=Metrics")));
+        assertEquals(Metrics.INSTANCE.getLatency(Metrics.Stage.WRITE).getCount(), server.getAttribute(
+                new ObjectName("org.andersonaraujo.dataAnalysis:type=Latency,stage=write"), "Count"));
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link Money}.
+ */
+public class MoneyTest {
+
+    @Test
+    public void testNominalAddDigits() {
+        Money money = new Money();
+        money.add(250, 2);
+        money.add(31, 1);
+        money.add(100, 0);
+
+        assertEquals(new BigDecimal("105.60"), money.toBigDecimal());
+    }
+
+    @Test
+    public void testNominalAddMoreDecimalPlacesThanScale() {
+        Money money = new Money();
+        money.add(1, 2);
+        money.add(1, 5);
+
+        assertEquals(0, new BigDecimal("0.01001").compareTo(money.toBigDecimal()));
+    }
+
+    @Test
+    public void testNominalAddOverflow() {
+        Money money = new Money();
+        money.add(Long.MAX_VALUE / 100, 0);
+        money.add(Long.MAX_VALUE / 100, 0);
+
+        BigDecimal expected = BigDecimal.valueOf(Long.MAX_VALUE / 100).multiply(BigDecimal.valueOf(2));
+        assertEquals(0, expected.compareTo(money.toBigDecimal()));
+    }
+
+    @Test
+    public void testNominalCompareTo() {
+        Money small = new Money();
+        small.add(999, 2);
+        Money big = new Money();
+        big.add(new BigDecimal("10.001"));
+
+        assertTrue(small.compareTo(big) < 0);
+        assertTrue(big.compareTo(small) > 0);
+
+        Money copy = new Money();
+        copy.set(big);
+        assertEquals(0, copy.compareTo(big));
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link OutputWriter}.
+ */
+public class OutputWriterTest {
+
+    @Test
+    public void testNominalWriteManyFiles() throws Exception {
+        Path directory = Files.createTempDirectory("output");
+        OutputWriter writer = new OutputWriter(8, true);
+
+        List<CompletableFuture<Void>> published = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            published.add(writer.write(directory.resolve(i + ".done.dat"), "001çAmountClientsç" + i + "\n"));
+        }
+        CompletableFuture.allOf(published.toArray(new CompletableFuture<?>[0])).get();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("001çAmountClientsç" + i + "\n", read(directory.resolve(i + ".done.dat")));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(50, files.count());
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testNominalSameFileTwiceInBatch() throws Exception {
+        Path directory = Files.createTempDirectory("output");
+        OutputWriter writer = new OutputWriter(8, true);
+
+        CompletableFuture<Void> first = writer.write(directory.resolve("file.done.dat"), "001çAmountClientsç1\n");
+        CompletableFuture<Void> second = writer.write(directory.resolve("file.done.dat"), "001çAmountClientsç2\n");
+        CompletableFuture.allOf(first, second).get();
+
+        assertEquals("001çAmountClientsç2\n", read(directory.resolve("file.done.dat")));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testNominalOutputBiggerThanBuffer() throws Exception {
+        Path directory = Files.createTempDirectory("output");
+        OutputWriter writer = new OutputWriter(4, false);
+        StringBuilder content = new StringBuilder();
+        while (content.length() <= OutputWriter.BUFFER_SIZE) {
+            content.append("005çItemSalesç1ç88ç2680.00\n");
+        }
+
+        writer.write(directory.resolve("big.done.dat"), content).get();
+        writer.write(directory.resolve("small.done.dat"), "çç\n").get();
+
+        assertEquals(content.toString(), read(directory.resolve("big.done.dat")));
+        assertEquals("çç\n", read(directory.resolve("small.done.dat")));
+        writer.close();
+    }
+
+    @Test
+    public void testNominalCloseWritesQueuedOutputs() throws Exception {
+        Path directory = Files.createTempDirectory("output");
+        String path = directory.toString() + "/";
+        Files.write(directory.resolve("file.dat"), (FlatFileProcessorTest.SALESMAN_DATA
+                + FlatFileProcessorTest.CLIENT_DATA + FlatFileProcessorTest.SALES_DATA)
+                .getBytes(StandardCharsets.UTF_8));
+        OutputWriter writer = new OutputWriter(16, true);
+
+        assertTrue(new FlatFileProcessor("file.dat", path, path, null, null, writer).processFile());
+        writer.close();
+
+        assertEquals("001çAmountClientsç2\n" +
+                "002çAmountSalesmanç2\n" +
+                "003çMostExpensiveSaleç10\n" +
+                "004çWorstSalesmançRenato\n", read(directory.resolve("file.done.dat")));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.anyMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testOffNominalMissingDirectory() throws Exception {
+        Path directory = Files.createTempDirectory("output");
+        OutputWriter writer = new OutputWriter(4, true);
+        try {
+            writer.write(directory.resolve("missing").resolve("file.done.dat"), "001\n").get();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testOffNominalUnpublishedOutputIsNotKept() throws Exception {
+        Path directory = Files.createTempDirectory("output");
+        String path = directory.toString() + "/";
+        Files.write(directory.resolve("file.dat"), (FlatFileProcessorTest.SALESMAN_DATA
+                + FlatFileProcessorTest.CLIENT_DATA + FlatFileProcessorTest.SALES_DATA)
+                .getBytes(StandardCharsets.UTF_8));
+        GlobalSummary globalSummary = new GlobalSummary(directory.resolve("global.done.dat"), null);
+        OutputWriter writer = new OutputWriter(4, false);
+
+        long processed = Metrics.INSTANCE.getFilesProcessed();
+        long failed = Metrics.INSTANCE.getFilesFailed();
+
+        FlatFileProcessor processor = new FlatFileProcessor("file.dat", path, path + "missing/", globalSummary,
+                null, writer);
+        assertFalse(processor.processFile());
+        writer.close();
+
+        assertTrue(processor.getPublished().isCompletedExceptionally());
+        assertEquals(processed, Metrics.INSTANCE.getFilesProcessed());
+        assertEquals(failed + 1, Metrics.INSTANCE.getFilesFailed());
+        assertEquals(0, globalSummary.getAmountOfClients());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalInvalidBatchSize() {
+        new OutputWriter(0, false);
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+}
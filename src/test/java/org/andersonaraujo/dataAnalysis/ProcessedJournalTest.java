@@ -0,0 +1,85 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ProcessedJournal}.
+ */
+public class ProcessedJournalTest {
+
+    @Test
+    public void testNominalResumeCompletedFiles() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        Path first = write(directory.resolve("first.dat"), "first");
+        Path second = write(directory.resolve("second.dat"), "second");
+
+        ProcessedJournal journal = ProcessedJournal.open(directory.resolve(ProcessedJournal.FILE_NAME));
+        journal.completed(first);
+        journal.completed(second);
+        journal.close();
+
+        journal = ProcessedJournal.open(directory.resolve(ProcessedJournal.FILE_NAME));
+        assertTrue(journal.isCompleted(first));
+        assertTrue(journal.isCompleted(second));
+        assertFalse(journal.isCompleted(directory.resolve("third.dat")));
+        journal.close();
+    }
+
+    @Test
+    public void testNominalCompactChangedFiles() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        Path journalFile = directory.resolve(ProcessedJournal.FILE_NAME);
+        Path changed = write(directory.resolve("changed.dat"), "before");
+        Path deleted = write(directory.resolve("deleted.dat"), "deleted");
+        Path kept = write(directory.resolve("kept.dat"), "kept");
+
+        ProcessedJournal journal = ProcessedJournal.open(journalFile);
+        journal.completed(changed);
+        journal.completed(deleted);
+        journal.completed(kept);
+        journal.close();
+        write(changed, "changed after processed");
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        Files.delete(deleted);
+
+        journal = ProcessedJournal.open(journalFile);
+        assertFalse(journal.isCompleted(changed));
+        assertTrue(journal.isCompleted(kept));
+        assertEquals(1, journal.size());
+        assertEquals(1, Files.readAllLines(journalFile).size());
+        journal.close();
+    }
+
+    @Test
+    public void testOffNominalCutLastLine() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        Path journalFile = directory.resolve(ProcessedJournal.FILE_NAME);
+        Path file = write(directory.resolve("file.dat"), "file");
+
+        ProcessedJournal journal = ProcessedJournal.open(journalFile);
+        journal.completed(file);
+        journal.close();
+        Files.write(journalFile, directory.resolve("other.dat").toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        journal = ProcessedJournal.open(journalFile);
+        assertTrue(journal.isCompleted(file));
+        assertEquals(1, journal.size());
+        journal.close();
+    }
+
+    private static Path write(Path file, String content) throws Exception {
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
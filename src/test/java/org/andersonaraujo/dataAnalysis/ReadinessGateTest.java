@@ -0,0 +1,115 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ReadinessGate}.
+ */
+public class ReadinessGateTest {
+
+    private final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+    private final IngestionQueue queue = new IngestionQueue(1, 10, SchedulingPolicy.FIFO, fileName -> () -> {
+        processed.add(fileName);
+        return true;
+    });
+
+    @Test
+    public void testNominalFileIsQueuedAfterQuietPeriod() throws Exception {
+        Path file = Files.write(Files.createTempDirectory("gate").resolve("file.dat"), new byte[10]);
+        ReadinessGate gate = new ReadinessGate(queue, 100, false);
+
+        gate.track(file);
+        gate.check();
+        Files.write(file, new byte[10], StandardOpenOption.APPEND);
+        gate.check();
+        assertEquals("File is still being written.", 1, gate.getPendingCount());
+
+        // Read once the quiet period elapsed, then ready on the next check if unchanged since it was written
+        Thread.sleep(150);
+        gate.check();
+        gate.check();
+        assertEquals("File should be ready.", 0, gate.getPendingCount());
+
+        assertProcessed("[file.dat]");
+    }
+
+    @Test
+    public void testNominalAtomicRename() throws Exception {
+        Path file = Files.write(Files.createTempDirectory("gate").resolve("file.dat"), new byte[10]);
+        ReadinessGate gate = new ReadinessGate(queue, 60000, true);
+
+        gate.track(file);
+        gate.check();
+
+        assertProcessed("[file.dat]");
+    }
+
+    @Test
+    public void testOffNominalIgnoresOtherExtensionsAndRemovedFiles() throws Exception {
+        Path directory = Files.createTempDirectory("gate");
+        ReadinessGate gate = new ReadinessGate(queue, 0, false);
+
+        gate.track(Files.write(directory.resolve("file.tmp"), new byte[10]));
+        gate.track(directory.resolve("removed.dat"));
+        gate.check();
+
+        assertEquals(0, gate.getPendingCount());
+        assertProcessed("[]");
+    }
+
+    @Test
+    public void testNominalFileNotReadBeforeQuietPeriod() throws Exception {
+        ReadinessGate gate = new ReadinessGate(queue, 60000, false);
+
+        gate.track(Files.createTempDirectory("gate").resolve("removed.dat"));
+        gate.check();
+
+        assertEquals("File should not be read yet.", 1, gate.getPendingCount());
+    }
+
+    @Test
+    public void testNominalRefillOnceHalfEmpty() throws Exception {
+        Path directory = Files.createTempDirectory("gate");
+        ReadinessGate gate = new ReadinessGate(queue, 0, true, 2);
+        List<Path> refilled = new ArrayList<>();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        gate.start(scheduler, 60000, () -> refilled.add(directory));
+
+        assertTrue(gate.track(Files.write(directory.resolve("first.dat"), new byte[10])));
+        assertTrue(gate.track(Files.write(directory.resolve("second.dat"), new byte[10])));
+        assertFalse(gate.track(Files.write(directory.resolve("third.dat"), new byte[10])));
+        assertEquals(2, gate.getPendingCount());
+
+        gate.check();
+        assertEquals(0, gate.getPendingCount());
+        assertEquals(1, refilled.size());
+        gate.check();
+        assertEquals("Refilled once per overflow.", 1, refilled.size());
+        scheduler.shutdownNow();
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, processed.size());
+    }
+
+    private void assertProcessed(String expected) throws InterruptedException {
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(expected, processed.toString());
+    }
+
+}
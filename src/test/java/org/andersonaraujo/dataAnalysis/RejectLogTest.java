@@ -0,0 +1,143 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link RejectLog} and the lenient parsing of {@link FlatFileProcessor}.
+ */
+public class RejectLogTest {
+
+    private static final String DATA = FlatFileProcessorTest.SALESMAN_DATA
+            + FlatFileProcessorTest.INVALID_DATA
+            + FlatFileProcessorTest.CLIENT_DATA
+            + "\n"
+            + FlatFileProcessorTest.SALES_DATA
+            + "003ç11ç[1-1]çDiego\n";
+
+    @After
+    public void clearSettings() {
+        System.clearProperty(Settings.LENIENT_PARSING);
+        System.clearProperty(Settings.MAX_REJECTS);
+    }
+
+    @Test
+    public void testNominalSkipRejectedLines() throws Exception {
+        Path directory = createInput("file.dat", DATA);
+        System.setProperty(Settings.LENIENT_PARSING, "true");
+
+        assertTrue(process(directory, "file.dat", Settings.DEFAULT_SPLIT_THRESHOLD));
+
+        assertEquals("001çAmountClientsç2\n" +
+                "002çAmountSalesmanç2\n" +
+                "003çMostExpensiveSaleç10\n" +
+                "004çWorstSalesmançRenato\n" +
+                "008çRejectedLinesç3\n", read(directory.resolve("out/file.done.dat")));
+        assertEquals("3çInvalid line at position 70: missing field.ç001\n" +
+                "6çInvalid line at position 161: missing field.ç\n" +
+                "9çInvalid line at position 256: item without price.ç003ç11ç[1-1]çDiego\n",
+                read(directory.resolve("error/file.dat.rejects")));
+    }
+
+    @Test
+    public void testNominalLineNumbersOfChunks() throws Exception {
+        StringBuilder data = new StringBuilder(FlatFileProcessorTest.SALESMAN_DATA);
+        for (int i = 0; i < 40; i++) {
+            data.append(i % 7 == 0 ? "003ç" + i + "\n" : "003ç" + i + "ç[1-1-" + i + "]çDiego\n");
+        }
+        Path directory = createInput("file.dat", data.toString());
+        System.setProperty(Settings.LENIENT_PARSING, "true");
+
+        assertTrue(process(directory, "file.dat", 128));
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 40; i += 7) {
+            expected.append(i + 3).append("ç");
+        }
+        StringBuilder actual = new StringBuilder();
+        for (String line : read(directory.resolve("error/file.dat.rejects")).split("\n")) {
+            actual.append(line, 0, line.indexOf('ç') + 1);
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testNominalNoRejectedLines() throws Exception {
+        Path directory = createInput("file.dat", FlatFileProcessorTest.SALESMAN_DATA);
+        Files.createDirectories(directory.resolve("error"));
+        Files.write(directory.resolve("error/file.dat.rejects"), "1çoldç\n".getBytes(StandardCharsets.UTF_8));
+        System.setProperty(Settings.LENIENT_PARSING, "true");
+
+        assertTrue(process(directory, "file.dat", Settings.DEFAULT_SPLIT_THRESHOLD));
+
+        assertTrue(read(directory.resolve("out/file.done.dat")).endsWith("008çRejectedLinesç0\n"));
+        assertFalse(Files.exists(directory.resolve("error/file.dat.rejects")));
+    }
+
+    @Test
+    public void testOffNominalTooManyRejectedLines() throws Exception {
+        Path directory = createInput("file.dat", DATA);
+        System.setProperty(Settings.LENIENT_PARSING, "true");
+        System.setProperty(Settings.MAX_REJECTS, "2");
+
+        assertFalse(process(directory, "file.dat", Settings.DEFAULT_SPLIT_THRESHOLD));
+
+        assertFalse(Files.exists(directory.resolve("out/file.done.dat")));
+        assertEquals(3, read(directory.resolve("error/file.dat.rejects")).split("\n").length);
+    }
+
+    @Test
+    public void testOffNominalRejectedItemIdLeavesNothing() throws Exception {
+        Path directory = createInput("file.dat", FlatFileProcessorTest.SALESMAN_DATA
+                + FlatFileProcessorTest.SALES_DATA + "003ç99ç[1-1-10,x2-1-5000]çDiego\n");
+        System.setProperty(Settings.LENIENT_PARSING, "true");
+
+        assertTrue(process(directory, "file.dat", Settings.DEFAULT_SPLIT_THRESHOLD, true));
+
+        String output = read(directory.resolve("out/file.done.dat"));
+        assertTrue(output.contains("003çMostExpensiveSaleç10\n"));
+        assertTrue(output.contains("004çWorstSalesmançRenato\n"));
+        assertTrue(output.endsWith("008çRejectedLinesç1\n"));
+        assertFalse(output.contains("ç99ç") || output.contains("5000"));
+        assertTrue(read(directory.resolve("error/file.dat.rejects")).startsWith("5ç"));
+    }
+
+    @Test
+    public void testOffNominalStrictParsing() throws Exception {
+        Path directory = createInput("file.dat", DATA);
+
+        assertFalse(process(directory, "file.dat", Settings.DEFAULT_SPLIT_THRESHOLD));
+
+        assertFalse(Files.exists(directory.resolve("error")));
+    }
+
+    private static boolean process(Path directory, String fileName, long splitThreshold) {
+        return process(directory, fileName, splitThreshold, false);
+    }
+
+    private static boolean process(Path directory, String fileName, long splitThreshold, boolean itemReport) {
+        return new FlatFileProcessor(fileName, directory.resolve("in") + "/", directory.resolve("out") + "/",
+                splitThreshold, itemReport, null).processFile();
+    }
+
+    private static Path createInput(String fileName, String data) throws Exception {
+        Path directory = Files.createTempDirectory("rejects");
+        Files.createDirectories(directory.resolve("in"));
+        Files.createDirectories(directory.resolve("out"));
+        Files.write(directory.resolve("in").resolve(fileName), data.getBytes(StandardCharsets.UTF_8));
+        return directory;
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ReportFormat}.
+ */
+public class ReportFormatTest {
+
+    private static final String REPORT = "001çAmountClientsç2\n" +
+            "004çWorstSalesmançRenato, \"Jr\"\n" +
+            "006çWorstSalesmenç1çRenatoç10.5\n";
+
+    @After
+    public void clearSettings() {
+        System.clearProperty(Settings.REPORT_FORMAT);
+    }
+
+    @Test
+    public void testNominalText() {
+        assertEquals(REPORT, ReportFormat.TEXT.encode(REPORT));
+    }
+
+    @Test
+    public void testNominalJson() {
+        assertEquals("[\n" +
+                "{\"type\":\"001\",\"name\":\"AmountClients\",\"values\":[\"2\"]},\n" +
+                "{\"type\":\"004\",\"name\":\"WorstSalesman\",\"values\":[\"Renato, \\\"Jr\\\"\"]},\n" +
+                "{\"type\":\"006\",\"name\":\"WorstSalesmen\",\"values\":[\"1\",\"Renato\",\"10.5\"]}\n" +
+                "]\n", ReportFormat.JSON.encode(REPORT));
+        assertEquals("[\n]\n", ReportFormat.JSON.encode(""));
+    }
+
+    @Test
+    public void testNominalCsv() {
+        assertEquals("001,AmountClients,2\r\n" +
+                "004,WorstSalesman,\"Renato, \"\"Jr\"\"\"\r\n" +
+                "006,WorstSalesmen,1,Renato,10.5\r\n", ReportFormat.CSV.encode(REPORT));
+    }
+
+    @Test
+    public void testNominalOutputFileInFormat() throws Exception {
+        Path directory = Files.createTempDirectory("formats");
+        Files.write(directory.resolve("file.dat"), (FlatFileProcessorTest.SALESMAN_DATA
+                + FlatFileProcessorTest.CLIENT_DATA + FlatFileProcessorTest.SALES_DATA)
+                .getBytes(StandardCharsets.UTF_8));
+        System.setProperty(Settings.REPORT_FORMAT, "csv");
+
+        assertTrue(new FlatFileProcessor("file.dat", directory + "/", directory + "/").processFile());
+
+        assertFalse(Files.exists(directory.resolve("file.done.dat")));
+        assertEquals("001,AmountClients,2\r\n",
+                Files.readAllLines(directory.resolve("file.done.csv")).get(0) + "\r\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffNominalUnknownFormat() {
+        ReportFormat.of("xml");
+    }
+
+}
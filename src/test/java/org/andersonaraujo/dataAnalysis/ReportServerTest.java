@@ -0,0 +1,98 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ReportServer}.
+ */
+public class ReportServerTest {
+
+    private ReportServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new ReportServer(0, 2, ReportFormat.TEXT, () -> "001çAmountClientsç5\n");
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testNominalLatestReports() throws Exception {
+        server.publish("first.dat", "001çAmountClientsç1\n");
+        server.publish("second.dat", "001çAmountClientsç2\n");
+        server.publish("third.dat", "001çAmountClientsç3\n");
+
+        assertEquals("second.dat\nthird.dat\n", get("/reports"));
+        assertEquals("001çAmountClientsç3\n", get("/reports/third.dat"));
+        assertEquals("001,AmountClients,2\r\n", get("/reports/second.dat?format=csv"));
+    }
+
+    @Test
+    public void testNominalGlobalReport() throws Exception {
+        assertEquals("[\n{\"type\":\"001\",\"name\":\"AmountClients\",\"values\":[\"5\"]}\n]\n",
+                get("/global?format=json"));
+    }
+
+    @Test
+    public void testOffNominalUnknownFile() throws Exception {
+        assertEquals(404, status("/reports/first.dat"));
+        assertEquals(400, status("/global?format=xml"));
+    }
+
+    @Test
+    public void testOffNominalUnpublishedOutputIsNotServed() throws Exception {
+        Path directory = Files.createTempDirectory("server");
+        String path = directory.toString() + "/";
+        Files.write(directory.resolve("file.dat"),
+                FlatFileProcessorTest.SALESMAN_DATA.getBytes(StandardCharsets.UTF_8));
+        OutputWriter writer = new OutputWriter(4, false);
+
+        assertFalse(new FlatFileProcessor("file.dat", path, path + "missing/", null, null, writer, server)
+                .processFile());
+        writer.close();
+        assertEquals(404, status("/reports/file.dat"));
+
+        assertTrue(new FlatFileProcessor("file.dat", path, path, null, null, null, server).processFile());
+        assertEquals("001çAmountClientsç0\n", get("/reports/file.dat").split("(?<=\n)")[0]);
+    }
+
+    private String get(String path) throws Exception {
+        HttpURLConnection connection = connect(path);
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream input = connection.getInputStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private int status(String path) throws Exception {
+        return connect(path).getResponseCode();
+    }
+
+    private HttpURLConnection connect(String path) throws Exception {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+    }
+
+}
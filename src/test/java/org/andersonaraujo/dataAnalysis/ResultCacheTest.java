@@ -0,0 +1,129 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ResultCache}.
+ */
+public class ResultCacheTest {
+
+    private static final String DATA = FlatFileProcessorTest.SALESMAN_DATA + FlatFileProcessorTest.CLIENT_DATA
+            + FlatFileProcessorTest.SALES_DATA;
+
+    @Test
+    public void testNominalSameContentSameKey() throws Exception {
+        Path directory = Files.createTempDirectory("cache");
+        ResultCache cache = new ResultCache(directory.resolve(ResultCache.FILE_NAME), 10, "");
+
+        ResultCache.Key first = cache.key(write(directory.resolve("first.dat"), DATA));
+        ResultCache.Key copy = cache.key(write(directory.resolve("copy.dat"), DATA));
+        ResultCache.Key other = cache.key(write(directory.resolve("other.dat"), DATA.replace("Diego", "Diogo")));
+
+        assertEquals(first, copy);
+        assertNotEquals(first, other);
+        assertEquals(DATA.getBytes(StandardCharsets.UTF_8).length, first.getSize());
+    }
+
+    @Test
+    public void testNominalUnchangedFileNotHashedAgain() throws Exception {
+        Path directory = Files.createTempDirectory("cache");
+        ResultCache cache = new ResultCache(directory.resolve(ResultCache.FILE_NAME), 10, "");
+        Path file = write(directory.resolve("file.dat"), DATA);
+        FileTime modified = Files.getLastModifiedTime(file);
+        ResultCache.Key key = cache.key(file);
+
+        // Same size and modification time, so the file is not read
+        write(file, DATA.replace("Diego", "Diogo"));
+        Files.setLastModifiedTime(file, modified);
+        assertEquals(key, cache.key(file));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+        assertNotEquals(key, cache.key(file));
+    }
+
+    @Test
+    public void testNominalDuplicateFileNotParsed() throws Exception {
+        Path directory = Files.createTempDirectory("cache");
+        String path = directory.toString() + "/";
+        ResultCache cache = new ResultCache(directory.resolve(ResultCache.FILE_NAME), 10, "");
+        long hits = Metrics.INSTANCE.getCacheHits();
+
+        write(directory.resolve("first.dat"), DATA);
+        assertTrue(new FlatFileProcessor("first.dat", path, path, null, cache).processFile());
+        String output = new String(Files.readAllBytes(directory.resolve("first.done.dat")), StandardCharsets.UTF_8);
+        assertEquals(1, cache.size());
+
+        // The output comes from the cache, as the copy is not parsed
+        cache.put(cache.key(directory.resolve("first.dat")), output + "cached\n");
+        write(directory.resolve("copy.dat"), DATA);
+        assertTrue(new FlatFileProcessor("copy.dat", path, path, null, cache).processFile());
+
+        assertEquals(output + "cached\n",
+                new String(Files.readAllBytes(directory.resolve("copy.done.dat")), StandardCharsets.UTF_8));
+        assertEquals(hits + 1, Metrics.INSTANCE.getCacheHits());
+    }
+
+    @Test
+    public void testNominalLeastRecentlyUsedEvicted() throws Exception {
+        ResultCache cache = new ResultCache(Files.createTempDirectory("cache").resolve(ResultCache.FILE_NAME), 2, "");
+        ResultCache.Key first = new ResultCache.Key(1, 10);
+        ResultCache.Key second = new ResultCache.Key(2, 10);
+        ResultCache.Key third = new ResultCache.Key(3, 10);
+
+        cache.put(first, "first");
+        cache.put(second, "second");
+        cache.get(first);
+        cache.put(third, "third");
+
+        assertEquals("first", cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals("third", cache.get(third));
+    }
+
+    @Test
+    public void testNominalFlushAndLoad() throws Exception {
+        Path directory = Files.createTempDirectory("cache");
+        Path cacheFile = directory.resolve(ResultCache.FILE_NAME);
+        Path file = write(directory.resolve("file.dat"), DATA);
+
+        ResultCache cache = ResultCache.load(cacheFile, 10, "itemReport=false");
+        ResultCache.Key key = cache.key(file);
+        cache.put(key, "output\n");
+        cache.flush();
+        assertFalse(Files.exists(directory.resolve(ResultCache.FILE_NAME + ".tmp")));
+
+        ResultCache restored = ResultCache.load(cacheFile, 10, "itemReport=false");
+        assertEquals("output\n", restored.get(key));
+        assertEquals(key, restored.key(file));
+
+        assertEquals(0, ResultCache.load(cacheFile, 10, "itemReport=true").size());
+    }
+
+    @Test
+    public void testNominalOptionsIncludeMoneyScale() {
+        String options = ResultCache.configuredOptions();
+        try {
+            System.setProperty(Settings.MONEY_SCALE, "4");
+            assertNotEquals(options, ResultCache.configuredOptions());
+        } finally {
+            System.clearProperty(Settings.MONEY_SCALE);
+        }
+        assertEquals(options, ResultCache.configuredOptions());
+    }
+
+    private static Path write(Path file, String data) throws Exception {
+        return Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link SalesmanDictionary}.
+ */
+public class SalesmanDictionaryTest {
+
+    @Test
+    public void testNominalIdsFromBytes() {
+        ByteBuffer names = ByteBuffer.wrap("DiegoRenatoDiegoÁlvaro".getBytes(StandardCharsets.UTF_8));
+        SalesmanDictionary dictionary = new SalesmanDictionary();
+
+        assertEquals(0, dictionary.id(names, 0, 5));
+        assertEquals(1, dictionary.id(names, 5, 11));
+        assertEquals(0, dictionary.id(names, 11, 16));
+        assertEquals(2, dictionary.id(names, 16, 23));
+        assertEquals(2, dictionary.id("Álvaro"));
+
+        assertEquals(3, dictionary.size());
+        assertEquals("Renato", dictionary.name(1));
+        assertEquals("Álvaro", dictionary.name(2));
+        assertArrayEquals("Álvaro".getBytes(StandardCharsets.UTF_8), dictionary.bytes(2));
+    }
+
+    @Test
+    public void testNominalGrow() {
+        SalesmanDictionary dictionary = new SalesmanDictionary();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.id("Salesman" + i));
+        }
+        dictionary.ensureCapacity(5000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.id("Salesman" + i));
+            assertEquals("Salesman" + i, dictionary.name(i));
+        }
+        assertEquals(1000, dictionary.size());
+    }
+
+    @Test
+    public void testNominalIdsFromOtherDictionary() {
+        SalesmanDictionary dictionary = new SalesmanDictionary();
+        dictionary.id("Diego");
+        SalesmanDictionary other = new SalesmanDictionary(100);
+        other.id("Renato");
+        other.id("Diego");
+
+        assertEquals(1, dictionary.id(other, 0));
+        assertEquals(0, dictionary.id(other, 1));
+        assertEquals("Renato", dictionary.name(1));
+    }
+
+}
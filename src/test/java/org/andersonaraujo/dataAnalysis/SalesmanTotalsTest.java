@@ -0,0 +1,84 @@
+package org.andersonaraujo.dataAnalysis;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test class for {@link SalesmanTotals}.
+ */
+public class SalesmanTotalsTest {
+
+    @Test
+    public void testNominalWorstAndBest() {
+        SalesmanTotals salesmanTotals = totals();
+
+        assertEquals("Renato", salesmanTotals.getWorst());
+        assertEquals("Diego", salesmanTotals.getBest());
+    }
+
+    @Test
+    public void testNominalBottomAndTop() {
+        SalesmanTotals salesmanTotals = totals();
+
+        assertEquals("[Renato=5.00, Ana=10.00, Bruno=10.00]", salesmanTotals.getBottom(3).toString());
+        assertEquals("[Diego=30.00, Carla=20.00]", salesmanTotals.getTop(2).toString());
+        assertEquals(5, salesmanTotals.getTop(10).size());
+        assertEquals(Collections.emptyList(), salesmanTotals.getTop(0));
+    }
+
+    @Test
+    public void testNominalMerge() {
+        SalesmanTotals salesmanTotals = totals();
+        SalesmanTotals other = new SalesmanTotals();
+        other.add("Renato", money(100));
+        salesmanTotals.merge(other);
+
+        assertEquals("[Renato=105.00]", salesmanTotals.getTop(1).toString());
+    }
+
+    @Test
+    public void testNominalTotalBeyondLong() {
+        SalesmanTotals salesmanTotals = totals();
+        Money big = new Money();
+        big.add(Long.MAX_VALUE, Money.SCALE);
+        salesmanTotals.add("Ana", big);
+        salesmanTotals.add("Ana", big);
+
+        SalesmanTotals merged = new SalesmanTotals();
+        merged.merge(salesmanTotals);
+        merged.merge(salesmanTotals);
+
+        assertEquals("Ana", merged.getBest());
+        assertEquals("[Ana=" + new BigDecimal(Long.MAX_VALUE).movePointLeft(Money.SCALE).multiply(new BigDecimal(4))
+                .add(new BigDecimal(20)).setScale(Money.SCALE) + "]", merged.getTop(1).toString());
+        assertEquals("[Renato=10.00]", merged.getBottom(1).toString());
+    }
+
+    @Test
+    public void testOffNominalWorstWhenThereAreNoSales() {
+        assertNull(new SalesmanTotals().getWorst());
+    }
+
+    private static SalesmanTotals totals() {
+        SalesmanTotals salesmanTotals = new SalesmanTotals();
+        salesmanTotals.add("Diego", money(10));
+        salesmanTotals.add("Bruno", money(10));
+        salesmanTotals.add("Diego", money(20));
+        salesmanTotals.add("Renato", money(5));
+        salesmanTotals.add("Carla", money(20));
+        salesmanTotals.add("Ana", money(10));
+        return salesmanTotals;
+    }
+
+    private static Money money(long value) {
+        Money money = new Money();
+        money.add(value, 0);
+        return money;
+    }
+
+}